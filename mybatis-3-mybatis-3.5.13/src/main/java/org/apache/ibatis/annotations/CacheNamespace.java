@@ -22,8 +22,11 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.EstimatedRowsWeigher;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheInvalidation;
 
 // @formatter:off
 /**
@@ -86,6 +89,17 @@ public @interface CacheNamespace {
    */
   boolean readWrite() default true;
 
+  /**
+   * Returns whether the cache stores read-only snapshots of the results, copied once when put and handed out on every
+   * hit without copying. The setters of the snapshot objects and the mutators of their collections throw an
+   * {@link UnsupportedOperationException}. It overrides {@link #readWrite()}.
+   *
+   * @return {@code true} if the cache stores snapshots; {@code false} if otherwise
+   *
+   * @since 3.5.14
+   */
+  boolean snapshot() default false;
+
   /**
    * Returns whether block the cache at request time or not.
    *
@@ -102,4 +116,31 @@ public @interface CacheNamespace {
    */
   Property[] properties() default {};
 
+  /**
+   * Returns how writes invalidate the cache.
+   *
+   * @return the invalidation mode
+   *
+   * @since 3.5.14
+   */
+  CacheInvalidation invalidation() default CacheInvalidation.NAMESPACE;
+
+  /**
+   * Returns the byte budget of the cache, evicting the least recently used entries beyond it.
+   *
+   * @return the budget in bytes, {@code 0} if not bounded in bytes
+   *
+   * @since 3.5.14
+   */
+  long maxBytes() default 0;
+
+  /**
+   * Returns the weigher estimating the bytes of the cached entries, used when the cache is bounded in bytes.
+   *
+   * @return the weigher class
+   *
+   * @since 3.5.14
+   */
+  Class<? extends CacheWeigher> weigher() default EstimatedRowsWeigher.class;
+
 }
@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotation that declares the parameter property identifying the entity a statement looks up or writes, for
+ * caches using {@link org.apache.ibatis.mapping.CacheInvalidation#IDENTITY}.
+ * <p>
+ * <b>How to use:</b>
+ *
+ * <pre>
+ * &#064;CacheNamespace(invalidation = CacheInvalidation.IDENTITY)
+ * public interface UserMapper {
+ *   &#064;IdentityProperty("id")
+ *   &#064;Select("SELECT * FROM users WHERE id = #{id}")
+ *   User selectById(int id);
+ *
+ *   &#064;IdentityProperty("id")
+ *   &#064;Update("UPDATE users SET name = #{name} WHERE id = #{id}")
+ *   void update(User user);
+ * }
+ * </pre>
+ *
+ * @since 3.5.14
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface IdentityProperty {
+  /**
+   * Returns the property name of the parameter holding the identity. It is ignored when the parameter is a single
+   * value, which is the identity itself.
+   *
+   * @return the property name
+   */
+  String value();
+}
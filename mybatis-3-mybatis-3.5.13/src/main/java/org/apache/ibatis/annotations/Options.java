@@ -106,6 +106,17 @@ public @interface Options {
    */
   boolean useGeneratedKeys() default false;
 
+  /**
+   * Returns the key generator assigning the keys, the id of a key generator declared in the configuration or a type
+   * alias or class name of a {@link org.apache.ibatis.executor.keygen.KeyGenerator}. It takes precedence over
+   * {@link #useGeneratedKeys()}.
+   *
+   * @return the key generator, or an empty string if not set
+   *
+   * @since 3.5.14
+   */
+  String keyGenerator() default "";
+
   /**
    * Returns property names that holds a key value.
    * <p>
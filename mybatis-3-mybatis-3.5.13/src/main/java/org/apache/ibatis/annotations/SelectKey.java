@@ -92,6 +92,16 @@ public @interface SelectKey {
    */
   StatementType statementType() default StatementType.PREPARED;
 
+  /**
+   * Returns the number of keys a batch executor selects at once before inserting. The statement must then select
+   * {@code #{keyCount}} keys, e.g. values of a sequence. Other executors give {@code keyCount} as {@code 1}.
+   *
+   * @return the number of keys selected at once, less than {@code 2} to select them one by one
+   *
+   * @since 3.5.14
+   */
+  int batchSize() default 0;
+
   /**
    * @return A database id that correspond this select key
    *
@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotation that declares the tables a statement reads or writes, for caches using
+ * {@link org.apache.ibatis.mapping.CacheInvalidation#TABLE}. Without it, the tables are derived from the SQL.
+ * <p>
+ * <b>How to use:</b>
+ *
+ * <pre>
+ * public interface OrderMapper {
+ *   &#064;Tables({ "orders", "order_lines" })
+ *   &#064;Select("SELECT * FROM order_summary WHERE id = #{id}")
+ *   OrderSummary selectSummary(int id);
+ * }
+ * </pre>
+ *
+ * @since 3.5.14
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Tables {
+  /**
+   * Returns the table names.
+   *
+   * @return the table names
+   */
+  String[] value();
+}
@@ -16,6 +16,7 @@
 package org.apache.ibatis.binding;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -23,6 +24,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
@@ -46,6 +50,9 @@ import org.apache.ibatis.session.SqlSession;
  */
 public class MapperMethod {
 
+  private static final String CURSOR_PUBLISHER = "org.apache.ibatis.cursor.CursorPublisher";
+  private static final String FLOW_PUBLISHER = "java.util.concurrent.Flow$Publisher";
+
   private final SqlCommand command;
   private final MethodSignature method;
 
@@ -55,6 +62,16 @@ public class MapperMethod {
   }
 
   public Object execute(SqlSession sqlSession, Object[] args) {
+    if (method.returnsPublisher()) {
+      return executeForPublisher(sqlSession, args);
+    }
+    if (method.returnsFuture()) {
+      return sqlSession.getAsyncSession().submit(session -> executeNow(session, args));
+    }
+    return executeNow(sqlSession, args);
+  }
+
+  private Object executeNow(SqlSession sqlSession, Object[] args) {
     Object result;
     switch (command.getType()) {
       case INSERT: {
@@ -168,6 +185,22 @@ public class MapperMethod {
     return result;
   }
 
+  private Object executeForPublisher(SqlSession sqlSession, Object[] args) {
+    if (command.getType() != SqlCommandType.SELECT) {
+      throw new BindingException("Mapper method '" + command.getName() + "' returns a Flow.Publisher but is not a select");
+    }
+    if (CursorPublisherHolder.CONSTRUCTOR == null) {
+      throw new BindingException("Mapper method '" + command.getName()
+          + "' returns a Flow.Publisher, which this build of MyBatis does not support.");
+    }
+    Function<SqlSession, Cursor<Object>> query = session -> executeForCursor(session, args);
+    try {
+      return CursorPublisherHolder.CONSTRUCTOR.newInstance(sqlSession, query);
+    } catch (ReflectiveOperationException e) {
+      throw new BindingException("Could not create the publisher of mapper method '" + command.getName() + "'.", e);
+    }
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -200,6 +233,21 @@ public class MapperMethod {
     return result;
   }
 
+  /**
+   * {@code CursorPublisher} requires Java 9, so it is only referenced reflectively.
+   */
+  private static class CursorPublisherHolder {
+    static final Constructor<?> CONSTRUCTOR = findConstructor();
+
+    private static Constructor<?> findConstructor() {
+      try {
+        return Class.forName(CURSOR_PUBLISHER).getConstructor(SqlSession.class, Function.class);
+      } catch (ReflectiveOperationException | LinkageError e) {
+        return null;
+      }
+    }
+  }
+
   public static class ParamMap<V> extends HashMap<String, V> {
 
     private static final long serialVersionUID = -2212268410512043556L;
@@ -275,6 +323,8 @@ public class MapperMethod {
     private final boolean returnsVoid;
     private final boolean returnsCursor;
     private final boolean returnsOptional;
+    private final boolean returnsFuture;
+    private final boolean returnsPublisher;
     private final Class<?> returnType;
     private final String mapKey;
     private final Integer resultHandlerIndex;
@@ -283,18 +333,32 @@ public class MapperMethod {
 
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
-      if (resolvedReturnType instanceof Class<?>) {
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType())
+          || CompletionStage.class.equals(method.getReturnType());
+      this.returnsPublisher = FLOW_PUBLISHER.equals(method.getReturnType().getName());
+      if (this.returnsFuture || this.returnsPublisher) {
+        // the statement is mapped to the type the future completes with or the publisher emits
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+        if (resolvedReturnType instanceof ParameterizedType) {
+          this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+        } else if (resolvedReturnType instanceof Class<?>) {
+          this.returnType = (Class<?>) resolvedReturnType;
+        } else {
+          this.returnType = Object.class;
+        }
+      } else if (resolvedReturnType instanceof Class<?>) {
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
       } else {
         this.returnType = method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || this.returnsFuture && Void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
-      this.mapKey = getMapKey(method);
+      this.mapKey = getMapKey(method, this.returnsFuture ? this.returnType : method.getReturnType());
       this.returnsMap = this.mapKey != null;
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
       this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
@@ -352,6 +416,30 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * Returns whether the return type is {@link CompletableFuture} or {@link CompletionStage}. The statement is then run
+     * through {@link SqlSession#getAsyncSession()} and {@link #getReturnType()} is the type the future completes with.
+     *
+     * @return {@code true} if the method returns a future
+     *
+     * @since 3.5.14
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
+    /**
+     * Returns whether the return type is {@code java.util.concurrent.Flow.Publisher}. The statement is then streamed
+     * through a {@code org.apache.ibatis.cursor.CursorPublisher} and {@link #getReturnType()} is the item type.
+     *
+     * @return {@code true} if the method returns a publisher
+     *
+     * @since 3.5.14
+     */
+    public boolean returnsPublisher() {
+      return returnsPublisher;
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       final Class<?>[] argTypes = method.getParameterTypes();
@@ -371,9 +459,9 @@ public class MapperMethod {
       return mapKey;
     }
 
-    private String getMapKey(Method method) {
+    private String getMapKey(Method method, Class<?> mapType) {
       String mapKey = null;
-      if (Map.class.isAssignableFrom(method.getReturnType())) {
+      if (Map.class.isAssignableFrom(mapType)) {
         final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
         if (mapKeyAnnotation != null) {
           mapKey = mapKeyAnnotation.value();
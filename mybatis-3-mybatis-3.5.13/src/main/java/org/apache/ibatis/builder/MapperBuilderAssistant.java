@@ -26,11 +26,13 @@ import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheWeigher;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.mapping.CacheInvalidation;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
@@ -123,10 +125,26 @@ public class MapperBuilderAssistant extends BaseBuilder {
 
     public Cache useNewCache(Class<? extends Cache> typeClass, Class<? extends Cache> evictionClass, Long flushInterval,
                              Integer size, boolean readWrite, boolean blocking, Properties props) {
+        return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props, null);
+    }
+
+    public Cache useNewCache(Class<? extends Cache> typeClass, Class<? extends Cache> evictionClass, Long flushInterval,
+                             Integer size, boolean readWrite, boolean blocking, Properties props, CacheInvalidation invalidation) {
+        return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props, invalidation, null,
+            null, false);
+    }
+
+    public Cache useNewCache(Class<? extends Cache> typeClass, Class<? extends Cache> evictionClass, Long flushInterval,
+                             Integer size, boolean readWrite, boolean blocking, Properties props, CacheInvalidation invalidation,
+                             Long maxBytes, Class<? extends CacheWeigher> weigherClass, boolean snapshot) {
 //        基于建造者模式构建Cache
         Cache cache = new CacheBuilder(currentNamespace).implementation(valueOrDefault(typeClass, PerpetualCache.class))
             .addDecorator(valueOrDefault(evictionClass, LruCache.class)).clearInterval(flushInterval).size(size)
-            .readWrite(readWrite).blocking(blocking).properties(props).build();
+            .readWrite(readWrite).snapshot(snapshot).blocking(blocking).properties(props).invalidation(invalidation)
+            .invalidationChannel(configuration.getInvalidationChannel())
+            .statsCounter(configuration.isCacheStatsEnabled() ? configuration.getCacheStatsCounter(currentNamespace) : null)
+            .maxBytes(maxBytes).weigher(weigherClass)
+            .weightBudget(configuration.getCacheWeightBudget()).build();
 //        添加到configuration的Cache中，这是StrictMap那个对象
         configuration.addCache(cache);
         currentCache = cache;
@@ -202,6 +220,17 @@ public class MapperBuilderAssistant extends BaseBuilder {
                                               String resultMap, Class<?> resultType, ResultSetType resultSetType, boolean flushCache, boolean useCache,
                                               boolean resultOrdered, KeyGenerator keyGenerator, String keyProperty, String keyColumn, String databaseId,
                                               LanguageDriver lang, String resultSets, boolean dirtySelect) {
+        return addMappedStatement(id, sqlSource, statementType, sqlCommandType, fetchSize, timeout, parameterMap,
+            parameterType, resultMap, resultType, resultSetType, flushCache, useCache, resultOrdered, keyGenerator,
+            keyProperty, keyColumn, databaseId, lang, resultSets, dirtySelect, null, null);
+    }
+
+    public MappedStatement addMappedStatement(String id, SqlSource sqlSource, StatementType statementType,
+                                              SqlCommandType sqlCommandType, Integer fetchSize, Integer timeout, String parameterMap, Class<?> parameterType,
+                                              String resultMap, Class<?> resultType, ResultSetType resultSetType, boolean flushCache, boolean useCache,
+                                              boolean resultOrdered, KeyGenerator keyGenerator, String keyProperty, String keyColumn, String databaseId,
+                                              LanguageDriver lang, String resultSets, boolean dirtySelect, String tables,
+                                              String identityProperty) {
 
         if (unresolvedCacheRef) {
             throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -214,7 +243,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
             .keyGenerator(keyGenerator).keyProperty(keyProperty).keyColumn(keyColumn).databaseId(databaseId).lang(lang)
             .resultOrdered(resultOrdered).resultSets(resultSets)
             .resultMaps(getStatementResultMaps(resultMap, resultType, id)).resultSetType(resultSetType)
-            .flushCacheRequired(flushCache).useCache(useCache).cache(currentCache).dirtySelect(dirtySelect);
+            .flushCacheRequired(flushCache).useCache(useCache).cache(currentCache).dirtySelect(dirtySelect)
+            .tables(tables).identityProperty(identityProperty);
 
         ParameterMap statementParameterMap = getStatementParameterMap(parameterMap, parameterType, id);
         if (statementParameterMap != null) {
@@ -369,6 +399,30 @@ public class MapperBuilderAssistant extends BaseBuilder {
         return configuration.getLanguageDriver(langClass);
     }
 
+    /**
+     * Gets a key generator declared in the configuration, or creates and registers one of the given type.
+     *
+     * @param name
+     *          the id of a declared key generator, or a type alias or class name
+     *
+     * @return the key generator
+     *
+     * @since 3.5.14
+     */
+    public KeyGenerator getKeyGenerator(String name) {
+        if (configuration.hasKeyGenerator(name)) {
+            return configuration.getKeyGenerator(name);
+        }
+//        未声明的生成器按类型创建，同名语句共享同一个实例
+        Object instance = createInstance(name);
+        if (!(instance instanceof KeyGenerator)) {
+            throw new BuilderException("Key generator '" + name + "' is neither declared nor a KeyGenerator type.");
+        }
+        KeyGenerator keyGenerator = (KeyGenerator) instance;
+        configuration.addKeyGenerator(name, keyGenerator);
+        return keyGenerator;
+    }
+
     private Set<String> parseMultipleColumnNames(String columnName) {
         Set<String> columns = new HashSet<>();
         if (columnName != null) {
@@ -33,6 +33,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,6 +44,7 @@ import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.annotations.Case;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.DeleteProvider;
+import org.apache.ibatis.annotations.IdentityProperty;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.InsertProvider;
 import org.apache.ibatis.annotations.Lang;
@@ -56,6 +59,7 @@ import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.SelectKey;
 import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.annotations.Tables;
 import org.apache.ibatis.annotations.TypeDiscriminator;
 import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.UpdateProvider;
@@ -134,6 +138,10 @@ public class MapperAnnotationBuilder {
                     // 解析@SelectKey,@ResultMap等注解,并创建MappedStatement对象
                     parseResultMap(method);
                 }
+                if (configuration.isLazyStatementLoading()) {
+                    configuration.addLazyStatement(type.getName() + "." + method.getName(), () -> parseStatement(method));
+                    continue;
+                }
                 try {
                     parseStatement(method);
                 } catch (IncompleteElementException e) {
@@ -201,7 +209,8 @@ public class MapperAnnotationBuilder {
             Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
             Properties props = convertToProperties(cacheDomain.properties());
             assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size,
-                cacheDomain.readWrite(), cacheDomain.blocking(), props);
+                cacheDomain.readWrite(), cacheDomain.blocking(), props, cacheDomain.invalidation(), cacheDomain.maxBytes(),
+                cacheDomain.weigher(), cacheDomain.snapshot());
         }
     }
 
@@ -333,7 +342,12 @@ public class MapperAnnotationBuilder {
                 } else if (options == null) {
                     keyGenerator = configuration.isUseGeneratedKeys() ? Jdbc3KeyGenerator.INSTANCE : NoKeyGenerator.INSTANCE;
                 } else {
-                    keyGenerator = options.useGeneratedKeys() ? Jdbc3KeyGenerator.INSTANCE : NoKeyGenerator.INSTANCE;
+                    if (!options.keyGenerator().isEmpty()) {
+                        keyGenerator = assistant.getKeyGenerator(options.keyGenerator());
+                    } else {
+                        keyGenerator = options.useGeneratedKeys() ? Jdbc3KeyGenerator.INSTANCE
+                            : NoKeyGenerator.INSTANCE;
+                    }
                     keyProperty = options.keyProperty();
                     keyColumn = options.keyColumn();
                 }
@@ -364,6 +378,9 @@ public class MapperAnnotationBuilder {
                 }
             }
 
+            Tables tables = method.getAnnotation(Tables.class);
+            IdentityProperty identityProperty = method.getAnnotation(IdentityProperty.class);
+
             String resultMapId = null;
             if (isSelect) {
                 ResultMap resultMapAnnotation = method.getAnnotation(ResultMap.class);
@@ -380,7 +397,9 @@ public class MapperAnnotationBuilder {
                 // TODO gcode issue #577
                 false, keyGenerator, keyProperty, keyColumn, statementAnnotation.getDatabaseId(), languageDriver,
                 // ResultSets
-                options != null ? nullOrEmpty(options.resultSets()) : null, statementAnnotation.isDirtySelect());
+                options != null ? nullOrEmpty(options.resultSets()) : null, statementAnnotation.isDirtySelect(),
+                tables != null ? String.join(",", tables.value()) : null,
+                identityProperty != null ? identityProperty.value() : null);
         });
     }
 
@@ -413,13 +432,22 @@ public class MapperAnnotationBuilder {
     private static Class<?> getReturnType(Method method, Class<?> type) {
         Class<?> returnType = method.getReturnType();
         Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+        boolean returnsFuture = CompletableFuture.class.equals(returnType) || CompletionStage.class.equals(returnType)
+            || "java.util.concurrent.Flow$Publisher".equals(returnType.getName());
+        if (returnsFuture) {
+//            异步方法按照Future完成时的类型或者Publisher发出的元素类型来映射
+            resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+                ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+            returnType = resolvedReturnType instanceof ParameterizedType
+                ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+        }
         if (resolvedReturnType instanceof Class) {
             returnType = (Class<?>) resolvedReturnType;
             if (returnType.isArray()) {
                 returnType = returnType.getComponentType();
             }
             // gcode issue #508
-            if (void.class.equals(returnType)) {
+            if (void.class.equals(returnType) || returnsFuture && Void.class.equals(returnType)) {
                 ResultType rt = method.getAnnotation(ResultType.class);
                 if (rt != null) {
                     returnType = rt.value();
@@ -593,7 +621,7 @@ public class MapperAnnotationBuilder {
         id = assistant.applyCurrentNamespace(id, false);
 
         MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-        SelectKeyGenerator answer = new SelectKeyGenerator(keyStatement, executeBefore);
+        SelectKeyGenerator answer = new SelectKeyGenerator(keyStatement, executeBefore, selectKeyAnnotation.batchSize());
         configuration.addKeyGenerator(id, answer);
         return answer;
     }
@@ -15,20 +15,32 @@
  */
 package org.apache.ibatis.builder.xml;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.invalidation.InvalidationTransport;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.parsing.XNode;
@@ -46,6 +58,7 @@ import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.type.JdbcType;
+import org.w3c.dom.Document;
 
 /**
  * @author Clinton Begin
@@ -131,6 +144,7 @@ public class XMLConfigBuilder extends BaseBuilder {
             settingsElement(settings);
             environmentsElement(root.evalNode("environments"));
             databaseIdProviderElement(root.evalNode("databaseIdProvider"));
+            keyGeneratorsElement(root.evalNode("keyGenerators"));
             typeHandlerElement(root.evalNode("typeHandlers"));
             mapperElement(root.evalNode("mappers"));
         } catch (Exception e) {
@@ -289,11 +303,17 @@ public class XMLConfigBuilder extends BaseBuilder {
             AutoMappingUnknownColumnBehavior.valueOf(props.getProperty("autoMappingUnknownColumnBehavior", "NONE")));
         configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
         configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
+        configuration.setInvalidationTransport(
+            (InvalidationTransport) createInstance(props.getProperty("invalidationTransport")));
+        configuration.setCacheMaxBytes(longValueOf(props.getProperty("cacheMaxBytes"), 0L));
         configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
         configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), false));
+        configuration.setLazyLoadBatchSize(integerValueOf(props.getProperty("lazyLoadBatchSize"), 0));
+        configuration.setEagerLoadBatchSize(integerValueOf(props.getProperty("eagerLoadBatchSize"), 0));
         configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
         configuration.setUseColumnLabel(booleanValueOf(props.getProperty("useColumnLabel"), true));
         configuration.setUseGeneratedKeys(booleanValueOf(props.getProperty("useGeneratedKeys"), false));
+        configuration.setMultiRowInsertSize(integerValueOf(props.getProperty("multiRowInsertSize"), 0));
         configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
         configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
         configuration.setDefaultFetchSize(integerValueOf(props.getProperty("defaultFetchSize"), null));
@@ -301,6 +321,9 @@ public class XMLConfigBuilder extends BaseBuilder {
         configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
         configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
         configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
+        configuration.setLocalCacheSize(integerValueOf(props.getProperty("localCacheSize"), 0));
+        configuration.setLocalCacheMaxBytes(longValueOf(props.getProperty("localCacheMaxBytes"), 0L));
+        configuration.setLocalCacheMaxRows(integerValueOf(props.getProperty("localCacheMaxRows"), 0));
         configuration.setJdbcTypeForNull(JdbcType.valueOf(props.getProperty("jdbcTypeForNull", "OTHER")));
         configuration.setLazyLoadTriggerMethods(
             stringSetValueOf(props.getProperty("lazyLoadTriggerMethods"), "equals,clone,hashCode,toString"));
@@ -317,6 +340,10 @@ public class XMLConfigBuilder extends BaseBuilder {
             booleanValueOf(props.getProperty("argNameBasedConstructorAutoMapping"), false));
         configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
         configuration.setNullableOnForEach(booleanValueOf(props.getProperty("nullableOnForEach"), false));
+        configuration.setParallelMapperParsing(booleanValueOf(props.getProperty("parallelMapperParsing"), false));
+        configuration.setLazyStatementLoading(booleanValueOf(props.getProperty("lazyStatementLoading"), false));
+        configuration.setCacheStatsEnabled(booleanValueOf(props.getProperty("cacheStatsEnabled"), false));
+        configuration.setMapperSnapshotResource(props.getProperty("mapperSnapshotResource"));
     }
 
     private void environmentsElement(XNode context) throws Exception {
@@ -384,6 +411,23 @@ public class XMLConfigBuilder extends BaseBuilder {
         }
     }
 
+    private void keyGeneratorsElement(XNode parent) throws Exception {
+        if (parent != null) {
+//            <keyGenerator id="userIds" type="HILO">
+//              <property name="name" value="users"/>
+//            </keyGenerator>
+            for (XNode child : parent.getChildren()) {
+                String id = child.getStringAttribute("id");
+                Properties properties = child.getChildrenAsProperties();
+                KeyGenerator keyGenerator = (KeyGenerator) resolveClass(child.getStringAttribute("type"))
+                    .getDeclaredConstructor().newInstance();
+                keyGenerator.setProperties(properties);
+//                语句通过keyGenerator属性按id引用，所有会话共享同一个实例
+                configuration.addKeyGenerator(id, keyGenerator);
+            }
+        }
+    }
+
     private TransactionFactory transactionManagerElement(XNode context) throws Exception {
         if (context != null) {
             String type = context.getStringAttribute("type");
@@ -441,47 +485,135 @@ public class XMLConfigBuilder extends BaseBuilder {
 //            <package name="org.apache.ibatis.builder.mapper"/>
 //          </mappers>
         if (parent != null) {
-//            遍历<mappers>的子节点
-            for (XNode child : parent.getChildren()) {
-//                判断是不是有一个<package>节点，如果有的话，就扫描指定的包
-                if ("package".equals(child.getName())) {
-                    String mapperPackage = child.getStringAttribute("name");
-                    configuration.addMappers(mapperPackage);
-                } else {
-//                    获取<mapper>节点的resource、url、class属性
-                    String resource = child.getStringAttribute("resource");
-                    String url = child.getStringAttribute("url");
-                    String mapperClass = child.getStringAttribute("class");
-                    if (resource != null && url == null && mapperClass == null) {
-//                        如果resource不为空，url和mapperClass为空，那么就是通过resource加载Mapper
-//                        Resources.getResourceAsStream
-                        ErrorContext.instance().resource(resource);
-                        try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
-                            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource,
+            List<XNode> children = parent.getChildren();
+            XMLMapperSnapshot snapshot = loadMapperSnapshot();
+            ForkJoinPool pool = configuration.isParallelMapperParsing() ? new ForkJoinPool() : null;
+            try {
+                Map<XNode, Future<XPathParser>> documents = pool == null ? Collections.emptyMap()
+                    : parseMapperDocuments(children, snapshot, pool);
+//                遍历<mappers>的子节点
+                for (XNode child : children) {
+//                    判断是不是有一个<package>节点，如果有的话，就扫描指定的包
+                    if ("package".equals(child.getName())) {
+                        String mapperPackage = child.getStringAttribute("name");
+                        configuration.addMappers(mapperPackage);
+                    } else {
+//                        获取<mapper>节点的resource、url、class属性
+                        String resource = child.getStringAttribute("resource");
+                        String url = child.getStringAttribute("url");
+                        String mapperClass = child.getStringAttribute("class");
+                        if (resource != null && url == null && mapperClass == null) {
+//                            如果resource不为空，url和mapperClass为空，那么就是通过resource加载Mapper
+//                            Resources.getResourceAsStream
+                            ErrorContext.instance().resource(resource);
+                            XPathParser document = documents.containsKey(child) ? awaitMapperDocument(documents.get(child))
+                                : parseMapperDocument(resource, null, snapshot);
+                            XMLMapperBuilder mapperParser = new XMLMapperBuilder(document, configuration, resource,
                                 configuration.getSqlFragments());
                             mapperParser.parse();
-                        }
-                    } else if (resource == null && url != null && mapperClass == null) {
-//                        如果resource为空，url不为空，mapperClass为空，那么就是通过url加载Mapper
-                        ErrorContext.instance().resource(url);
-                        try (InputStream inputStream = Resources.getUrlAsStream(url)) {
-                            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url,
+                        } else if (resource == null && url != null && mapperClass == null) {
+//                            如果resource为空，url不为空，mapperClass为空，那么就是通过url加载Mapper
+                            ErrorContext.instance().resource(url);
+                            XPathParser document = documents.containsKey(child) ? awaitMapperDocument(documents.get(child))
+                                : parseMapperDocument(null, url, snapshot);
+                            XMLMapperBuilder mapperParser = new XMLMapperBuilder(document, configuration, url,
                                 configuration.getSqlFragments());
                             mapperParser.parse();
+                        } else if (resource == null && url == null && mapperClass != null) {
+//                            如果resource为空，url为空，mapperClass不为空，那么就是通过mapperClass加载Mapper
+                            Class<?> mapperInterface = Resources.classForName(mapperClass);
+                            configuration.addMapper(mapperInterface);
+                        } else {
+                            throw new BuilderException(
+                                "A mapper element may only specify a url, resource or class, but not more than one.");
                         }
-                    } else if (resource == null && url == null && mapperClass != null) {
-//                        如果resource为空，url为空，mapperClass不为空，那么就是通过mapperClass加载Mapper
-                        Class<?> mapperInterface = Resources.classForName(mapperClass);
-                        configuration.addMapper(mapperInterface);
-                    } else {
-                        throw new BuilderException(
-                            "A mapper element may only specify a url, resource or class, but not more than one.");
                     }
                 }
+            } finally {
+                if (pool != null) {
+                    pool.shutdownNow();
+                }
             }
         }
     }
 
+    /**
+     * Reads and parses the XML documents of all resource and url based mappers on the given pool. Only the DOM parsing
+     * runs concurrently, the documents are still applied to the configuration one by one in declaration order by
+     * {@link #mapperElement(XNode)}, so registration and error reporting are the same as with sequential parsing.
+     */
+    private Map<XNode, Future<XPathParser>> parseMapperDocuments(List<XNode> children, XMLMapperSnapshot snapshot,
+                                                                 ForkJoinPool pool) {
+        Map<XNode, Future<XPathParser>> documents = new IdentityHashMap<>();
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        for (XNode child : children) {
+            String resource = child.getStringAttribute("resource");
+            String url = child.getStringAttribute("url");
+            if ("package".equals(child.getName()) || child.getStringAttribute("class") != null
+                || (resource == null) == (url == null)) {
+                continue;
+            }
+            documents.put(child, pool.submit(() -> {
+                Thread thread = Thread.currentThread();
+                ClassLoader originalClassLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader(contextClassLoader);
+                try {
+                    return parseMapperDocument(resource, url, snapshot);
+                } finally {
+                    thread.setContextClassLoader(originalClassLoader);
+                }
+            }));
+        }
+        return documents;
+    }
+
+    private XPathParser parseMapperDocument(String resource, String url, XMLMapperSnapshot snapshot)
+        throws IOException {
+        if (snapshot != null) {
+            byte[] source = XMLMapperSnapshot.readSource(resource, url);
+            Document document = snapshot.getDocument(resource != null ? resource : url, source);
+            if (document != null) {
+                return new XPathParser(document, true, configuration.getVariables(), new XMLMapperEntityResolver());
+            }
+            return new XPathParser(new ByteArrayInputStream(source), true, configuration.getVariables(),
+                new XMLMapperEntityResolver());
+        }
+        try (InputStream inputStream = resource != null ? Resources.getResourceAsStream(resource)
+            : Resources.getUrlAsStream(url)) {
+            return new XPathParser(inputStream, true, configuration.getVariables(), new XMLMapperEntityResolver());
+        }
+    }
+
+    private XPathParser awaitMapperDocument(Future<XPathParser> document) throws Exception {
+        try {
+            return document.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private XMLMapperSnapshot loadMapperSnapshot() {
+        String snapshotResource = configuration.getMapperSnapshotResource();
+        if (snapshotResource == null) {
+            return null;
+        }
+        try (InputStream inputStream = Resources.getResourceAsStream(snapshotResource)) {
+            return XMLMapperSnapshot.read(inputStream);
+        } catch (IOException e) {
+            // Fall back to parsing every mapper, e.g. when running without the build generated snapshot
+            LogFactory.getLog(XMLConfigBuilder.class)
+                .debug("Mapper snapshot '" + snapshotResource + "' is not available. Cause: " + e);
+            return null;
+        }
+    }
+
     private boolean isSpecifiedEnvironment(String id) {
         if (environment == null) {
             throw new BuilderException("No environment specified.");
@@ -34,8 +34,10 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheWeigher;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.CacheInvalidation;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
@@ -86,8 +88,13 @@ public class XMLMapperBuilder extends BaseBuilder {
             resource, sqlFragments);
     }
 
-    private XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource,
-                             Map<String, XNode> sqlFragments) {
+    /**
+     * Creates a builder for an already parsed mapper document.
+     *
+     * @since 3.5.14
+     */
+    public XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource,
+                            Map<String, XNode> sqlFragments) {
         super(configuration);
         this.builderAssistant = new MapperBuilderAssistant(configuration, resource);
         this.parser = parser;
@@ -154,6 +161,11 @@ public class XMLMapperBuilder extends BaseBuilder {
         for (XNode context : list) {
             final XMLStatementBuilder statementParser = new XMLStatementBuilder(configuration, builderAssistant, context,
                 requiredDatabaseId);
+            if (configuration.isLazyStatementLoading()) {
+                String id = builderAssistant.applyCurrentNamespace(context.getStringAttribute("id"), false);
+                configuration.addLazyStatement(id, statementParser::parseStatementNode);
+                continue;
+            }
             try {
                 statementParser.parseStatementNode();
             } catch (IncompleteElementException e) {
@@ -239,12 +251,20 @@ public class XMLMapperBuilder extends BaseBuilder {
             Integer size = context.getIntAttribute("size");
 //            获取<readOnly> 默认值是 false
             boolean readWrite = !context.getBooleanAttribute("readOnly", false);
+//            获取<snapshot> 默认值是 false，为true时缓存不可变的快照
+            boolean snapshot = context.getBooleanAttribute("snapshot", false);
 //            获取<blocking> 默认值是 false
             boolean blocking = context.getBooleanAttribute("blocking", false);
 //            获取<properties> 默认值是 null
             Properties props = context.getChildrenAsProperties();
+//            获取<invalidation> 默认值是 NAMESPACE，TABLE表示按语句读写的表失效
+            String invalidation = context.getStringAttribute("invalidation", "NAMESPACE");
+//            获取<maxBytes>和<weigher>，按字节限制缓存大小
+            Long maxBytes = context.getLongAttribute("maxBytes");
+            Class<? extends CacheWeigher> weigherClass = resolveClass(context.getStringAttribute("weigher"));
 //            通过MapperBuilderAssistant创建Cache对象，并添加到Configuration的caches集合中
-            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props,
+                CacheInvalidation.valueOf(invalidation), maxBytes, weigherClass, snapshot);
         }
     }
 
@@ -0,0 +1,322 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * A pre-compiled, binary snapshot of validated mapper XML documents.
+ * <p>
+ * The snapshot is created at build time (see {@link #main(String[])}) and referenced at runtime with the
+ * {@code mapperSnapshotResource} setting. When a mapper listed in the configuration is found in the snapshot and its
+ * source still has the recorded checksum, its DOM is rebuilt from the snapshot instead of being parsed and validated
+ * against the DTD. Mappers that are missing from the snapshot or whose source changed are parsed as usual.
+ * <p>
+ * Only the XML parsing is skipped: every mapper source is still read to verify its checksum, and statements, result
+ * maps and caches are still built from the restored documents. Combine with the {@code lazyStatementLoading} setting
+ * to defer building the statements as well.
+ *
+ * @since 3.5.14
+ */
+public class XMLMapperSnapshot {
+
+  private static final int MAGIC = 0x4d425353;
+  private static final int VERSION = 1;
+
+  private static final DOMImplementation DOM_IMPLEMENTATION;
+
+  static {
+    try {
+      DOM_IMPLEMENTATION = DocumentBuilderFactory.newInstance().newDocumentBuilder().getDOMImplementation();
+    } catch (ParserConfigurationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * Parses and validates the given mapper source and records it under the given location (a resource path or url as
+   * written in the configuration).
+   *
+   * @param location
+   *          the mapper location
+   * @param source
+   *          the mapper XML source
+   */
+  public void add(String location, byte[] source) {
+    XPathParser parser = new XPathParser(new ByteArrayInputStream(source), true, null, new XMLMapperEntityResolver());
+    ByteArrayOutputStream tree = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(tree)) {
+      writeNode(out, parser.evalNode("/mapper").getNode(), new HashMap<>());
+    } catch (IOException e) {
+      throw new BuilderException("Error writing snapshot of mapper '" + location + "'. Cause: " + e, e);
+    }
+    entries.put(location, new Entry(checksum(source), tree.toByteArray()));
+  }
+
+  /**
+   * Rebuilds the document of a mapper from this snapshot.
+   *
+   * @param location
+   *          the mapper location
+   * @param source
+   *          the current mapper XML source
+   *
+   * @return the document, or {@code null} if the mapper is not in this snapshot or its source has changed
+   */
+  public Document getDocument(String location, byte[] source) {
+    Entry entry = entries.get(location);
+    if (entry == null || entry.checksum != checksum(source)) {
+      return null;
+    }
+    Document document = DOM_IMPLEMENTATION.createDocument(null, null, null);
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.tree))) {
+      document.appendChild(readNode(in, document, new ArrayList<>()));
+    } catch (IOException e) {
+      throw new BuilderException("Error reading snapshot of mapper '" + location + "'. Cause: " + e, e);
+    }
+    return document;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void write(OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeLong(entry.getValue().checksum);
+      out.writeInt(entry.getValue().tree.length);
+      out.write(entry.getValue().tree);
+    }
+    out.flush();
+  }
+
+  /**
+   * Reads a snapshot previously written by {@link #write(OutputStream)}.
+   *
+   * @param inputStream
+   *          the snapshot data
+   *
+   * @return the snapshot
+   *
+   * @throws IOException
+   *           if the data could not be read or is not a snapshot of a supported version
+   */
+  public static XMLMapperSnapshot read(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not a mapper snapshot or unsupported snapshot version");
+    }
+    XMLMapperSnapshot snapshot = new XMLMapperSnapshot();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      String location = in.readUTF();
+      long checksum = in.readLong();
+      byte[] tree = new byte[in.readInt()];
+      in.readFully(tree);
+      snapshot.entries.put(location, new Entry(checksum, tree));
+    }
+    return snapshot;
+  }
+
+  /**
+   * Writes a snapshot of all resource and url mappers declared in the given configuration files.
+   * <p>
+   * Usage: {@code XMLMapperSnapshot <output file> <config resource>...}. The configuration files and mapper resources
+   * are looked up on the classpath, so this is meant to be run at build time with the application classpath (e.g. from
+   * the exec-maven-plugin).
+   *
+   * @param args
+   *          the output file followed by one or more configuration resources
+   *
+   * @throws IOException
+   *           if a configuration, a mapper or the output could not be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Usage: XMLMapperSnapshot <output file> <config resource>...");
+    }
+    XMLMapperSnapshot snapshot = new XMLMapperSnapshot();
+    for (int i = 1; i < args.length; i++) {
+      XPathParser parser;
+      try (InputStream inputStream = Resources.getResourceAsStream(args[i])) {
+        parser = new XPathParser(inputStream, true, null, new XMLMapperEntityResolver());
+      }
+      for (XNode mapper : parser.evalNodes("/configuration/mappers/mapper")) {
+        String resource = mapper.getStringAttribute("resource");
+        String url = mapper.getStringAttribute("url");
+        if (resource != null) {
+          snapshot.add(resource, readSource(resource, null));
+        } else if (url != null) {
+          snapshot.add(url, readSource(null, url));
+        }
+      }
+    }
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[0])))) {
+      snapshot.write(out);
+    }
+  }
+
+  static byte[] readSource(String resource, String url) throws IOException {
+    try (InputStream in = resource != null ? Resources.getResourceAsStream(resource) : Resources.getUrlAsStream(url)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static long checksum(byte[] source) {
+    CRC32 crc = new CRC32();
+    crc.update(source, 0, source.length);
+    return (long) source.length << 32 ^ crc.getValue();
+  }
+
+  private static void writeNode(DataOutputStream out, Node node, Map<String, Integer> names) throws IOException {
+    out.writeByte(node.getNodeType());
+    if (node.getNodeType() != Node.ELEMENT_NODE) {
+      writeString(out, node.getNodeValue());
+      return;
+    }
+    writeName(out, node.getNodeName(), names);
+    NamedNodeMap attributes = node.getAttributes();
+    out.writeShort(attributes.getLength());
+    for (int i = 0; i < attributes.getLength(); i++) {
+      Node attribute = attributes.item(i);
+      writeName(out, attribute.getNodeName(), names);
+      writeString(out, attribute.getNodeValue());
+    }
+    NodeList children = node.getChildNodes();
+    List<Node> retained = new ArrayList<>(children.getLength());
+    for (int i = 0; i < children.getLength(); i++) {
+      short type = children.item(i).getNodeType();
+      if (type == Node.ELEMENT_NODE || type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE) {
+        retained.add(children.item(i));
+      }
+    }
+    out.writeInt(retained.size());
+    for (Node child : retained) {
+      writeNode(out, child, names);
+    }
+  }
+
+  private static Node readNode(DataInputStream in, Document document, List<String> names) throws IOException {
+    byte type = in.readByte();
+    if (type == Node.TEXT_NODE) {
+      return document.createTextNode(readString(in));
+    }
+    if (type == Node.CDATA_SECTION_NODE) {
+      return document.createCDATASection(readString(in));
+    }
+    Element element = document.createElement(readName(in, names));
+    int attributeCount = in.readShort();
+    for (int i = 0; i < attributeCount; i++) {
+      Attr attribute = document.createAttribute(readName(in, names));
+      attribute.setValue(readString(in));
+      element.setAttributeNode(attribute);
+    }
+    int childCount = in.readInt();
+    for (int i = 0; i < childCount; i++) {
+      element.appendChild(readNode(in, document, names));
+    }
+    return element;
+  }
+
+  private static void writeName(DataOutputStream out, String name, Map<String, Integer> names) throws IOException {
+    Integer index = names.get(name);
+    if (index != null) {
+      out.writeShort(index);
+    } else {
+      names.put(name, names.size());
+      out.writeShort(-1);
+      out.writeUTF(name);
+    }
+  }
+
+  private static String readName(DataInputStream in, List<String> names) throws IOException {
+    int index = in.readShort();
+    if (index >= 0) {
+      return names.get(index);
+    }
+    String name = in.readUTF();
+    names.add(name);
+    return name;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class Entry {
+    private final long checksum;
+    private final byte[] tree;
+
+    Entry(long checksum, byte[] tree) {
+      this.checksum = checksum;
+      this.tree = tree;
+    }
+  }
+
+}
@@ -91,8 +91,12 @@ public class XMLStatementBuilder extends BaseBuilder {
         KeyGenerator keyGenerator;
         String keyStatementId = id + SelectKeyGenerator.SELECT_KEY_SUFFIX;
         keyStatementId = builderAssistant.applyCurrentNamespace(keyStatementId, true);
+        String keyGeneratorName = context.getStringAttribute("keyGenerator");
         if (configuration.hasKeyGenerator(keyStatementId)) {
             keyGenerator = configuration.getKeyGenerator(keyStatementId);
+        } else if (keyGeneratorName != null) {
+//            keyGenerator属性引用配置中声明的生成器
+            keyGenerator = builderAssistant.getKeyGenerator(keyGeneratorName);
         } else {
             keyGenerator = context.getBooleanAttribute("useGeneratedKeys",
                 configuration.isUseGeneratedKeys() && SqlCommandType.INSERT.equals(sqlCommandType))
@@ -120,10 +124,13 @@ public class XMLStatementBuilder extends BaseBuilder {
         String keyColumn = context.getStringAttribute("keyColumn");
         String resultSets = context.getStringAttribute("resultSets");
         boolean dirtySelect = context.getBooleanAttribute("affectData", Boolean.FALSE);
+        String tables = context.getStringAttribute("tables");
+        String identityProperty = context.getStringAttribute("identityProperty");
 
         builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType, fetchSize, timeout, parameterMap,
             parameterTypeClass, resultMap, resultTypeClass, resultSetTypeEnum, flushCache, useCache, resultOrdered,
-            keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets, dirtySelect);
+            keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets, dirtySelect, tables,
+            identityProperty);
     }
 
     private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
@@ -158,6 +165,8 @@ public class XMLStatementBuilder extends BaseBuilder {
         String keyProperty = nodeToHandle.getStringAttribute("keyProperty");
         String keyColumn = nodeToHandle.getStringAttribute("keyColumn");
         boolean executeBefore = "BEFORE".equals(nodeToHandle.getStringAttribute("order", "AFTER"));
+//        批量执行时一次查询的主键数量
+        int batchSize = nodeToHandle.getIntAttribute("batchSize", 0);
 
         // defaults
         boolean useCache = false;
@@ -180,7 +189,7 @@ public class XMLStatementBuilder extends BaseBuilder {
         id = builderAssistant.applyCurrentNamespace(id, false);
 
         MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-        configuration.addKeyGenerator(id, new SelectKeyGenerator(keyStatement, executeBefore));
+        configuration.addKeyGenerator(id, new SelectKeyGenerator(keyStatement, executeBefore, batchSize));
     }
 
     private void removeSelectKeyNodes(List<XNode> selectKeyNodes) {
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * A snapshot of the statistics of a cache.
+ *
+ * @since 3.5.14
+ *
+ * @see CacheStatsCounter
+ */
+public final class CacheStats {
+
+  private final String cacheId;
+  private final int size;
+  private final long hitCount;
+  private final long missCount;
+  private final long putCount;
+  private final long evictionCount;
+  private final long loadCount;
+  private final long totalLoadTime;
+  private final long estimatedBytes;
+
+  public CacheStats(String cacheId, int size, long hitCount, long missCount, long putCount, long evictionCount,
+      long loadCount, long totalLoadTime, long estimatedBytes) {
+    this.cacheId = cacheId;
+    this.size = size;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.putCount = putCount;
+    this.evictionCount = evictionCount;
+    this.loadCount = loadCount;
+    this.totalLoadTime = totalLoadTime;
+    this.estimatedBytes = estimatedBytes;
+  }
+
+  public String getCacheId() {
+    return cacheId;
+  }
+
+  /**
+   * Returns the number of entries held when the snapshot was taken.
+   *
+   * @return the number of entries
+   */
+  public int getSize() {
+    return size;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public long getRequestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * Returns the ratio of requests that were hits, {@code 0} if the cache was never requested.
+   *
+   * @return the hit ratio
+   */
+  public double getHitRatio() {
+    long requestCount = getRequestCount();
+    return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+  }
+
+  public long getPutCount() {
+    return putCount;
+  }
+
+  /**
+   * Returns the number of entries removed, whether evicted to make room, expired, invalidated or cleared.
+   *
+   * @return the number of removed entries
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Returns the number of misses that were loaded from the database.
+   *
+   * @return the number of loads
+   */
+  public long getLoadCount() {
+    return loadCount;
+  }
+
+  /**
+   * Returns the time spent loading the misses, in nanoseconds.
+   *
+   * @return the total load time
+   */
+  public long getTotalLoadTime() {
+    return totalLoadTime;
+  }
+
+  public double getAverageLoadTime() {
+    return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+  }
+
+  /**
+   * Returns the estimated size of the entries in bytes, extrapolated from a sample of the entries put.
+   *
+   * @return the estimated size, {@code 0} if nothing was put
+   *
+   * @see ObjectSizeEstimator
+   */
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats[" + cacheId + "] size=" + size + ", hits=" + hitCount + ", misses=" + missCount + ", puts="
+        + putCount + ", evictions=" + evictionCount + ", loads=" + loadCount + ", totalLoadTime=" + totalLoadTime
+        + "ns, estimatedBytes=" + estimatedBytes;
+  }
+
+}
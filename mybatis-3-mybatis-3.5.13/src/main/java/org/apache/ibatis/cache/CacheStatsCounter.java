@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of a cache. The counters are striped so that concurrent sessions recording hits do not
+ * contend on a single field.
+ * <p>
+ * The size in bytes is not tracked per entry: a few of the stored entries ({@value #SAMPLE_SIZE}, replaced by one put
+ * in {@value #SAMPLE_RATE}) are kept through weak references, and only measured with {@link ObjectSizeEstimator} when
+ * a snapshot is taken. The average size of those still cached is multiplied by the number of entries.
+ *
+ * @since 3.5.14
+ */
+public class CacheStatsCounter {
+
+  private static final int SAMPLE_SIZE = 16;
+  private static final int SAMPLE_RATE = 16;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder putCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder loadCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final AtomicInteger sampleCount = new AtomicInteger();
+  private final AtomicReferenceArray<Sample> samples = new AtomicReferenceArray<>(SAMPLE_SIZE);
+
+  public void recordHit() {
+    hitCount.increment();
+  }
+
+  public void recordMiss() {
+    missCount.increment();
+  }
+
+  public void recordPut() {
+    putCount.increment();
+  }
+
+  /**
+   * Records a put of an entry, as stored by the cache.
+   *
+   * @param key
+   *          the key
+   * @param value
+   *          the stored value
+   */
+  public void recordPut(Object key, Object value) {
+    recordPut();
+    sampleEntry(key, value);
+  }
+
+  /**
+   * Keeps an entry, as stored by the cache, to estimate the size of the entries when a snapshot is taken.
+   *
+   * @param key
+   *          the key
+   * @param value
+   *          the stored value
+   */
+  public void sampleEntry(Object key, Object value) {
+    if (sampleCount.get() < SAMPLE_SIZE) {
+      int index = sampleCount.getAndIncrement();
+      if (index < SAMPLE_SIZE) {
+        samples.set(index, new Sample(key, value));
+        return;
+      }
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (random.nextInt(SAMPLE_RATE) == 0) {
+      samples.set(random.nextInt(SAMPLE_SIZE), new Sample(key, value));
+    }
+  }
+
+  public void recordEvictions(int count) {
+    evictionCount.add(count);
+  }
+
+  /**
+   * Records the loading of a miss from the database.
+   *
+   * @param loadTime
+   *          the time spent, in nanoseconds
+   */
+  public void recordLoad(long loadTime) {
+    loadCount.increment();
+    totalLoadTime.add(loadTime);
+  }
+
+  /**
+   * Returns the number of entries put and not removed since, for caches whose size cannot be asked.
+   *
+   * @return the number of live entries
+   */
+  public int liveEntries() {
+    return (int) Math.max(0, putCount.sum() - evictionCount.sum());
+  }
+
+  /**
+   * Takes a snapshot of the statistics.
+   *
+   * @param cacheId
+   *          the cache id
+   * @param size
+   *          the number of entries the cache holds
+   *
+   * @return the snapshot
+   */
+  public CacheStats snapshot(String cacheId, int size) {
+    long sampledBytes = 0;
+    int sampled = 0;
+    for (int i = 0; size > 0 && i < SAMPLE_SIZE; i++) {
+      Sample sample = samples.get(i);
+      Object value = sample == null ? null : sample.value.get();
+      // evicted entries are collected, they no longer tell the size of the cached ones
+      if (value != null) {
+        sampledBytes += ObjectSizeEstimator.estimate(sample.key.get()) + ObjectSizeEstimator.estimate(value);
+        sampled++;
+      }
+    }
+    long estimatedBytes = sampled == 0 ? 0 : sampledBytes / sampled * size;
+    return new CacheStats(cacheId, size, hitCount.sum(), missCount.sum(), putCount.sum(), evictionCount.sum(),
+        loadCount.sum(), totalLoadTime.sum(), estimatedBytes);
+  }
+
+  private static final class Sample {
+
+    private final WeakReference<Object> key;
+    private final WeakReference<Object> value;
+
+    Sample(Object key, Object value) {
+      this.key = new WeakReference<>(key);
+      this.value = new WeakReference<>(value);
+    }
+
+  }
+
+}
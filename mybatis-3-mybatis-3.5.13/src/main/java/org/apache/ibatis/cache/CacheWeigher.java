@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Estimates the memory retained by a cache entry, used to bound a cache in bytes.
+ *
+ * @since 3.5.14
+ *
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+public interface CacheWeigher {
+
+  /**
+   * Returns the weight of an entry, in bytes.
+   *
+   * @param key
+   *          the key
+   * @param value
+   *          the value, e.g. the list of rows of a query or its serialized form
+   *
+   * @return the weight, not negative
+   */
+  long weigh(Object key, Object value);
+
+}
@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.decorators.WeightedCache;
+
+/**
+ * A byte budget shared by the second level caches of all namespaces.
+ * <p>
+ * When a put exceeds it, the cache holding the most weight evicts first, whichever cache was written. The caches
+ * sharing the budget are therefore accessed one at a time, under {@link #getLock()}.
+ *
+ * @since 3.5.14
+ *
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+public class CacheWeightBudget {
+
+  private final long maxBytes;
+  private final AtomicLong usedBytes = new AtomicLong();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final List<WeightedCache> caches = new ArrayList<>();
+
+  public CacheWeightBudget(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public long getUsedBytes() {
+    return usedBytes.get();
+  }
+
+  /**
+   * Adds the weight of entries put into a cache, or subtracts the weight of entries removed.
+   *
+   * @param bytes
+   *          the weight, negative for removed entries
+   */
+  public void add(long bytes) {
+    usedBytes.addAndGet(bytes);
+  }
+
+  public boolean isExceeded() {
+    return usedBytes.get() > maxBytes;
+  }
+
+  /**
+   * Registers a cache sharing this budget.
+   *
+   * @param cache
+   *          the cache
+   */
+  public void register(WeightedCache cache) {
+    lock.lock();
+    try {
+      caches.add(cache);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the caches sharing this budget. It must be called under {@link #getLock()}.
+   *
+   * @return the caches
+   */
+  public List<WeightedCache> getCaches() {
+    return Collections.unmodifiableList(caches);
+  }
+
+  /**
+   * Returns the lock held while a cache sharing this budget is accessed, since a put may evict entries of any of them.
+   *
+   * @return the lock
+   */
+  public Lock getLock() {
+    return lock;
+  }
+
+}
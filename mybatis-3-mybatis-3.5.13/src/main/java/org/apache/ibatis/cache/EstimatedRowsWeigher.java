@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.List;
+
+/**
+ * The default weigher, estimating a list of rows as its number of rows times the size of its first row, so that large
+ * results are not walked entirely. Other values are estimated with {@link ObjectSizeEstimator}.
+ *
+ * @since 3.5.14
+ */
+public class EstimatedRowsWeigher implements CacheWeigher {
+
+  private static final int LIST_OVERHEAD = 40;
+  private static final int REFERENCE = 4;
+
+  @Override
+  public long weigh(Object key, Object value) {
+    long weight = ObjectSizeEstimator.estimate(key);
+    if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+      return weight + ObjectSizeEstimator.estimate(value);
+    }
+    List<?> rows = (List<?>) value;
+    return weight + LIST_OVERHEAD + rows.size() * (REFERENCE + ObjectSizeEstimator.estimate(rows.get(0)));
+  }
+
+}
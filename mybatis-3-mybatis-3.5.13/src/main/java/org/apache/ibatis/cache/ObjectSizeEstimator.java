@@ -0,0 +1,220 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Estimates the memory retained by cached results, assuming a 64-bit JVM with compressed references.
+ * <p>
+ * The object graph is walked through the fields of the result classes. JDK classes are not walked reflectively:
+ * strings, arrays, collections and maps are sized from their length, other JDK objects (numbers, dates) from their
+ * fields. Objects of the MyBatis jar reachable from a result, such as the handler of a lazy loading proxy, are shared
+ * with the rest of the application and are not counted, except cache keys.
+ *
+ * @since 3.5.14
+ */
+public final class ObjectSizeEstimator {
+
+  private static final int HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int MAP_ENTRY = 32;
+  private static final int MAX_OBJECTS = 100_000;
+
+  private static final boolean CAN_CONTROL_MEMBER_ACCESSIBLE = Reflector.canControlMemberAccessible();
+  private static final CodeSource MYBATIS = codeSource(ObjectSizeEstimator.class);
+  // kept with each class, so that caching a layout does not keep its class loader alive
+  private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+    @Override
+    protected Layout computeValue(Class<?> type) {
+      return new Layout(type);
+    }
+  };
+
+  private ObjectSizeEstimator() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Estimates the bytes retained by an object and the objects it references.
+   *
+   * @param object
+   *          the object, may be {@code null}
+   *
+   * @return the estimated size in bytes
+   */
+  public static long estimate(Object object) {
+    if (object == null) {
+      return 0;
+    }
+    Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Object> pending = new ArrayDeque<>();
+    pending.push(object);
+    long bytes = 0;
+    while (!pending.isEmpty() && visited.size() < MAX_OBJECTS) {
+      Object current = pending.pop();
+      if (visited.add(current)) {
+        try {
+          bytes += sizeOf(current, pending);
+        } catch (RuntimeException e) {
+          // modified while walked (e.g. a read-only cached list), count what was seen
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private static CodeSource codeSource(Class<?> type) {
+    ProtectionDomain domain = type.getProtectionDomain();
+    return domain == null ? null : domain.getCodeSource();
+  }
+
+  private static long sizeOf(Object object, Deque<Object> pending) {
+    Class<?> type = object.getClass();
+    if (object instanceof String) {
+      return align(HEADER + 12) + align(ARRAY_HEADER + ((String) object).length());
+    }
+    if (type.isArray()) {
+      int length = Array.getLength(object);
+      Class<?> componentType = type.getComponentType();
+      if (componentType.isPrimitive()) {
+        return align(ARRAY_HEADER + (long) length * primitiveSize(componentType));
+      }
+      for (Object element : (Object[]) object) {
+        push(pending, element);
+      }
+      return align(ARRAY_HEADER + (long) length * REFERENCE);
+    }
+    if (object instanceof Collection && type.getName().startsWith("java.")) {
+      Collection<?> collection = (Collection<?>) object;
+      for (Object element : collection) {
+        push(pending, element);
+      }
+      long entries = object instanceof Set ? (long) collection.size() * MAP_ENTRY : 0;
+      return align(HEADER + 20) + align(ARRAY_HEADER + (long) collection.size() * REFERENCE) + entries;
+    }
+    if (object instanceof Map && type.getName().startsWith("java.")) {
+      Map<?, ?> map = (Map<?, ?>) object;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        push(pending, entry.getKey());
+        push(pending, entry.getValue());
+      }
+      return align(HEADER + 36) + align(ARRAY_HEADER + (long) map.size() * REFERENCE) + (long) map.size() * MAP_ENTRY;
+    }
+    Layout layout = LAYOUTS.get(type);
+    if (layout.shared) {
+      return 0;
+    }
+    for (Field field : layout.references) {
+      try {
+        push(pending, field.get(object));
+      } catch (IllegalAccessException e) {
+        // not counted
+      }
+    }
+    return layout.shallowSize;
+  }
+
+  private static void push(Deque<Object> pending, Object object) {
+    if (object != null) {
+      pending.push(object);
+    }
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (long.class == type || double.class == type) {
+      return 8;
+    }
+    if (int.class == type || float.class == type) {
+      return 4;
+    }
+    if (short.class == type || char.class == type) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private static final class Layout {
+
+    private final boolean shared;
+    private final long shallowSize;
+    private final List<Field> references = new ArrayList<>();
+
+    Layout(Class<?> type) {
+      this.shared = isShared(type);
+      // the fields of JDK classes are sized but not followed, they cannot be made accessible
+      boolean walk = CAN_CONTROL_MEMBER_ACCESSIBLE && !type.getName().startsWith("java.");
+      long size = HEADER;
+      for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          if (field.getType().isPrimitive()) {
+            size += primitiveSize(field.getType());
+            continue;
+          }
+          size += REFERENCE;
+          if (walk && !current.getName().startsWith("java.")) {
+            try {
+              field.setAccessible(true);
+              references.add(field);
+            } catch (RuntimeException e) {
+              // not counted
+            }
+          }
+        }
+      }
+      this.shallowSize = align(size);
+    }
+
+    private static boolean isShared(Class<?> type) {
+      if (CacheKey.class.isAssignableFrom(type)) {
+        return false;
+      }
+      if (type.isEnum() || Class.class == type || ClassLoader.class.isAssignableFrom(type)) {
+        return true;
+      }
+      CodeSource codeSource = codeSource(type);
+      if (MYBATIS == null || codeSource == null) {
+        return type.getName().startsWith("org.apache.ibatis.");
+      }
+      return MYBATIS.equals(codeSource);
+    }
+
+  }
+
+}
@@ -15,10 +15,12 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.invalidation.InvalidationBatch;
 import org.apache.ibatis.util.MapUtil;
 
 /**
@@ -36,13 +38,31 @@ public class TransactionalCacheManager {
     return getTransactionalCache(cache).getObject(key);
   }
 
+  public Object getObject(Cache cache, CacheKey key, Collection<?> dependsOn) {
+    return getTransactionalCache(cache).getObject(key, dependsOn);
+  }
+
   public void putObject(Cache cache, CacheKey key, Object value) {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  public void putObject(Cache cache, CacheKey key, Object value, Collection<?> dependsOn) {
+    getTransactionalCache(cache).putObject(key, value, dependsOn);
+  }
+
+  public void invalidate(Cache cache, Collection<?> changed) {
+    getTransactionalCache(cache).invalidate(changed);
+  }
+
   public void commit() {
-    for (TransactionalCache txCache : transactionalCaches.values()) {
-      txCache.commit();
+    // the evictions of all caches are sent to other nodes at once
+    InvalidationBatch.begin();
+    try {
+      for (TransactionalCache txCache : transactionalCaches.values()) {
+        txCache.commit();
+      }
+    } finally {
+      InvalidationBatch.end();
     }
   }
 
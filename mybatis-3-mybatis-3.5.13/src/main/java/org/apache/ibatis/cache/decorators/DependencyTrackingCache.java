@@ -0,0 +1,335 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.invalidation.Invalidation;
+import org.apache.ibatis.cache.invalidation.InvalidationChannel;
+
+/**
+ * Keeps track of what each cached result depends on (e.g. the tables it was read from), so that a write only removes
+ * the results that depend on what it changed.
+ * <p>
+ * Entries put without dependencies depend on everything. {@link Dependencies#track(Cache)} should wrap the base cache
+ * so that entries evicted or cleared by inner decorators are also dropped from the index.
+ *
+ * @since 3.5.14
+ *
+ * @see TableDependencyCache
+ * @see IdentityIndexCache
+ */
+public abstract class DependencyTrackingCache implements Cache {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Cache delegate;
+  private final Cache removalDelegate;
+  private final Dependencies dependencies;
+  private InvalidationChannel invalidationChannel;
+
+  /**
+   * Creates the decorator.
+   *
+   * @param delegate
+   *          the decorated cache
+   * @param removalDelegate
+   *          the cache invalidated entries are removed from. It must be below any {@link BlockingCache}, whose
+   *          {@code removeObject} only releases locks.
+   * @param dependencies
+   *          the index of the entries, tracking the base cache
+   */
+  protected DependencyTrackingCache(Cache delegate, Cache removalDelegate, Dependencies dependencies) {
+    this.delegate = delegate;
+    this.removalDelegate = removalDelegate;
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * Sends the invalidated dependencies to the other nodes and applies theirs. Clears are sent by the {@link NearCache}
+   * below.
+   *
+   * @param invalidationChannel
+   *          the channel
+   */
+  public void setInvalidationChannel(InvalidationChannel invalidationChannel) {
+    this.invalidationChannel = invalidationChannel;
+    invalidationChannel.register(this);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    putObject(key, value, null);
+  }
+
+  /**
+   * Puts a result with what it depends on.
+   *
+   * @param key
+   *          the key
+   * @param value
+   *          the result
+   * @param dependsOn
+   *          the dependencies, or {@code null} if the result depends on everything
+   */
+  public void putObject(Object key, Object value, Collection<?> dependsOn) {
+    lock.lock();
+    try {
+      dependencies.add(key, dependsOn);
+      delegate.putObject(key, value);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    // not locked: a BlockingCache may wait here for a put of another thread
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      if (delegate == removalDelegate) {
+        dependencies.remove(key);
+      }
+      // otherwise the value is not removed, only a lock of the BlockingCache released
+      return delegate.removeObject(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      delegate.clear();
+      dependencies.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the results depending on any of the given dependencies and those put without dependencies.
+   *
+   * @param changed
+   *          the changed dependencies, or {@code null} to remove every result
+   */
+  public void invalidate(Collection<?> changed) {
+    if (changed == null) {
+      clear();
+      return;
+    }
+    invalidateLocally(changed);
+    if (invalidationChannel != null) {
+      // other nodes may have cached results this node has not
+      invalidationChannel.send(Invalidation.of(getId(), changed));
+    }
+  }
+
+  /**
+   * Removes the results depending on any of the given dependencies and those put without dependencies, without
+   * sending the invalidation to the other nodes.
+   *
+   * @param changed
+   *          the changed dependencies
+   */
+  public void invalidateLocally(Collection<?> changed) {
+    lock.lock();
+    try {
+      for (Object key : dependencies.dependents(changed)) {
+        removalDelegate.removeObject(key);
+        dependencies.remove(key);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  /**
+   * The index of the dependencies of each cached key.
+   */
+  public static final class Dependencies {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Object, Set<Object>> keysByDependency = new HashMap<>();
+    private final Map<Object, Collection<?>> dependenciesByKey = new HashMap<>();
+    private final Set<Object> keysOfEverything = new HashSet<>();
+
+    /**
+     * Wraps a cache so that the keys it removes or clears are dropped from this index.
+     *
+     * @param cache
+     *          the base cache
+     *
+     * @return the wrapped cache
+     */
+    public Cache track(Cache cache) {
+      return new Tracker(cache, this);
+    }
+
+    void add(Object key, Collection<?> dependsOn) {
+      lock.lock();
+      try {
+        removeUnlocked(key);
+        if (dependsOn == null) {
+          keysOfEverything.add(key);
+        } else {
+          dependenciesByKey.put(key, dependsOn);
+          for (Object dependency : dependsOn) {
+            keysByDependency.computeIfAbsent(dependency, k -> new HashSet<>()).add(key);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void remove(Object key) {
+      lock.lock();
+      try {
+        removeUnlocked(key);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clear() {
+      lock.lock();
+      try {
+        keysByDependency.clear();
+        dependenciesByKey.clear();
+        keysOfEverything.clear();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    Set<Object> dependents(Collection<?> changed) {
+      lock.lock();
+      try {
+        Set<Object> keys = new HashSet<>(keysOfEverything);
+        for (Object dependency : changed) {
+          Set<Object> dependentKeys = keysByDependency.get(dependency);
+          if (dependentKeys != null) {
+            keys.addAll(dependentKeys);
+          }
+        }
+        return keys;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void removeUnlocked(Object key) {
+      if (keysOfEverything.remove(key)) {
+        return;
+      }
+      Collection<?> dependsOn = dependenciesByKey.remove(key);
+      if (dependsOn != null) {
+        for (Object dependency : dependsOn) {
+          Set<Object> dependentKeys = keysByDependency.get(dependency);
+          if (dependentKeys != null && dependentKeys.remove(key) && dependentKeys.isEmpty()) {
+            keysByDependency.remove(dependency);
+          }
+        }
+      }
+    }
+  }
+
+  private static class Tracker implements Cache {
+
+    private final Cache delegate;
+    private final Dependencies dependencies;
+
+    Tracker(Cache delegate, Dependencies dependencies) {
+      this.delegate = delegate;
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public String getId() {
+      return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+      return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      delegate.putObject(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+      return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+      dependencies.remove(key);
+      return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+      dependencies.clear();
+      delegate.clear();
+    }
+
+    @Override
+    public int hashCode() {
+      return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return delegate.equals(obj);
+    }
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Indexes the cached results by the identity of the entity they were looked up by, so that a write of an entity only
+ * removes its own lookups and the results not indexed by identity. Dependencies are identity values as returned by
+ * {@link org.apache.ibatis.mapping.MappedStatement#getIdentity(Object)}.
+ *
+ * @since 3.5.14
+ *
+ * @see org.apache.ibatis.mapping.CacheInvalidation#IDENTITY
+ */
+public class IdentityIndexCache extends DependencyTrackingCache {
+
+  public IdentityIndexCache(Cache delegate) {
+    this(delegate, delegate, new Dependencies());
+  }
+
+  public IdentityIndexCache(Cache delegate, Cache removalDelegate, Dependencies dependencies) {
+    super(delegate, removalDelegate, dependencies);
+  }
+
+}
@@ -16,6 +16,7 @@
 package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatsCounter;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -28,9 +29,25 @@ public class LoggingCache implements Cache {
   private final Cache delegate;
   protected int requests;
   protected int hits;
+  private final CacheStatsCounter statsCounter;
 
   public LoggingCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a logging cache also recording its hits, misses and puts.
+   *
+   * @param delegate
+   *          the cache
+   * @param statsCounter
+   *          the counter, or {@code null} to only log
+   *
+   * @since 3.5.14
+   */
+  public LoggingCache(Cache delegate, CacheStatsCounter statsCounter) {
     this.delegate = delegate;
+    this.statsCounter = statsCounter;
     this.log = LogFactory.getLog(getId());
   }
 
@@ -47,6 +64,10 @@ public class LoggingCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     delegate.putObject(key, object);
+    // a null is put to release the lock of a blocking cache, not cached
+    if (statsCounter != null && object != null) {
+      statsCounter.recordPut();
+    }
   }
 
   @Override
@@ -56,6 +77,13 @@ public class LoggingCache implements Cache {
     if (value != null) {
       hits++;
     }
+    if (statsCounter != null) {
+      if (value != null) {
+        statsCounter.recordHit();
+      } else {
+        statsCounter.recordMiss();
+      }
+    }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
     }
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.invalidation.Invalidation;
+import org.apache.ibatis.cache.invalidation.InvalidationChannel;
+
+/**
+ * A node-local cache kept coherent with the caches of the same namespace on other nodes.
+ * <p>
+ * Clears are sent to the other nodes through an {@link InvalidationChannel}, and theirs are applied here. The
+ * dependencies invalidated by a commit are sent by the {@link DependencyTrackingCache} above, since each node has to
+ * resolve them against its own index. Reads never leave the node. Evictions done by inner decorators (e.g.
+ * {@link LruCache}) only concern this node and are not sent.
+ *
+ * @since 3.5.14
+ */
+public class NearCache implements Cache {
+
+  private final Cache delegate;
+  private final InvalidationChannel channel;
+
+  public NearCache(Cache delegate, InvalidationChannel channel) {
+    this.delegate = delegate;
+    this.channel = channel;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    channel.send(Invalidation.clear(getId()));
+  }
+
+  /**
+   * Applies a clear received from another node, without sending it again.
+   */
+  public void clearLocally() {
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+}
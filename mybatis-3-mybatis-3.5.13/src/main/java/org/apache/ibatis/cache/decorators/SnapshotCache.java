@@ -0,0 +1,391 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.Proxy;
+import javassist.util.proxy.ProxyFactory;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.io.SerialFilterChecker;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+
+/**
+ * Snapshot cache decorator, storing a read-only copy of each result, taken once when it is put, and handing out that
+ * copy itself on every hit.
+ * <p>
+ * Lists, sets and maps are copied into unmodifiable collections at every level, and the result objects are copied
+ * property by property into read-only subclasses of their type whose setters throw an
+ * {@link UnsupportedOperationException}. A collection held by a property declared as a concrete type (e.g.
+ * {@code ArrayList}) becomes a read-only subclass of that type, and so do dates. Strings, numbers, {@code java.time}
+ * values and enums are immutable and shared. Objects that cannot be subclassed (e.g. records, final classes) and other
+ * mutable JDK objects like {@link java.util.Calendar} are copied through serialization, or shared if they are not
+ * serializable; like arrays, they are copied but not made read-only, and must not be modified. Lazy loaded properties
+ * are loaded when the snapshot is taken.
+ *
+ * @since 3.5.14
+ */
+public class SnapshotCache implements Cache {
+
+  private static final ReflectorFactory REFLECTOR_FACTORY = new DefaultReflectorFactory();
+  private static final MethodFilter SETTERS = method -> PropertyNamer.isSetter(method.getName())
+      && method.getParameterCount() == 1;
+  private static final MethodFilter PUBLIC_METHODS = method -> Modifier.isPublic(method.getModifiers());
+  private static final List<Class<?>> VIEW_TYPES = Arrays.asList(NavigableMap.class, Map.class, NavigableSet.class,
+      Set.class, List.class, Collection.class, Object.class);
+  private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(String.class, Boolean.class,
+      Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class,
+      BigDecimal.class, Class.class, UUID.class, URI.class, Locale.class, Currency.class, Instant.class,
+      LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetTime.class, OffsetDateTime.class,
+      ZonedDateTime.class, Duration.class, Period.class, Year.class, YearMonth.class, MonthDay.class));
+
+  private final Cache delegate;
+
+  public SnapshotCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object object) {
+    delegate.putObject(key, freeze(object, new IdentityHashMap<>()));
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object freeze(Object object, Map<Object, Object> snapshots) {
+    if (object == null || isImmutable(object.getClass())) {
+      return object;
+    }
+    Object snapshot = snapshots.get(object);
+    if (snapshot != null) {
+      return snapshot;
+    }
+    if (object instanceof List) {
+      List<Object> elements = new ArrayList<>(((List<?>) object).size());
+      snapshots.put(object, Collections.unmodifiableList(elements));
+      for (Object element : (List<?>) object) {
+        elements.add(freeze(element, snapshots));
+      }
+      return snapshots.get(object);
+    }
+    if (object instanceof SortedSet) {
+      NavigableSet<Object> elements = new TreeSet<>(((SortedSet<Object>) object).comparator());
+      snapshots.put(object, Collections.unmodifiableNavigableSet(elements));
+      for (Object element : (Set<?>) object) {
+        elements.add(freeze(element, snapshots));
+      }
+      return snapshots.get(object);
+    }
+    if (object instanceof Set) {
+      Set<Object> elements = new LinkedHashSet<>();
+      snapshots.put(object, Collections.unmodifiableSet(elements));
+      for (Object element : (Set<?>) object) {
+        elements.add(freeze(element, snapshots));
+      }
+      return snapshots.get(object);
+    }
+    if (object instanceof Map) {
+      Map<Object, Object> entries;
+      if (object instanceof SortedMap) {
+        NavigableMap<Object, Object> sortedEntries = new TreeMap<>(((SortedMap<Object, ?>) object).comparator());
+        snapshots.put(object, Collections.unmodifiableNavigableMap(sortedEntries));
+        entries = sortedEntries;
+      } else {
+        entries = new LinkedHashMap<>();
+        snapshots.put(object, Collections.unmodifiableMap(entries));
+      }
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+        entries.put(freeze(entry.getKey(), snapshots), freeze(entry.getValue(), snapshots));
+      }
+      return snapshots.get(object);
+    }
+    if (object instanceof Date) {
+      return freezeDate((Date) object, snapshots);
+    }
+    if (object.getClass().isArray()) {
+      return freezeArray(object, snapshots);
+    }
+    if (object.getClass().getName().startsWith("java.")) {
+      return copy(object, snapshots);
+    }
+    return freezeBean(object, snapshots);
+  }
+
+  private static boolean isImmutable(Class<?> type) {
+    return IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type) || ZoneId.class.isAssignableFrom(type);
+  }
+
+  private static Object freezeArray(Object array, Map<Object, Object> snapshots) {
+    int length = Array.getLength(array);
+    Object snapshot = Array.newInstance(array.getClass().getComponentType(), length);
+    snapshots.put(array, snapshot);
+    if (array.getClass().getComponentType().isPrimitive()) {
+      System.arraycopy(array, 0, snapshot, 0, length);
+    } else {
+      for (int i = 0; i < length; i++) {
+        Array.set(snapshot, i, freeze(Array.get(array, i), snapshots));
+      }
+    }
+    return snapshot;
+  }
+
+  private static Object freezeDate(Date date, Map<Object, Object> snapshots) {
+    ReadOnlyHandler handler = new ReadOnlyHandler();
+    Object snapshot;
+    try {
+      snapshot = newProxy(date.getClass(), SETTERS, new Class[] { long.class }, new Object[] { date.getTime() },
+          handler);
+    } catch (RuntimeException e) {
+      // a date type without a constructor taking the time
+      snapshot = date.clone();
+    }
+    if (date instanceof Timestamp) {
+      ((Timestamp) snapshot).setNanos(((Timestamp) date).getNanos());
+    }
+    handler.seal();
+    snapshots.put(date, snapshot);
+    return snapshot;
+  }
+
+  private static Object freezeBean(Object object, Map<Object, Object> snapshots) {
+    // a lazy loading proxy is copied into an instance of the result type
+    Class<?> type = object instanceof WriteReplaceInterface ? object.getClass().getSuperclass() : object.getClass();
+    Reflector reflector = REFLECTOR_FACTORY.findForClass(type);
+    if (!reflector.hasDefaultConstructor() || Modifier.isAbstract(type.getModifiers())
+        || Modifier.isFinal(type.getModifiers())) {
+      return copy(object, snapshots);
+    }
+    try {
+      ReadOnlyHandler handler = new ReadOnlyHandler();
+      Object snapshot = newProxy(type, SETTERS, new Class[0], new Object[0], handler);
+      snapshots.put(object, snapshot);
+      for (String property : reflector.getSetablePropertyNames()) {
+        if (reflector.hasGetter(property)) {
+          Invoker getter = reflector.getGetInvoker(property);
+          Object value = getter.invoke(object, null);
+          Object frozen = fit(freeze(value, snapshots), reflector.getSetterType(property), value);
+          reflector.getSetInvoker(property).invoke(snapshot, new Object[] { frozen });
+        }
+      }
+      handler.seal();
+      return snapshot;
+    } catch (CacheException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CacheException("Error taking a snapshot of " + type.getName() + ". Cause: " + e, e);
+    }
+  }
+
+  private static Object fit(Object frozen, Class<?> type, Object value) {
+    if (frozen == null || type.isPrimitive() || type.isInstance(frozen)) {
+      return frozen;
+    }
+    // an unmodifiable collection does not fit a property declared as a concrete collection: it is wrapped into a
+    // read-only subclass of that type
+    if (frozen instanceof Collection && Collection.class.isAssignableFrom(type)
+        || frozen instanceof Map && Map.class.isAssignableFrom(type)) {
+      try {
+        return newProxy(type, PUBLIC_METHODS, new Class[0], new Object[0], new ReadOnlyViewHandler(frozen));
+      } catch (RuntimeException e) {
+        // copied through serialization below
+      }
+    }
+    if (value instanceof Serializable) {
+      return serializedCopy(value);
+    }
+    throw new CacheException("Error taking a snapshot of a " + value.getClass().getName() + " into a property of type "
+        + type.getName() + ". It cannot be copied into that type, nor serialized.");
+  }
+
+  private static Object newProxy(Class<?> type, MethodFilter filter, Class<?>[] argTypes, Object[] args,
+      MethodHandler handler) {
+    ProxyFactory factory = new ProxyFactory();
+    factory.setSuperclass(type);
+    factory.setFilter(filter);
+    Object proxy;
+    try {
+      proxy = factory.create(argTypes, args);
+    } catch (Exception e) {
+      throw new CacheException("Error creating a read-only " + type.getName() + ". Cause: " + e, e);
+    }
+    ((Proxy) proxy).setHandler(handler);
+    return proxy;
+  }
+
+  private static Object copy(Object object, Map<Object, Object> snapshots) {
+    Object snapshot = object instanceof Serializable ? serializedCopy(object) : object;
+    snapshots.put(object, snapshot);
+    return snapshot;
+  }
+
+  private static Object serializedCopy(Object object) {
+    byte[] bytes;
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(object);
+      oos.flush();
+      bytes = bos.toByteArray();
+    } catch (Exception e) {
+      throw new CacheException("Error taking a snapshot of " + object.getClass().getName() + ". Cause: " + e, e);
+    }
+    SerialFilterChecker.check();
+    try (ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return ois.readObject();
+    } catch (Exception e) {
+      throw new CacheException("Error taking a snapshot of " + object.getClass().getName() + ". Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Makes the setters of a snapshot throw once it has been filled.
+   */
+  private static class ReadOnlyHandler implements MethodHandler, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private volatile boolean sealed;
+
+    void seal() {
+      sealed = true;
+    }
+
+    @Override
+    public Object invoke(Object self, Method method, Method proceed, Object[] args) throws Throwable {
+      if (sealed) {
+        throw new UnsupportedOperationException(
+            "A cached snapshot is read-only. Cannot call " + method.getName() + " on it.");
+      }
+      try {
+        return proceed.invoke(self, args);
+      } catch (InvocationTargetException e) {
+        throw ExceptionUtil.unwrapThrowable(e);
+      }
+    }
+  }
+
+  /**
+   * Hands the methods of a read-only collection or map subclass over to an unmodifiable view of the snapshot. Methods
+   * the view does not have (e.g. {@code ArrayList.trimToSize()}) throw.
+   */
+  private static class ReadOnlyViewHandler implements MethodHandler, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object view;
+
+    ReadOnlyViewHandler(Object view) {
+      this.view = view;
+    }
+
+    @Override
+    public Object invoke(Object self, Method method, Method proceed, Object[] args) throws Throwable {
+      for (Class<?> viewType : VIEW_TYPES) {
+        if (viewType.isInstance(view) && viewType.isInstance(self)) {
+          try {
+            return viewType.getMethod(method.getName(), method.getParameterTypes()).invoke(view, args);
+          } catch (NoSuchMethodException e) {
+            // not a method of this view type
+          } catch (InvocationTargetException e) {
+            throw ExceptionUtil.unwrapThrowable(e);
+          }
+        }
+      }
+      throw new UnsupportedOperationException(
+          "A cached snapshot is read-only. Cannot call " + method.getName() + " on it.");
+    }
+  }
+
+}
@@ -15,8 +15,11 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -43,12 +46,16 @@ public class TransactionalCache implements Cache {
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
   private final Set<Object> entriesMissedInCache;
+  private final Map<Object, Collection<?>> dependenciesOfEntriesToAdd;
+  private final Set<Object> dependenciesToInvalidateOnCommit;
 
   public TransactionalCache(Cache delegate) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.dependenciesOfEntriesToAdd = new HashMap<>();
+    this.dependenciesToInvalidateOnCommit = new HashSet<>();
   }
 
   @Override
@@ -75,9 +82,78 @@ public class TransactionalCache implements Cache {
     return object;
   }
 
+  /**
+   * Gets a result with what it depends on, missing it if the session changed one of its dependencies.
+   *
+   * @param key
+   *          the key
+   * @param dependsOn
+   *          the dependencies of the result (e.g. the tables it is read from), or {@code null} if unknown
+   *
+   * @return the cached result or {@code null}
+   *
+   * @since 3.5.14
+   */
+  public Object getObject(Object key, Collection<?> dependsOn) {
+    Object object = getObject(key);
+    if (object != null && !dependenciesToInvalidateOnCommit.isEmpty()
+        && (dependsOn == null || !Collections.disjoint(dependsOn, dependenciesToInvalidateOnCommit))) {
+      return null;
+    }
+    return object;
+  }
+
   @Override
   public void putObject(Object key, Object object) {
     entriesToAddOnCommit.put(key, object);
+    dependenciesOfEntriesToAdd.remove(key);
+  }
+
+  /**
+   * Puts a result with what it depends on, sent to a {@link DependencyTrackingCache} on commit.
+   *
+   * @param key
+   *          the key
+   * @param object
+   *          the result
+   * @param dependsOn
+   *          the dependencies of the result (e.g. the tables it is read from), or {@code null} if unknown
+   *
+   * @since 3.5.14
+   */
+  public void putObject(Object key, Object object, Collection<?> dependsOn) {
+    entriesToAddOnCommit.put(key, object);
+    if (dependsOn == null) {
+      dependenciesOfEntriesToAdd.remove(key);
+    } else {
+      dependenciesOfEntriesToAdd.put(key, dependsOn);
+    }
+  }
+
+  /**
+   * Invalidates the results depending on the given dependencies on commit. Caches other than
+   * {@link DependencyTrackingCache} are cleared.
+   *
+   * @param changed
+   *          the changed dependencies (e.g. the written tables), or {@code null} if unknown
+   *
+   * @since 3.5.14
+   */
+  public void invalidate(Collection<?> changed) {
+    if (changed == null || !(delegate instanceof DependencyTrackingCache)) {
+      clear();
+      return;
+    }
+    dependenciesToInvalidateOnCommit.addAll(changed);
+    // results read before the write are stale
+    Iterator<Object> keys = entriesToAddOnCommit.keySet().iterator();
+    while (keys.hasNext()) {
+      Collection<?> dependsOn = dependenciesOfEntriesToAdd.get(keys.next());
+      if (dependsOn == null || !Collections.disjoint(dependsOn, changed)) {
+        keys.remove();
+      }
+    }
+    dependenciesOfEntriesToAdd.keySet().retainAll(entriesToAddOnCommit.keySet());
   }
 
   @Override
@@ -89,11 +165,14 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    dependenciesOfEntriesToAdd.clear();
   }
 
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+    } else if (!dependenciesToInvalidateOnCommit.isEmpty()) {
+      ((DependencyTrackingCache) delegate).invalidate(dependenciesToInvalidateOnCommit);
     }
     flushPendingEntries();
     reset();
@@ -108,11 +187,18 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    dependenciesOfEntriesToAdd.clear();
+    dependenciesToInvalidateOnCommit.clear();
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+      Collection<?> dependsOn = dependenciesOfEntriesToAdd.get(entry.getKey());
+      if (dependsOn != null && delegate instanceof DependencyTrackingCache) {
+        ((DependencyTrackingCache) delegate).putObject(entry.getKey(), entry.getValue(), dependsOn);
+      } else {
+        delegate.putObject(entry.getKey(), entry.getValue());
+      }
     }
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
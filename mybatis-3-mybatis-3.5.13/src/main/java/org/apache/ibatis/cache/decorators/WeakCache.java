@@ -19,6 +19,7 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 
@@ -34,6 +35,7 @@ public class WeakCache implements Cache {
   private final ReferenceQueue<Object> queueOfGarbageCollectedEntries;
   private final Cache delegate;
   private int numberOfHardLinks;
+  private final ReentrantLock lock = new ReentrantLock();
 
   public WeakCache(Cache delegate) {
     this.delegate = delegate;
@@ -73,11 +75,14 @@ public class WeakCache implements Cache {
       if (result == null) {
         delegate.removeObject(key);
       } else {
-        synchronized (hardLinksToAvoidGarbageCollection) {
+        lock.lock();
+        try {
           hardLinksToAvoidGarbageCollection.addFirst(result);
           if (hardLinksToAvoidGarbageCollection.size() > numberOfHardLinks) {
             hardLinksToAvoidGarbageCollection.removeLast();
           }
+        } finally {
+          lock.unlock();
         }
       }
     }
@@ -94,8 +99,11 @@ public class WeakCache implements Cache {
 
   @Override
   public void clear() {
-    synchronized (hardLinksToAvoidGarbageCollection) {
+    lock.lock();
+    try {
       hardLinksToAvoidGarbageCollection.clear();
+    } finally {
+      lock.unlock();
     }
     removeGarbageCollectedItems();
     delegate.clear();
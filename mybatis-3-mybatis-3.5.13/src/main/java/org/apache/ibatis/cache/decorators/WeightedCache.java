@@ -0,0 +1,218 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheWeightBudget;
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.EstimatedRowsWeigher;
+
+/**
+ * Weighted cache decorator, evicting the least recently used entries when the weight of the cache exceeds its byte
+ * budget. When the caches sharing a global budget exceed it, the entries are evicted from the heaviest of them, and
+ * the entry being put is evicted last.
+ * <p>
+ * It must be the innermost decorator so that the entries evicted by the other decorators are subtracted.
+ *
+ * @since 3.5.14
+ */
+public class WeightedCache implements Cache {
+
+  private final Cache delegate;
+  private final Map<Object, Long> weights;
+  private CacheWeigher weigher;
+  private long maxBytes;
+  private CacheWeightBudget budget;
+  private long weight;
+
+  public WeightedCache(Cache delegate) {
+    this.delegate = delegate;
+    this.weights = new LinkedHashMap<>(16, .75F, true);
+    this.weigher = new EstimatedRowsWeigher();
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    lock();
+    try {
+      return delegate.getSize();
+    } finally {
+      unlock();
+    }
+  }
+
+  public void setWeigher(CacheWeigher weigher) {
+    this.weigher = weigher;
+  }
+
+  /**
+   * Sets the byte budget of the cache.
+   *
+   * @param maxBytes
+   *          the budget, {@code 0} if only bound by the global budget
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setBudget(CacheWeightBudget budget) {
+    this.budget = budget;
+    if (budget != null) {
+      budget.register(this);
+    }
+  }
+
+  /**
+   * Returns the weight of the entries held.
+   *
+   * @return the weight in bytes
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    // a null is put to release the lock of a blocking cache
+    long entryWeight = value == null ? 0 : weigher.weigh(key, value);
+    lock();
+    try {
+      delegate.putObject(key, value);
+      release(weights.remove(key));
+      if (value != null) {
+        weights.put(key, entryWeight);
+        weight += entryWeight;
+        if (budget != null) {
+          budget.add(entryWeight);
+        }
+        evictUntilWithinBudget(key);
+      }
+    } finally {
+      unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    lock();
+    try {
+      weights.get(key); // touch
+      return delegate.getObject(key);
+    } finally {
+      unlock();
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock();
+    try {
+      release(weights.remove(key));
+      return delegate.removeObject(key);
+    } finally {
+      unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock();
+    try {
+      if (budget != null) {
+        budget.add(-weight);
+      }
+      weight = 0;
+      weights.clear();
+      delegate.clear();
+    } finally {
+      unlock();
+    }
+  }
+
+  private void evictUntilWithinBudget(Object putKey) {
+    // the entry just put is the most recently used, evicted last
+    while (maxBytes > 0 && weight > maxBytes) {
+      evictEldest(null);
+    }
+    if (budget == null) {
+      return;
+    }
+    while (budget.isExceeded()) {
+      WeightedCache heaviest = null;
+      long heaviestWeight = 0;
+      for (WeightedCache cache : budget.getCaches()) {
+        long evictableWeight = cache.weight;
+        if (cache == this && weights.containsKey(putKey)) {
+          evictableWeight -= weights.get(putKey);
+        }
+        if (evictableWeight > heaviestWeight) {
+          heaviest = cache;
+          heaviestWeight = evictableWeight;
+        }
+      }
+      if (heaviest == null) {
+        // only the entry just put is left, heavier than the whole budget
+        evictEldest(null);
+        return;
+      }
+      heaviest.evictEldest(heaviest == this ? putKey : null);
+    }
+  }
+
+  private void evictEldest(Object keptKey) {
+    Iterator<Map.Entry<Object, Long>> eldest = weights.entrySet().iterator();
+    while (eldest.hasNext()) {
+      Map.Entry<Object, Long> entry = eldest.next();
+      if (keptKey == null || !keptKey.equals(entry.getKey())) {
+        eldest.remove();
+        release(entry.getValue());
+        delegate.removeObject(entry.getKey());
+        return;
+      }
+    }
+  }
+
+  private void lock() {
+    if (budget != null) {
+      budget.getLock().lock();
+    }
+  }
+
+  private void unlock() {
+    if (budget != null) {
+      budget.getLock().unlock();
+    }
+  }
+
+  private void release(Long entryWeight) {
+    if (entryWeight != null) {
+      weight -= entryWeight;
+      if (budget != null) {
+        budget.add(-entryWeight);
+      }
+    }
+  }
+
+}
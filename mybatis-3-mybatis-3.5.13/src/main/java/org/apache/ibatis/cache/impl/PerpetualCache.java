@@ -20,6 +20,7 @@ import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatsCounter;
 
 /**
  * @author Clinton Begin
@@ -32,10 +33,24 @@ public class PerpetualCache implements Cache {
 //    用于记录缓存对象的Map
     private final Map<Object, Object> cache = new HashMap<>();
 
+//    记录被淘汰、失效或清空的缓存项，并抽样保存的缓存项用于估算大小，可以为null
+    private CacheStatsCounter statsCounter;
+
     public PerpetualCache(String id) {
         this.id = id;
     }
 
+    /**
+     * Sets the counter recording the entries removed from the cache, whichever decorator removes them, and sampling
+     * the stored entries to estimate their size.
+     *
+     * @param statsCounter the counter, or {@code null}
+     * @since 3.5.14
+     */
+    public void setStatsCounter(CacheStatsCounter statsCounter) {
+        this.statsCounter = statsCounter;
+    }
+
     @Override
     public String getId() {
         return id;
@@ -49,6 +64,9 @@ public class PerpetualCache implements Cache {
     @Override
     public void putObject(Object key, Object value) {
         cache.put(key, value);
+        if (statsCounter != null && value != null) {
+            statsCounter.sampleEntry(key, value);
+        }
     }
 
     @Override
@@ -58,11 +76,18 @@ public class PerpetualCache implements Cache {
 
     @Override
     public Object removeObject(Object key) {
-        return cache.remove(key);
+        Object value = cache.remove(key);
+        if (statsCounter != null && value != null) {
+            statsCounter.recordEvictions(1);
+        }
+        return value;
     }
 
     @Override
     public void clear() {
+        if (statsCounter != null) {
+            statsCounter.recordEvictions(cache.size());
+        }
         cache.clear();
     }
 
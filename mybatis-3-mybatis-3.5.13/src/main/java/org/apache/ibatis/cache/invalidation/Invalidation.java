@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An eviction from the second level cache of a namespace, sent to the other nodes: a clear, or the dependencies (tables
+ * or identities) a commit changed, which each node resolves to the entries of its own cache.
+ *
+ * @since 3.5.14
+ */
+public final class Invalidation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String cacheId;
+  private final Set<Object> dependencies;
+
+  private Invalidation(String cacheId, Set<Object> dependencies) {
+    this.cacheId = cacheId;
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * Returns an invalidation clearing a cache.
+   *
+   * @param cacheId
+   *          the cache id, i.e. the namespace
+   *
+   * @return the invalidation
+   */
+  public static Invalidation clear(String cacheId) {
+    return new Invalidation(cacheId, null);
+  }
+
+  /**
+   * Returns an invalidation removing the entries of a cache that depend on some changed dependencies.
+   *
+   * @param cacheId
+   *          the cache id, i.e. the namespace
+   * @param dependencies
+   *          the changed dependencies, e.g. the written tables
+   *
+   * @return the invalidation
+   *
+   * @see org.apache.ibatis.cache.decorators.DependencyTrackingCache
+   */
+  public static Invalidation of(String cacheId, Collection<?> dependencies) {
+    return new Invalidation(cacheId, Collections.unmodifiableSet(new LinkedHashSet<>(dependencies)));
+  }
+
+  public String getCacheId() {
+    return cacheId;
+  }
+
+  /**
+   * Returns the changed dependencies.
+   *
+   * @return the dependencies, or {@code null} if the whole cache is cleared
+   */
+  public Set<Object> getDependencies() {
+    return dependencies;
+  }
+
+  public boolean isClear() {
+    return dependencies == null;
+  }
+
+  @Override
+  public String toString() {
+    return isClear() ? "clear " + cacheId : "invalidate " + dependencies + " in " + cacheId;
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the invalidations of a session commit, so that they are published together once all caches are updated.
+ * Invalidations of the same cache are coalesced: dependencies are merged and a clear replaces them.
+ *
+ * @since 3.5.14
+ */
+public final class InvalidationBatch {
+
+  private static final ThreadLocal<InvalidationBatch> CURRENT = new ThreadLocal<>();
+
+  // a null dependency set clears the cache
+  private final Map<InvalidationChannel, Map<String, Set<Object>>> pending = new LinkedHashMap<>();
+  private int depth;
+
+  private InvalidationBatch() {
+  }
+
+  /**
+   * Starts collecting the invalidations of the current thread. Does nothing unless an {@link InvalidationChannel}
+   * exists.
+   */
+  public static void begin() {
+    if (!InvalidationChannel.isInUse()) {
+      return;
+    }
+    InvalidationBatch batch = CURRENT.get();
+    if (batch == null) {
+      batch = new InvalidationBatch();
+      CURRENT.set(batch);
+    }
+    batch.depth++;
+  }
+
+  /**
+   * Publishes the collected invalidations when the outermost batch ends.
+   */
+  public static void end() {
+    InvalidationBatch batch = CURRENT.get();
+    if (batch == null || --batch.depth > 0) {
+      return;
+    }
+    CURRENT.remove();
+    for (Map.Entry<InvalidationChannel, Map<String, Set<Object>>> channelEntry : batch.pending.entrySet()) {
+      List<Invalidation> invalidations = new ArrayList<>(channelEntry.getValue().size());
+      for (Map.Entry<String, Set<Object>> entry : channelEntry.getValue().entrySet()) {
+        invalidations.add(entry.getValue() == null ? Invalidation.clear(entry.getKey())
+            : Invalidation.of(entry.getKey(), entry.getValue()));
+      }
+      channelEntry.getKey().publish(invalidations);
+    }
+  }
+
+  /**
+   * Returns the batch of the current thread.
+   *
+   * @return the batch, or {@code null} if no session commit is in progress
+   */
+  public static InvalidationBatch current() {
+    return InvalidationChannel.isInUse() ? CURRENT.get() : null;
+  }
+
+  void add(InvalidationChannel channel, Invalidation invalidation) {
+    Map<String, Set<Object>> invalidations = pending.computeIfAbsent(channel, k -> new LinkedHashMap<>());
+    String cacheId = invalidation.getCacheId();
+    if (invalidation.isClear()) {
+      invalidations.put(cacheId, null);
+    } else if (!invalidations.containsKey(cacheId)) {
+      invalidations.put(cacheId, new LinkedHashSet<>(invalidation.getDependencies()));
+    } else if (invalidations.get(cacheId) != null) {
+      invalidations.get(cacheId).addAll(invalidation.getDependencies());
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.DependencyTrackingCache;
+import org.apache.ibatis.cache.decorators.NearCache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Connects the near caches of a configuration to an {@link InvalidationTransport}.
+ *
+ * @since 3.5.14
+ */
+public class InvalidationChannel {
+
+  private static final Log log = LogFactory.getLog(InvalidationChannel.class);
+
+  private static final AtomicInteger CHANNELS = new AtomicInteger();
+
+  private final InvalidationTransport transport;
+  private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+  private final Map<String, DependencyTrackingCache> dependencyTrackingCaches = new ConcurrentHashMap<>();
+
+  public InvalidationChannel(InvalidationTransport transport) {
+    this.transport = transport;
+    transport.subscribe(this::receive);
+    CHANNELS.incrementAndGet();
+  }
+
+  public InvalidationTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Registers a cache receiving the clears of its id.
+   *
+   * @param cache
+   *          the cache
+   */
+  public void register(NearCache cache) {
+    caches.put(cache.getId(), cache);
+  }
+
+  /**
+   * Registers a cache receiving the changed dependencies of its id.
+   *
+   * @param cache
+   *          the cache
+   */
+  public void register(DependencyTrackingCache cache) {
+    dependencyTrackingCaches.put(cache.getId(), cache);
+  }
+
+  /**
+   * Sends an invalidation, with the other invalidations of the session commit if one is in progress.
+   *
+   * @param invalidation
+   *          the invalidation
+   */
+  public void send(Invalidation invalidation) {
+    InvalidationBatch batch = InvalidationBatch.current();
+    if (batch != null) {
+      batch.add(this, invalidation);
+    } else {
+      publish(Collections.singletonList(invalidation));
+    }
+  }
+
+  void publish(List<Invalidation> invalidations) {
+    try {
+      transport.publish(invalidations);
+    } catch (RuntimeException e) {
+      // the local commit is done, other nodes keep stale entries until they expire
+      log.warn("Could not publish cache invalidations " + invalidations + ". Cause: " + e);
+    }
+  }
+
+  void receive(List<Invalidation> invalidations) {
+    for (Invalidation invalidation : invalidations) {
+      if (invalidation.isClear()) {
+        NearCache cache = caches.get(invalidation.getCacheId());
+        if (cache != null) {
+          cache.clearLocally();
+        }
+      } else {
+        // resolved against the index of this node, which may hold entries the sender never cached
+        DependencyTrackingCache cache = dependencyTrackingCaches.get(invalidation.getCacheId());
+        if (cache != null) {
+          cache.invalidateLocally(invalidation.getDependencies());
+        }
+      }
+    }
+  }
+
+  static boolean isInUse() {
+    return CHANNELS.get() > 0;
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sends the cache evictions of a node to the other nodes sharing the same database, e.g. through a message broker or
+ * multicast.
+ * <p>
+ * Each node uses its own instance, configured with the {@code invalidationTransport} setting. Evictions are published
+ * once per committed session, after the local caches are updated. A node must not receive its own invalidations.
+ * Implementations sending invalidations over the network need to serialize the dependencies, which are table names or
+ * identity values taken from the statement parameters.
+ *
+ * @since 3.5.14
+ *
+ * @see LoopbackInvalidationTransport
+ */
+public interface InvalidationTransport {
+
+  /**
+   * Sends invalidations to the other nodes.
+   *
+   * @param invalidations
+   *          the invalidations, at most one per cache
+   */
+  void publish(List<Invalidation> invalidations);
+
+  /**
+   * Registers the receiver of the invalidations published by the other nodes. It is called once, when the
+   * configuration is built.
+   *
+   * @param receiver
+   *          the receiver, which applies the invalidations to the local caches
+   */
+  void subscribe(Consumer<List<Invalidation>> receiver);
+
+}
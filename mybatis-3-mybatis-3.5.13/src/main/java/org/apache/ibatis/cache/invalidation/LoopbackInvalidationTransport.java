@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * An {@link InvalidationTransport} delivering invalidations to the other instances of the same group in this JVM, on
+ * the publishing thread. It stands for a real transport when running several configurations (nodes) in tests.
+ *
+ * @since 3.5.14
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+  private static final Map<String, Set<LoopbackInvalidationTransport>> GROUPS = new ConcurrentHashMap<>();
+
+  private final Set<LoopbackInvalidationTransport> members;
+  private volatile Consumer<List<Invalidation>> receiver;
+
+  public LoopbackInvalidationTransport() {
+    this("default");
+  }
+
+  public LoopbackInvalidationTransport(String group) {
+    // weak, so that the configurations of finished tests can be collected
+    this.members = GROUPS.computeIfAbsent(group,
+        k -> Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>())));
+    members.add(this);
+  }
+
+  @Override
+  public void publish(List<Invalidation> invalidations) {
+    List<LoopbackInvalidationTransport> others;
+    synchronized (members) {
+      others = new ArrayList<>(members);
+    }
+    for (LoopbackInvalidationTransport other : others) {
+      Consumer<List<Invalidation>> otherReceiver = other.receiver;
+      if (other != this && otherReceiver != null) {
+        otherReceiver.accept(invalidations);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<List<Invalidation>> receiver) {
+    this.receiver = receiver;
+  }
+
+  /**
+   * Leaves the group.
+   */
+  public void close() {
+    members.remove(this);
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * A {@link Flow.Publisher} streaming the items of a {@link Cursor}.
+ * <p>
+ * Nothing is executed until a subscriber requests items. Rows are then fetched from the result set only as they are
+ * requested, on the executor of the session's {@link AsyncSqlSession}, so a slow subscriber keeps just one row in
+ * memory and never blocks the thread calling {@link Flow.Subscription#request(long)}. The cursor, and thus the
+ * statement and result set, is closed when the stream completes, fails or is cancelled.
+ * <p>
+ * Mapper methods returning {@link Flow.Publisher} return a publisher bound to the mapper's session, which must stay
+ * open until the stream ends. A publisher created with {@link #CursorPublisher(SqlSessionFactory, Function)} opens a
+ * session for each subscriber instead, and closes it with the cursor.
+ *
+ * @param <T>
+ *          the item type
+ *
+ * @since 3.5.14
+ */
+public class CursorPublisher<T> implements Flow.Publisher<T> {
+
+  private final SqlSession sqlSession;
+  private final SqlSessionFactory sqlSessionFactory;
+  private final Function<SqlSession, Cursor<T>> query;
+
+  /**
+   * Creates a publisher running the query on the given session.
+   *
+   * @param sqlSession
+   *          the session, left open when the stream ends
+   * @param query
+   *          opens the cursor, e.g. {@code session -> session.selectCursor("selectAll")}
+   */
+  public CursorPublisher(SqlSession sqlSession, Function<SqlSession, Cursor<T>> query) {
+    this.sqlSession = Objects.requireNonNull(sqlSession);
+    this.sqlSessionFactory = null;
+    this.query = Objects.requireNonNull(query);
+  }
+
+  /**
+   * Creates a publisher running the query on a new session for each subscriber.
+   *
+   * @param sqlSessionFactory
+   *          the factory opening the sessions, which are closed when the stream ends
+   * @param query
+   *          opens the cursor, e.g. {@code session -> session.selectCursor("selectAll")}
+   */
+  public CursorPublisher(SqlSessionFactory sqlSessionFactory, Function<SqlSession, Cursor<T>> query) {
+    this.sqlSession = null;
+    this.sqlSessionFactory = Objects.requireNonNull(sqlSessionFactory);
+    this.query = Objects.requireNonNull(query);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber);
+    boolean closeSession = sqlSession == null;
+    SqlSession session = closeSession ? sqlSessionFactory.openSession() : sqlSession;
+    CursorSubscription<T> subscription = new CursorSubscription<>(subscriber, session.getAsyncSession(), query,
+        closeSession);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private static class CursorSubscription<T> implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super T> subscriber;
+    private final AsyncSqlSession asyncSession;
+    private final Function<SqlSession, Cursor<T>> query;
+    private final boolean closeSession;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    // only accessed from drain tasks, which the async session runs one at a time
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+    private boolean done;
+
+    CursorSubscription(Flow.Subscriber<? super T> subscriber, AsyncSqlSession asyncSession,
+        Function<SqlSession, Cursor<T>> query, boolean closeSession) {
+      this.subscriber = subscriber;
+      this.asyncSession = asyncSession;
+      this.query = query;
+      this.closeSession = closeSession;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        // Reactive Streams rule 3.9
+        invalidRequest = new IllegalArgumentException("Requested " + n + " items, the request must be positive");
+      } else {
+        requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+      scheduleDrain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (pendingDrains.getAndIncrement() == 0) {
+        asyncSession.submit(session -> {
+          drain(session);
+          return null;
+        });
+      }
+    }
+
+    private void drain(SqlSession session) {
+      int missed = 1;
+      do {
+        drainOnce(session);
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drainOnce(SqlSession session) {
+      if (done) {
+        return;
+      }
+      if (cancelled) {
+        terminate(session);
+        return;
+      }
+      if (invalidRequest != null) {
+        terminate(session);
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      long demand = requested.get();
+      if (demand == 0) {
+        return;
+      }
+      while (demand != 0) {
+        long emitted = 0;
+        while (emitted != demand && !cancelled) {
+          T item;
+          try {
+            if (iterator == null) {
+              cursor = query.apply(session);
+              iterator = cursor.iterator();
+            }
+            if (!iterator.hasNext()) {
+              terminate(session);
+              subscriber.onComplete();
+              return;
+            }
+            item = iterator.next();
+          } catch (RuntimeException e) {
+            terminate(session);
+            subscriber.onError(e);
+            return;
+          }
+          try {
+            subscriber.onNext(item);
+          } catch (RuntimeException e) {
+            // Reactive Streams rule 2.13: the subscription is cancelled and the subscriber is not signalled again
+            terminate(session);
+            return;
+          }
+          emitted++;
+        }
+        if (cancelled) {
+          terminate(session);
+          return;
+        }
+        // Reactive Streams rule 3.17: a demand of Long.MAX_VALUE is unbounded and never decreases
+        demand = requested.accumulateAndGet(emitted,
+            (current, count) -> current == Long.MAX_VALUE ? current : current - count);
+      }
+    }
+
+    private void terminate(SqlSession session) {
+      done = true;
+      try {
+        if (cursor != null) {
+          cursor.close();
+        }
+      } catch (Exception e) {
+        // ignore
+      } finally {
+        if (closeSession) {
+          session.close();
+        }
+      }
+    }
+  }
+
+}
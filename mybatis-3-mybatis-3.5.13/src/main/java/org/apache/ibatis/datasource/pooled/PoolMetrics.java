@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.util.LatencyHistogram;
+
+/**
+ * Lock-free metrics of a {@link PooledDataSource}: counters, latency histograms and pool size gauges.
+ * <p>
+ * Unlike {@link PoolState}, reading these metrics never contends with the threads using the pool, so they can be
+ * polled by a metrics registry as often as needed. All durations are in nanoseconds.
+ *
+ * @since 3.5.14
+ *
+ * @see PooledDataSource#getPoolMetrics()
+ */
+public class PoolMetrics implements PoolMetricsListener {
+
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder hadToWaitCount = new LongAdder();
+  private final LongAdder createdConnectionCount = new LongAdder();
+  private final LongAdder badConnectionCount = new LongAdder();
+  private final LongAdder suspectedLeakCount = new LongAdder();
+  private final LatencyHistogram acquireTime = new LatencyHistogram();
+  private final LatencyHistogram holdTime = new LatencyHistogram();
+  private final LatencyHistogram creationTime = new LatencyHistogram();
+  private final AtomicInteger pendingRequests = new AtomicInteger();
+  private volatile int activeConnections;
+  private volatile int idleConnections;
+
+  @Override
+  public void connectionAcquired(long acquireNanos, boolean waited) {
+    requestCount.increment();
+    if (waited) {
+      hadToWaitCount.increment();
+    }
+    acquireTime.record(acquireNanos);
+  }
+
+  @Override
+  public void connectionReleased(long holdNanos) {
+    holdTime.record(holdNanos);
+  }
+
+  @Override
+  public void connectionCreated(long creationNanos) {
+    createdConnectionCount.increment();
+    creationTime.record(creationNanos);
+  }
+
+  @Override
+  public void badConnectionDiscarded() {
+    badConnectionCount.increment();
+  }
+
+  @Override
+  public void connectionLeakSuspected(long holdNanos, String lastStatementId, StackTraceElement[] borrowSite) {
+    suspectedLeakCount.increment();
+  }
+
+  void waitStarted() {
+    pendingRequests.incrementAndGet();
+  }
+
+  void waitEnded() {
+    pendingRequests.decrementAndGet();
+  }
+
+  void poolSizeChanged(int activeConnections, int idleConnections) {
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+  }
+
+  public long getRequestCount() {
+    return requestCount.sum();
+  }
+
+  public long getHadToWaitCount() {
+    return hadToWaitCount.sum();
+  }
+
+  public long getCreatedConnectionCount() {
+    return createdConnectionCount.sum();
+  }
+
+  public long getBadConnectionCount() {
+    return badConnectionCount.sum();
+  }
+
+  public long getSuspectedLeakCount() {
+    return suspectedLeakCount.sum();
+  }
+
+  /**
+   * Returns the distribution of the time spent in {@code getConnection()}.
+   *
+   * @return the acquire time histogram
+   */
+  public LatencyHistogram getAcquireTime() {
+    return acquireTime;
+  }
+
+  /**
+   * Returns the distribution of the time connections were checked out.
+   *
+   * @return the hold time histogram
+   */
+  public LatencyHistogram getHoldTime() {
+    return holdTime;
+  }
+
+  /**
+   * Returns the distribution of the time spent opening physical connections.
+   *
+   * @return the creation time histogram
+   */
+  public LatencyHistogram getCreationTime() {
+    return creationTime;
+  }
+
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  /**
+   * Returns the number of threads currently waiting for a connection because the pool is exhausted.
+   *
+   * @return the number of waiting threads
+   */
+  public int getPendingRequests() {
+    return pendingRequests.get();
+  }
+
+  @Override
+  public String toString() {
+    return "PoolMetrics [active=" + activeConnections + ", idle=" + idleConnections + ", pending="
+        + getPendingRequests() + ", requests=" + getRequestCount() + ", hadToWait=" + getHadToWaitCount()
+        + ", created=" + getCreatedConnectionCount() + ", bad=" + getBadConnectionCount() + ", suspectedLeaks="
+        + getSuspectedLeakCount() + ", acquireTime={" + acquireTime + "}, holdTime={" + holdTime
+        + "}, creationTime={" + creationTime + "}]";
+  }
+
+}
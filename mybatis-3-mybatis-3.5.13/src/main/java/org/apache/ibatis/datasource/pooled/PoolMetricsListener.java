@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives the events of a {@link PooledDataSource}, e.g. to feed them into a metrics registry.
+ * <p>
+ * Listeners are called on the thread using the pool, sometimes while the pool lock is held, so they must be fast and
+ * must not use the pool themselves. All durations are in nanoseconds.
+ *
+ * @since 3.5.14
+ *
+ * @see PooledDataSource#addPoolMetricsListener(PoolMetricsListener)
+ */
+public interface PoolMetricsListener {
+
+  /**
+   * Called when a connection was handed out.
+   *
+   * @param acquireNanos
+   *          the time spent in {@code getConnection()}, including waiting for a connection
+   * @param waited
+   *          whether the pool was exhausted and the caller had to wait
+   */
+  default void connectionAcquired(long acquireNanos, boolean waited) {
+  }
+
+  /**
+   * Called when a connection was returned to the pool.
+   *
+   * @param holdNanos
+   *          the time the connection was checked out
+   */
+  default void connectionReleased(long holdNanos) {
+  }
+
+  /**
+   * Called when a new physical connection was opened.
+   *
+   * @param creationNanos
+   *          the time spent opening the connection
+   */
+  default void connectionCreated(long creationNanos) {
+  }
+
+  /**
+   * Called when an invalid connection was discarded.
+   */
+  default void badConnectionDiscarded() {
+  }
+
+  /**
+   * Called when a connection was checked out for longer than the leak detection threshold.
+   *
+   * @param holdNanos
+   *          the time the connection has been checked out so far
+   * @param lastStatementId
+   *          the id of the last mapped statement executed on the connection, or {@code null}
+   * @param borrowSite
+   *          the stack of the thread that checked out the connection, or {@code null} if it was not sampled
+   *
+   * @see PooledDataSource#setPoolLeakDetectionThreshold(int)
+   */
+  default void connectionLeakSuspected(long holdNanos, String lastStatementId, StackTraceElement[] borrowSite) {
+  }
+
+}
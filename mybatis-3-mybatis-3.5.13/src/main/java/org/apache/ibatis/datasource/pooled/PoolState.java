@@ -108,6 +108,12 @@ public class PoolState {
         builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
         builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
         builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+        builder.append("\n poolMinIdleConnections         ").append(dataSource.poolMinimumIdleConnections);
+        builder.append("\n poolMaxLifetime                ").append(dataSource.poolMaximumLifetime);
+        builder.append("\n poolIdleTimeout                ").append(dataSource.poolIdleTimeout);
+        builder.append("\n poolHousekeepingPeriod         ").append(dataSource.poolHousekeepingPeriod);
+        builder.append("\n poolLeakDetectionThreshold     ").append(dataSource.poolLeakDetectionThreshold);
+        builder.append("\n poolPreparedStatementCacheSize ").append(dataSource.poolPreparedStatementCacheSize);
         builder.append("\n ---STATUS-----------------------------------------------------");
         builder.append("\n activeConnections              ").append(getActiveConnectionCount());
         builder.append("\n idleConnections                ").append(getIdleConnectionCount());
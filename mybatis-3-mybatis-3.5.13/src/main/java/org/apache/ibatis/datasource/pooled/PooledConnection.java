@@ -21,6 +21,7 @@ import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 
+import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
 /**
@@ -29,6 +30,7 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
     private static final String CLOSE = "close";
+    private static final String PREPARE_STATEMENT = "prepareStatement";
     private static final Class<?>[] IFACES = {Connection.class};
 
     private final int hashCode;
@@ -42,14 +44,25 @@ class PooledConnection implements InvocationHandler {
     //  记录从连接池中获取连接的时间戳
 //    这里估计是为了实现LRU？
     private long checkoutTimestamp;
+    //  记录从连接池中获取连接时的System.nanoTime()，用于统计持有时间
+    private long checkoutNanoTime;
     //  记录创建时间戳
     private long createdTimestamp;
     //  记录最后一次使用时间戳
     private long lastUsedTimestamp;
+    //  记录后台最后一次校验连接的时间戳
+    private long validatedTimestamp;
     //  记录连接的编号，由数据库URL、用户名和密码计算得到Hash值，用来标记当前连接归属于哪个PooledDataSource
     private int connectionTypeCode;
     //  标记是否有效，防止归还之后还被使用
     private boolean valid;
+    //  泄漏检测：借出连接的线程、借出时的调用栈（采样）、最后执行的MappedStatement id
+    private volatile String borrowThreadName;
+    private volatile Throwable borrowSite;
+    private volatile String lastStatementId;
+    private volatile boolean leakReported;
+    //  跨会话复用的PreparedStatement缓存，随真实连接在PooledConnection之间传递
+    private PreparedStatementCache statementCache;
 
     /**
      * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -173,6 +186,24 @@ class PooledConnection implements InvocationHandler {
         return System.currentTimeMillis() - lastUsedTimestamp;
     }
 
+    /**
+     * Setter for the time that the connection was last validated by the pool housekeeper.
+     *
+     * @param validatedTimestamp - the timestamp
+     */
+    public void setValidatedTimestamp(long validatedTimestamp) {
+        this.validatedTimestamp = validatedTimestamp;
+    }
+
+    /**
+     * Getter for the time since this connection was last validated by the pool housekeeper.
+     *
+     * @return - the time since the last validation
+     */
+    public long getTimeElapsedSinceLastValidation() {
+        return System.currentTimeMillis() - validatedTimestamp;
+    }
+
     /**
      * Getter for the age of the connection.
      *
@@ -200,6 +231,24 @@ class PooledConnection implements InvocationHandler {
         this.checkoutTimestamp = timestamp;
     }
 
+    /**
+     * Getter for the {@link System#nanoTime()} at which this connection was checked out.
+     *
+     * @return the nano time
+     */
+    public long getCheckoutNanoTime() {
+        return checkoutNanoTime;
+    }
+
+    /**
+     * Setter for the {@link System#nanoTime()} at which this connection was checked out.
+     *
+     * @param checkoutNanoTime the nano time
+     */
+    public void setCheckoutNanoTime(long checkoutNanoTime) {
+        this.checkoutNanoTime = checkoutNanoTime;
+    }
+
     /**
      * Getter for the time that this connection has been checked out.
      *
@@ -209,6 +258,76 @@ class PooledConnection implements InvocationHandler {
         return System.currentTimeMillis() - checkoutTimestamp;
     }
 
+    /**
+     * Getter for the name of the thread that checked out this connection (only recorded when leak detection is enabled).
+     *
+     * @return the thread name
+     */
+    public String getBorrowThreadName() {
+        return borrowThreadName;
+    }
+
+    /**
+     * Setter for the name of the thread that checked out this connection.
+     *
+     * @param borrowThreadName the thread name
+     */
+    public void setBorrowThreadName(String borrowThreadName) {
+        this.borrowThreadName = borrowThreadName;
+    }
+
+    /**
+     * Getter for the stack captured when this connection was checked out (only recorded for sampled checkouts when leak
+     * detection is enabled).
+     *
+     * @return the borrow site, or {@code null} if it was not captured
+     */
+    public Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    /**
+     * Setter for the stack captured when this connection was checked out.
+     *
+     * @param borrowSite the borrow site
+     */
+    public void setBorrowSite(Throwable borrowSite) {
+        this.borrowSite = borrowSite;
+    }
+
+    /**
+     * Getter for the id of the last mapped statement that created a statement on this connection (only recorded when
+     * leak detection is enabled).
+     *
+     * @return the statement id, or {@code null} if none was executed
+     */
+    public String getLastStatementId() {
+        return lastStatementId;
+    }
+
+    PreparedStatementCache getStatementCache() {
+        if (statementCache == null) {
+            statementCache = new PreparedStatementCache(dataSource.poolPreparedStatementCacheSize);
+        }
+        return statementCache;
+    }
+
+    PreparedStatementCache getStatementCacheIfPresent() {
+        return statementCache;
+    }
+
+    void setStatementCache(PreparedStatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    public boolean isLeakReported() {
+        return leakReported;
+    }
+
+    public void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
     @Override
     public int hashCode() {
         return hashCode;
@@ -256,6 +375,12 @@ class PooledConnection implements InvocationHandler {
                 // issue #579 toString() should never fail
                 // throw an SQLException instead of a Runtime
                 checkConnection();
+                if (dataSource.poolLeakDetectionThreshold > 0 && isStatementCreation(methodName)) {
+                    lastStatementId = ErrorContext.instance().getObject();
+                }
+                if (PREPARE_STATEMENT.equals(methodName) && dataSource.poolPreparedStatementCacheSize > 0) {
+                    return getStatementCache().prepare(realConnection, method, args);
+                }
             }
 //            调用代理的Connection对象的对应方法，真正获取连接的地方
             return method.invoke(realConnection, args);
@@ -264,6 +389,11 @@ class PooledConnection implements InvocationHandler {
         }
     }
 
+    private static boolean isStatementCreation(String methodName) {
+        return "prepareStatement".equals(methodName) || "createStatement".equals(methodName)
+            || "prepareCall".equals(methodName);
+    }
+
     private void checkConnection() throws SQLException {
         if (!valid) {
             throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
@@ -16,14 +16,21 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -32,6 +39,8 @@ import java.util.logging.Logger;
 import javax.sql.DataSource;
 
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.jfr.FlightRecorderEvents;
+import org.apache.ibatis.jfr.RecordedPhase;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -66,6 +75,14 @@ public class PooledDataSource implements DataSource {
     protected boolean poolPingEnabled;
 //    当连接超过poolPingConnectionsNotUsedFor毫秒没有事，就ping一下看看连接正常不正常
     protected int poolPingConnectionsNotUsedFor;
+    protected int poolMinimumIdleConnections;
+    protected int poolMaximumLifetime;
+    protected int poolIdleTimeout;
+    protected int poolHousekeepingPeriod;
+    protected int poolValidationTimeout = 5;
+    protected int poolLeakDetectionThreshold;
+    protected int poolLeakDetectionSampleRate = 1;
+    protected int poolPreparedStatementCacheSize;
 //    数据库URL+用户名+密码生成的Hash，标识了当前线程池。
     private int expectedConnectionTypeCode;
 
@@ -73,6 +90,11 @@ public class PooledDataSource implements DataSource {
     private final Lock lock = new ReentrantLock();
 //    条件变量
     private final Condition condition = lock.newCondition();
+    private ScheduledExecutorService housekeeper;
+    private int forceCloseAllCount;
+    private final PoolMetrics metrics = new PoolMetrics();
+    private final List<PoolMetricsListener> metricsListeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger leakDetectionCheckouts = new AtomicInteger();
 
     public PooledDataSource() {
         dataSource = new UnpooledDataSource();
@@ -265,6 +287,119 @@ public class PooledDataSource implements DataSource {
         forceCloseAll();
     }
 
+    /**
+     * The number of idle connections the housekeeper keeps open, creating connections as needed. Only effective when
+     * {@link #setPoolHousekeepingPeriod(int)} is set, and never exceeds the maximum number of idle connections.
+     *
+     * @param poolMinimumIdleConnections The minimum number of idle connections
+     * @since 3.5.14
+     */
+    public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+        this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+    }
+
+    /**
+     * The maximum time in milliseconds a connection is kept open after it was created. Older connections are closed when
+     * they are returned to the pool or found idle by the housekeeper. Default: 0 (unlimited).
+     *
+     * @param milliseconds The maximum lifetime of a connection
+     * @since 3.5.14
+     */
+    public void setPoolMaximumLifetime(int milliseconds) {
+        this.poolMaximumLifetime = milliseconds;
+    }
+
+    /**
+     * The time in milliseconds an idle connection is kept open before the housekeeper closes it, as long as more than
+     * the minimum number of idle connections remain. Default: 0 (never).
+     *
+     * @param milliseconds The idle timeout
+     * @since 3.5.14
+     */
+    public void setPoolIdleTimeout(int milliseconds) {
+        this.poolIdleTimeout = milliseconds;
+    }
+
+    /**
+     * How often in milliseconds a background thread validates idle connections, closes expired ones and creates
+     * connections up to the minimum number of idle connections. Connections validated by the housekeeper are not pinged
+     * again when they are checked out within {@link #setPoolPingConnectionsNotUsedFor(int)}. Default: 0 (disabled).
+     *
+     * @param milliseconds The housekeeping period
+     * @since 3.5.14
+     */
+    public void setPoolHousekeepingPeriod(int milliseconds) {
+        lock.lock();
+        try {
+            this.poolHousekeepingPeriod = milliseconds;
+            if (housekeeper != null) {
+                housekeeper.shutdownNow();
+                housekeeper = null;
+            }
+            if (milliseconds > 0) {
+                housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                housekeeper.scheduleWithFixedDelay(new Housekeeping(this, housekeeper), milliseconds, milliseconds,
+                    TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of seconds to wait for {@link Connection#isValid(int)} when the housekeeper validates a connection.
+     * Default: 5.
+     *
+     * @param seconds The validation timeout
+     * @since 3.5.14
+     */
+    public void setPoolValidationTimeout(int seconds) {
+        this.poolValidationTimeout = seconds;
+    }
+
+    /**
+     * Enables leak detection: connections checked out for longer than this many milliseconds are reported with the
+     * thread and the stack that checked them out and the id of the last mapped statement executed on them. They are
+     * reported when returned, when reclaimed as overdue and, if {@link #setPoolHousekeepingPeriod(int)} is set, while
+     * still checked out. Default: 0 (disabled).
+     *
+     * @param milliseconds The leak detection threshold
+     * @since 3.5.14
+     */
+    public void setPoolLeakDetectionThreshold(int milliseconds) {
+        this.poolLeakDetectionThreshold = milliseconds;
+    }
+
+    /**
+     * Captures the borrow stack for one in this many checkouts when leak detection is enabled, to limit its cost under
+     * load. Leaks from checkouts without a stack are still reported with their thread and last statement. Default: 1
+     * (every checkout).
+     *
+     * @param sampleRate The stack sampling rate
+     * @since 3.5.14
+     */
+    public void setPoolLeakDetectionSampleRate(int sampleRate) {
+        this.poolLeakDetectionSampleRate = sampleRate;
+    }
+
+    /**
+     * The maximum number of prepared statements cached per connection. Statements are cached by SQL, result set type,
+     * concurrency, holdability and generated keys mode, and are kept while the connection stays in the pool, so they
+     * are reused across sessions. Useful with drivers that do not cache prepared statements themselves. Default: 0
+     * (disabled).
+     *
+     * @param poolPreparedStatementCacheSize The maximum number of cached statements per connection
+     * @since 3.5.14
+     */
+    public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+        this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+        forceCloseAll();
+    }
+
     public String getDriver() {
         return dataSource.getDriver();
     }
@@ -335,12 +470,45 @@ public class PooledDataSource implements DataSource {
         return poolPingConnectionsNotUsedFor;
     }
 
+    public int getPoolMinimumIdleConnections() {
+        return poolMinimumIdleConnections;
+    }
+
+    public int getPoolMaximumLifetime() {
+        return poolMaximumLifetime;
+    }
+
+    public int getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+
+    public int getPoolHousekeepingPeriod() {
+        return poolHousekeepingPeriod;
+    }
+
+    public int getPoolValidationTimeout() {
+        return poolValidationTimeout;
+    }
+
+    public int getPoolPreparedStatementCacheSize() {
+        return poolPreparedStatementCacheSize;
+    }
+
+    public int getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+
+    public int getPoolLeakDetectionSampleRate() {
+        return poolLeakDetectionSampleRate;
+    }
+
     /**
      * Closes all active and idle connections in the pool.
      */
     public void forceCloseAll() {
         lock.lock();
         try {
+            forceCloseAllCount++;
             expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(),
                 dataSource.getPassword());
             for (int i = state.activeConnections.size(); i > 0; i--) {
@@ -371,6 +539,7 @@ public class PooledDataSource implements DataSource {
                     // ignore
                 }
             }
+            updatePoolSize();
         } finally {
             lock.unlock();
         }
@@ -383,21 +552,52 @@ public class PooledDataSource implements DataSource {
         return state;
     }
 
+    /**
+     * Returns the lock-free metrics of this pool.
+     *
+     * @return the pool metrics
+     * @since 3.5.14
+     */
+    public PoolMetrics getPoolMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers a listener notified of connection checkouts, returns, creations and discarded bad connections.
+     *
+     * @param listener the listener
+     * @since 3.5.14
+     */
+    public void addPoolMetricsListener(PoolMetricsListener listener) {
+        metricsListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addPoolMetricsListener(PoolMetricsListener)}.
+     *
+     * @param listener the listener
+     * @since 3.5.14
+     */
+    public void removePoolMetricsListener(PoolMetricsListener listener) {
+        metricsListeners.remove(listener);
+    }
+
     private int assembleConnectionTypeCode(String url, String username, String password) {
         return ("" + url + username + password).hashCode();
     }
 
     protected void pushConnection(PooledConnection conn) throws SQLException {
+        boolean released;
 //        先上个锁
         lock.lock();
         try {
 //            把连接从连接状态里面移除
-            state.activeConnections.remove(conn);
+            released = state.activeConnections.remove(conn);
 //            判断连接是不是还有效
             if (conn.isValid()) {
 //                判断空闲连接数是不是小于最大空闲连接数，而且连接类型是不是和预期的一样
                 if (state.idleConnections.size() < poolMaximumIdleConnections
-                    && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+                    && conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
                     state.accumulatedCheckoutTime += conn.getCheckoutTime();
 //                    如果没有自动提交，就回滚一下
                     if (!conn.getRealConnection().getAutoCommit()) {
@@ -405,6 +605,7 @@ public class PooledDataSource implements DataSource {
                     }
 //                    创建一个把PooledConnection中真实的连接取出来，其他存储的内容不要了，然后加入空闲连接池
                     PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+                    newConn.setStatementCache(conn.getStatementCacheIfPresent());
 //                    加到空闲状态中
                     state.idleConnections.add(newConn);
                     newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
@@ -433,10 +634,22 @@ public class PooledDataSource implements DataSource {
                         + ") attempted to return to the pool, discarding connection.");
                 }
                 state.badConnectionCount++;
+                fireBadConnectionDiscarded();
             }
+            updatePoolSize();
         } finally {
             lock.unlock();
         }
+        if (released) {
+            long holdNanos = System.nanoTime() - conn.getCheckoutNanoTime();
+            metrics.connectionReleased(holdNanos);
+            for (PoolMetricsListener listener : metricsListeners) {
+                listener.connectionReleased(holdNanos);
+            }
+            if (isLeakSuspected(conn)) {
+                reportLeak(conn, "was returned");
+            }
+        }
     }
 
     /**
@@ -449,7 +662,9 @@ public class PooledDataSource implements DataSource {
         boolean countedWait = false;
         PooledConnection conn = null;
         long t = System.currentTimeMillis();
+        long started = System.nanoTime();
         int localBadConnectionCount = 0;
+        RecordedPhase phase = FlightRecorderEvents.connectionAcquire(dataSource.getUrl());
 //        如果没有连接
         while (conn == null) {
 //            加个锁，因为等会要访问连接池，这里要保证只有一个人可以从池子里面拿，要不然可能会导致两个人拿到同一个
@@ -466,7 +681,7 @@ public class PooledDataSource implements DataSource {
 //                    已经没有空闲连接咯，但是有活跃连接小于最大活跃连接，可以新建活跃连接。
                 } else if (state.activeConnections.size() < poolMaximumActiveConnections) {
                     // Pool does not have available connection and can create a new connection
-                    conn = new PooledConnection(dataSource.getConnection(), this);
+                    conn = createConnection();
                     if (log.isDebugEnabled()) {
                         log.debug("Created connection " + conn.getRealHashCode() + ".");
                     }
@@ -497,7 +712,11 @@ public class PooledDataSource implements DataSource {
                                 log.debug("Bad connection. Could not roll back");
                             }
                         }
+                        if (isLeakSuspected(oldestActiveConnection)) {
+                            reportLeak(oldestActiveConnection, "was reclaimed as overdue");
+                        }
                         conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+                        conn.setStatementCache(oldestActiveConnection.getStatementCacheIfPresent());
                         conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
                         conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
 //                        将超时连接设置成无效
@@ -519,7 +738,12 @@ public class PooledDataSource implements DataSource {
                             }
                             long wt = System.currentTimeMillis();
 //                            阻塞等待
-                            condition.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                            metrics.waitStarted();
+                            try {
+                                condition.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                            } finally {
+                                metrics.waitEnded();
+                            }
 //                            判断等待的时间
                             state.accumulatedWaitTime += System.currentTimeMillis() - wt;
                         } catch (InterruptedException e) {
@@ -538,8 +762,10 @@ public class PooledDataSource implements DataSource {
                         }
                         conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
                         conn.setCheckoutTimestamp(System.currentTimeMillis());
+                        conn.setCheckoutNanoTime(System.nanoTime());
                         conn.setLastUsedTimestamp(System.currentTimeMillis());
                         state.activeConnections.add(conn);
+                        updatePoolSize();
                         state.requestCount++;
                         state.accumulatedRequestTime += System.currentTimeMillis() - t;
                     } else {
@@ -548,6 +774,7 @@ public class PooledDataSource implements DataSource {
                                 + ") was returned from the pool, getting another connection.");
                         }
                         state.badConnectionCount++;
+                        fireBadConnectionDiscarded();
                         localBadConnectionCount++;
                         conn = null;
                         if (localBadConnectionCount > poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance) {
@@ -572,9 +799,46 @@ public class PooledDataSource implements DataSource {
                 "PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
         }
 
+        phase.setWaited(countedWait);
+        phase.setBadConnectionCount(localBadConnectionCount);
+        phase.commit();
+        long acquireNanos = System.nanoTime() - started;
+        metrics.connectionAcquired(acquireNanos, countedWait);
+        for (PoolMetricsListener listener : metricsListeners) {
+            listener.connectionAcquired(acquireNanos, countedWait);
+        }
+        if (poolLeakDetectionThreshold > 0) {
+            conn.setBorrowThreadName(Thread.currentThread().getName());
+            if (leakDetectionCheckouts.getAndIncrement() % Math.max(1, poolLeakDetectionSampleRate) == 0) {
+                conn.setBorrowSite(new Throwable("Connection checked out here"));
+            }
+        }
+        return conn;
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        long started = System.nanoTime();
+        PooledConnection conn = new PooledConnection(dataSource.getConnection(), this);
+        long creationNanos = System.nanoTime() - started;
+        metrics.connectionCreated(creationNanos);
+        for (PoolMetricsListener listener : metricsListeners) {
+            listener.connectionCreated(creationNanos);
+        }
         return conn;
     }
 
+    private void fireBadConnectionDiscarded() {
+        metrics.badConnectionDiscarded();
+        for (PoolMetricsListener listener : metricsListeners) {
+            listener.badConnectionDiscarded();
+        }
+    }
+
+    // must be called while holding the lock
+    private void updatePoolSize() {
+        metrics.poolSizeChanged(state.activeConnections.size(), state.idleConnections.size());
+    }
+
     /**
      * Method to check to see if a connection is still usable
      *
@@ -594,7 +858,8 @@ public class PooledDataSource implements DataSource {
         }
 //        如果当前连接没有被关闭，而且开启了ping功能，而且连接没有被使用超过poolPingConnectionsNotUsedFor毫秒
         if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
-            && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+            && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor
+            && conn.getTimeElapsedSinceLastValidation() > poolPingConnectionsNotUsedFor) {
             try {
                 if (log.isDebugEnabled()) {
                     log.debug("Testing connection " + conn.getRealHashCode() + " ...");
@@ -629,6 +894,218 @@ public class PooledDataSource implements DataSource {
         return result;
     }
 
+    /**
+     * Validates an idle connection in the background, preferring {@link Connection#isValid(int)} and falling back to the
+     * ping query for drivers that do not implement it.
+     *
+     * @param conn - the connection to check
+     * @return True if the connection is still usable
+     * @since 3.5.14
+     */
+    protected boolean validateConnection(PooledConnection conn) {
+        try {
+            return conn.getRealConnection().isValid(poolValidationTimeout);
+        } catch (SQLException | AbstractMethodError e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Connection " + conn.getRealHashCode() + " does not support isValid(), pinging: " + e);
+            }
+            conn.setValidatedTimestamp(0);
+            return pingConnection(conn);
+        }
+    }
+
+    /**
+     * Validates the idle connections, closes broken, expired and timed out ones and creates connections up to the
+     * minimum number of idle connections. Runs on the housekeeping thread, taking one connection at a time out of the
+     * pool so that borrowers are never blocked by a validation.
+     *
+     * @since 3.5.14
+     */
+    protected void housekeep() {
+        checkLeaks();
+        List<PooledConnection> candidates;
+        lock.lock();
+        try {
+            candidates = new ArrayList<>(state.idleConnections);
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection conn : candidates) {
+            int generation;
+            lock.lock();
+            try {
+                // skip connections that were checked out in the meantime
+                if (!state.idleConnections.remove(conn)) {
+                    continue;
+                }
+                generation = forceCloseAllCount;
+            } finally {
+                lock.unlock();
+            }
+            boolean keep;
+            if (isExpired(conn)) {
+                keep = false;
+            } else if (poolIdleTimeout > 0 && conn.getTimeElapsedSinceLastUse() > poolIdleTimeout
+                && getIdleCount() + 1 > poolMinimumIdleConnections) {
+                keep = false;
+            } else if (validateConnection(conn)) {
+                conn.setValidatedTimestamp(System.currentTimeMillis());
+                keep = true;
+            } else {
+                keep = false;
+                lock.lock();
+                try {
+                    state.badConnectionCount++;
+                    fireBadConnectionDiscarded();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            lock.lock();
+            try {
+                if (keep && generation == forceCloseAllCount
+                    && state.idleConnections.size() < poolMaximumIdleConnections) {
+                    state.idleConnections.add(conn);
+                    condition.signal();
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+            closeQuietly(conn);
+        }
+        fillIdleConnections();
+        lock.lock();
+        try {
+            updatePoolSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fillIdleConnections() {
+        int minimumIdle = Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections);
+        while (true) {
+            int generation;
+            lock.lock();
+            try {
+                generation = forceCloseAllCount;
+                if (state.idleConnections.size() >= minimumIdle
+                    || state.idleConnections.size() + state.activeConnections.size() >= poolMaximumActiveConnections) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            PooledConnection conn;
+            try {
+                conn = createConnection();
+            } catch (SQLException e) {
+                log.warn("Could not create an idle connection: " + e.getMessage());
+                return;
+            }
+            conn.setValidatedTimestamp(System.currentTimeMillis());
+            lock.lock();
+            try {
+                if (generation == forceCloseAllCount && state.idleConnections.size() < minimumIdle) {
+                    conn.setConnectionTypeCode(expectedConnectionTypeCode);
+                    state.idleConnections.add(conn);
+                    condition.signal();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+                    }
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+            closeQuietly(conn);
+            return;
+        }
+    }
+
+    /**
+     * Reports the connections that are checked out for longer than the leak detection threshold. Each connection is
+     * reported at most once per checkout.
+     *
+     * @since 3.5.14
+     */
+    protected void checkLeaks() {
+        if (poolLeakDetectionThreshold <= 0) {
+            return;
+        }
+        List<PooledConnection> suspects = new ArrayList<>();
+        lock.lock();
+        try {
+            for (PooledConnection conn : state.activeConnections) {
+                if (isLeakSuspected(conn)) {
+                    conn.setLeakReported(true);
+                    suspects.add(conn);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection conn : suspects) {
+            reportLeak(conn, "is still checked out");
+        }
+    }
+
+    private boolean isLeakSuspected(PooledConnection conn) {
+        return poolLeakDetectionThreshold > 0 && !conn.isLeakReported()
+            && conn.getCheckoutTime() > poolLeakDetectionThreshold;
+    }
+
+    private void reportLeak(PooledConnection conn, String status) {
+        conn.setLeakReported(true);
+        long holdNanos = System.nanoTime() - conn.getCheckoutNanoTime();
+        Throwable borrowSite = conn.getBorrowSite();
+        StringBuilder message = new StringBuilder();
+        message.append("Possible connection leak: connection ").append(conn.getRealHashCode()).append(' ')
+            .append(status).append(" after ").append(TimeUnit.NANOSECONDS.toMillis(holdNanos))
+            .append(" ms (threshold ").append(poolLeakDetectionThreshold).append(" ms). Checked out by thread '")
+            .append(conn.getBorrowThreadName()).append("', last statement '").append(conn.getLastStatementId())
+            .append("'.");
+        if (borrowSite == null) {
+            message.append(" The checkout stack was not sampled.");
+        } else {
+            for (StackTraceElement element : borrowSite.getStackTrace()) {
+                message.append(System.lineSeparator()).append("\tat ").append(element);
+            }
+        }
+        log.warn(message.toString());
+        StackTraceElement[] stack = borrowSite == null ? null : borrowSite.getStackTrace();
+        metrics.connectionLeakSuspected(holdNanos, conn.getLastStatementId(), stack);
+        for (PoolMetricsListener listener : metricsListeners) {
+            listener.connectionLeakSuspected(holdNanos, conn.getLastStatementId(), stack);
+        }
+    }
+
+    private int getIdleCount() {
+        lock.lock();
+        try {
+            return state.idleConnections.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(PooledConnection conn) {
+        return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime;
+    }
+
+    private void closeQuietly(PooledConnection conn) {
+        conn.invalidate();
+        try {
+            conn.getRealConnection().close();
+        } catch (SQLException e) {
+            // ignore
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Closed idle connection " + conn.getRealHashCode() + ".");
+        }
+    }
+
     /**
      * Unwraps a pooled connection to get to the 'real' connection
      *
@@ -647,6 +1124,9 @@ public class PooledDataSource implements DataSource {
 
     @Override
     protected void finalize() throws Throwable {
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
         forceCloseAll();
         super.finalize();
     }
@@ -666,4 +1146,33 @@ public class PooledDataSource implements DataSource {
         return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
     }
 
+    /**
+     * Holds the data source weakly so that a pool that is no longer referenced can still be collected, stopping the
+     * housekeeping thread.
+     */
+    private static class Housekeeping implements Runnable {
+
+        private final WeakReference<PooledDataSource> dataSource;
+        private final ScheduledExecutorService executor;
+
+        Housekeeping(PooledDataSource dataSource, ScheduledExecutorService executor) {
+            this.dataSource = new WeakReference<>(dataSource);
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            PooledDataSource pool = dataSource.get();
+            if (pool == null) {
+                executor.shutdown();
+                return;
+            }
+            try {
+                pool.housekeep();
+            } catch (RuntimeException e) {
+                log.warn("Pool housekeeping failed: " + e.getMessage());
+            }
+        }
+    }
+
 }
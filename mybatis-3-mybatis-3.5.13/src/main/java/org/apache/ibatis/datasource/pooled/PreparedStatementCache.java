@@ -0,0 +1,230 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A bounded LRU cache of the prepared statements of one physical connection. It is carried over from one
+ * {@link PooledConnection} to the next wrapping the same connection, so statements are reused across sessions.
+ * <p>
+ * A statement is removed from the cache while it is in use, so two statements with the same SQL can be open at the same
+ * time (e.g. for nested selects). Closing the statement handed out to the caller resets it and puts it back instead of
+ * closing it; statements evicted from the cache are closed.
+ *
+ * @since 3.5.14
+ */
+class PreparedStatementCache {
+
+  private static final Class<?>[] IFACES = { PreparedStatement.class };
+
+  private final int maxSize;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long hits;
+  private long misses;
+
+  PreparedStatementCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns a cached statement for the given {@code prepareStatement} call on the connection, or prepares a new one.
+   *
+   * @param connection
+   *          the physical connection
+   * @param method
+   *          one of the {@code Connection.prepareStatement} methods
+   * @param args
+   *          the arguments of the call; the first one is the SQL
+   *
+   * @return a statement whose {@code close()} returns it to this cache
+   *
+   * @throws Throwable
+   *           if the statement could not be prepared
+   */
+  PreparedStatement prepare(Connection connection, Method method, Object[] args) throws Throwable {
+    Key key = new Key(args);
+    Entry entry;
+    synchronized (this) {
+      entry = entries.remove(key);
+      if (entry != null) {
+        hits++;
+      } else {
+        misses++;
+      }
+    }
+    if (entry != null && entry.statement.isClosed()) {
+      entry = null;
+    }
+    if (entry == null) {
+      PreparedStatement statement;
+      try {
+        statement = (PreparedStatement) method.invoke(connection, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+      try {
+        entry = new Entry(statement);
+      } catch (SQLException e) {
+        statement.close();
+        throw e;
+      }
+    }
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES,
+        new CachedStatement(this, key, entry));
+  }
+
+  void release(Key key, Entry entry) {
+    try {
+      entry.reset();
+    } catch (SQLException e) {
+      closeQuietly(entry);
+      return;
+    }
+    Entry displaced;
+    Entry evicted = null;
+    synchronized (this) {
+      displaced = entries.put(key, entry);
+      if (entries.size() > maxSize) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        evicted = iterator.next();
+        iterator.remove();
+      }
+    }
+    if (displaced != null) {
+      closeQuietly(displaced);
+    }
+    if (evicted != null) {
+      closeQuietly(evicted);
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  private static void closeQuietly(Entry entry) {
+    try {
+      entry.statement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  static class Key {
+    private final Object[] args;
+    private final int hashCode;
+
+    Key(Object[] args) {
+      this.args = args.clone();
+      this.hashCode = Arrays.deepHashCode(this.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.deepEquals(args, ((Key) obj).args);
+    }
+  }
+
+  static class Entry {
+    private final PreparedStatement statement;
+    private final int fetchSize;
+    private final int queryTimeout;
+    private final int maxRows;
+
+    Entry(PreparedStatement statement) throws SQLException {
+      this.statement = statement;
+      this.fetchSize = statement.getFetchSize();
+      this.queryTimeout = statement.getQueryTimeout();
+      this.maxRows = statement.getMaxRows();
+    }
+
+    void reset() throws SQLException {
+      ResultSet resultSet = statement.getResultSet();
+      if (resultSet != null) {
+        resultSet.close();
+      }
+      statement.clearParameters();
+      statement.clearBatch();
+      statement.clearWarnings();
+      statement.setFetchSize(fetchSize);
+      statement.setQueryTimeout(queryTimeout);
+      statement.setMaxRows(maxRows);
+    }
+  }
+
+  private static class CachedStatement implements InvocationHandler {
+    private final PreparedStatementCache cache;
+    private final Key key;
+    private final Entry entry;
+    private boolean closed;
+
+    CachedStatement(PreparedStatementCache cache, Key key, Entry entry) {
+      this.cache = cache;
+      this.key = key;
+      this.entry = entry;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+      if ("close".equals(methodName)) {
+        if (!closed) {
+          closed = true;
+          cache.release(key, entry);
+        }
+        return null;
+      }
+      if ("isClosed".equals(methodName)) {
+        return closed || entry.statement.isClosed();
+      }
+      if (closed && !Object.class.equals(method.getDeclaringClass())) {
+        throw new SQLException("Statement is closed.");
+      }
+      try {
+        return method.invoke(entry.statement, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+  }
+
+}
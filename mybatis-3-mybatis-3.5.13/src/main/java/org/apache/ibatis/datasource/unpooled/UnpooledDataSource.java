@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -45,6 +46,8 @@ public class UnpooledDataSource implements DataSource {
 //    已注册的驱动
     private static final Map<String, Driver> registeredDrivers = new ConcurrentHashMap<>();
 
+//    保护驱动的读写和注册，不使用synchronized以免阻塞虚拟线程的载体线程
+    private final ReentrantLock lock = new ReentrantLock();
 //    连接驱动
     private String driver;
 //    连接地址
@@ -146,12 +149,22 @@ public class UnpooledDataSource implements DataSource {
         this.driverProperties = driverProperties;
     }
 
-    public synchronized String getDriver() {
-        return driver;
+    public String getDriver() {
+        lock.lock();
+        try {
+            return driver;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void setDriver(String driver) {
-        this.driver = driver;
+    public void setDriver(String driver) {
+        lock.lock();
+        try {
+            this.driver = driver;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public String getUrl() {
@@ -248,28 +261,33 @@ public class UnpooledDataSource implements DataSource {
         return connection;
     }
 
-    private synchronized void initializeDriver() throws SQLException {
-//        判断一下是否已经注册过驱动了
-        if (!registeredDrivers.containsKey(driver)) {
-            Class<?> driverType;
-            try {
-//                如果有类加载器，就用对应类加载器加载驱动
-                if (driverClassLoader != null) {
-                    driverType = Class.forName(driver, true, driverClassLoader);
-                } else {
-//                    没有就用Resources类加载器加载驱动
-                    driverType = Resources.classForName(driver);
+    private void initializeDriver() throws SQLException {
+        lock.lock();
+        try {
+//            判断一下是否已经注册过驱动了
+            if (!registeredDrivers.containsKey(driver)) {
+                Class<?> driverType;
+                try {
+//                    如果有类加载器，就用对应类加载器加载驱动
+                    if (driverClassLoader != null) {
+                        driverType = Class.forName(driver, true, driverClassLoader);
+                    } else {
+//                        没有就用Resources类加载器加载驱动
+                        driverType = Resources.classForName(driver);
+                    }
+                    // DriverManager requires the driver to be loaded via the system ClassLoader.
+                    // https://www.kfu.com/~nsayer/Java/dyn-jdbc.html
+//                    从前是用直接driverType.newInstance()来创建驱动的，但是这个方法已经被废弃了，所以用下面的方法来创建驱动
+                    Driver driverInstance = (Driver) driverType.getDeclaredConstructor().newInstance();
+                    DriverManager.registerDriver(new DriverProxy(driverInstance));
+//                    添加到registeredDrivers里面
+                    registeredDrivers.put(driver, driverInstance);
+                } catch (Exception e) {
+                    throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
                 }
-                // DriverManager requires the driver to be loaded via the system ClassLoader.
-                // https://www.kfu.com/~nsayer/Java/dyn-jdbc.html
-//                从前是用直接driverType.newInstance()来创建驱动的，但是这个方法已经被废弃了，所以用下面的方法来创建驱动
-                Driver driverInstance = (Driver) driverType.getDeclaredConstructor().newInstance();
-                DriverManager.registerDriver(new DriverProxy(driverInstance));
-//                添加到registeredDrivers里面
-                registeredDrivers.put(driver, driverInstance);
-            } catch (Exception e) {
-                throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
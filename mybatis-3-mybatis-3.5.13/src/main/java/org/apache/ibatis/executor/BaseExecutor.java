@@ -24,9 +24,12 @@ import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CacheStatsCounter;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.statement.StatementUtil;
+import org.apache.ibatis.jfr.FlightRecorderEvents;
+import org.apache.ibatis.jfr.RecordedPhase;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.logging.jdbc.ConnectionLogger;
@@ -61,6 +64,8 @@ public abstract class BaseExecutor implements Executor {
 
   protected int queryStack;
   private boolean closed;
+  private final LocalCacheTracker localCacheTracker;
+  private final CacheStatsCounter localCacheStats;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
@@ -69,6 +74,9 @@ public abstract class BaseExecutor implements Executor {
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
     this.closed = false;
     this.configuration = configuration;
+    this.localCacheTracker = LocalCacheTracker.of(configuration);
+    this.localCacheStats = configuration != null && configuration.isCacheStatsEnabled()
+        ? configuration.getLocalCacheStatsCounter() : null;
     this.wrapper = this;
   }
 
@@ -96,6 +104,9 @@ public abstract class BaseExecutor implements Executor {
     } finally {
       transaction = null;
       deferredLoads = null;
+      if (localCache != null && localCacheStats != null) {
+        localCacheStats.recordEvictions(localCache.getSize());
+      }
       localCache = null;
       localOutputParameterCache = null;
       closed = true;
@@ -153,8 +164,17 @@ public abstract class BaseExecutor implements Executor {
       queryStack++;
       list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;
       if (list != null) {
+        if (localCacheStats != null) {
+          localCacheStats.recordHit();
+        }
+        if (localCacheTracker != null) {
+          localCacheTracker.touch(key);
+        }
         handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
       } else {
+        if (resultHandler == null && localCacheStats != null) {
+          localCacheStats.recordMiss();
+        }
         list = queryFromDatabase(ms, parameter, rowBounds, resultHandler, key, boundSql);
       }
     } finally {
@@ -169,6 +189,8 @@ public abstract class BaseExecutor implements Executor {
       if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
         // issue #482
         clearLocalCache();
+      } else if (localCacheTracker != null) {
+        trimLocalCache();
       }
     }
     return list;
@@ -265,7 +287,13 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public void clearLocalCache() {
     if (!closed) {
+      if (localCacheStats != null) {
+        localCacheStats.recordEvictions(localCache.getSize());
+      }
       localCache.clear();
+      if (localCacheTracker != null) {
+        localCacheTracker.clear();
+      }
       localOutputParameterCache.clear();
     }
   }
@@ -325,16 +353,38 @@ public abstract class BaseExecutor implements Executor {
     }
   }
 
+  private void trimLocalCache() {
+    List<Object> evicted = localCacheTracker.trim();
+    for (Object key : evicted) {
+      localCache.removeObject(key);
+      localOutputParameterCache.removeObject(key);
+    }
+    if (localCacheStats != null) {
+      localCacheStats.recordEvictions(evicted.size());
+    }
+  }
+
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds,
       ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
     List<E> list;
+    RecordedPhase phase = FlightRecorderEvents.query(ms.getId());
+    long start = System.nanoTime();
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
     try {
       list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
     } finally {
       localCache.removeObject(key);
     }
+    phase.setRows(list.size());
+    phase.commit();
     localCache.putObject(key, list);
+    if (localCacheStats != null) {
+      localCacheStats.recordLoad(System.nanoTime() - start);
+      localCacheStats.recordPut(key, list);
+    }
+    if (localCacheTracker != null) {
+      localCacheTracker.put(key, list);
+    }
     if (ms.getStatementType() == StatementType.CALLABLE) {
       localOutputParameterCache.putObject(key, parameter);
     }
@@ -17,9 +17,11 @@ package org.apache.ibatis.executor;
 
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -44,6 +46,7 @@ public class BatchExecutor extends BaseExecutor {
 
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final List<MultiRowInsert> multiRowInsertList = new ArrayList<>();
   private String currentSql;
   private MappedStatement currentStatement;
 
@@ -61,19 +64,36 @@ public class BatchExecutor extends BaseExecutor {
     final Statement stmt;
     if (sql.equals(currentSql) && ms.equals(currentStatement)) {
       int last = statementList.size() - 1;
+      BatchResult batchResult = batchResultList.get(last);
+      MultiRowInsert multiRowInsert = multiRowInsertList.get(last);
+      if (multiRowInsert != null) {
+        multiRowInsert.add(handler, getConnection(ms.getStatementLog()));
+        batchResult.addParameterObject(parameterObject);
+        return BATCH_UPDATE_RETURN_VALUE;
+      }
       stmt = statementList.get(last);
       applyTransactionTimeout(stmt);
       handler.parameterize(stmt);// fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
       batchResult.addParameterObject(parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      handler.parameterize(stmt); // fix Issues 322
+      MultiRowInsert multiRowInsert = configuration.getMultiRowInsertSize() > 1 ? MultiRowInsert.of(ms, sql) : null;
+      if (multiRowInsert != null) {
+        // the rows are bound now and prepared when flushed, several rows per statement
+        multiRowInsert.add(handler, getConnection(ms.getStatementLog()));
+        stmt = null;
+      } else {
+        Connection connection = getConnection(ms.getStatementLog());
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        handler.parameterize(stmt); // fix Issues 322
+      }
       currentSql = sql;
       currentStatement = ms;
       statementList.add(stmt);
+      multiRowInsertList.add(multiRowInsert);
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      if (multiRowInsert != null) {
+        return BATCH_UPDATE_RETURN_VALUE;
+      }
     }
     handler.batch(stmt);
     return BATCH_UPDATE_RETURN_VALUE;
@@ -119,9 +139,20 @@ public class BatchExecutor extends BaseExecutor {
         return Collections.emptyList();
       }
       for (int i = 0, n = statementList.size(); i < n; i++) {
+        BatchResult batchResult = batchResultList.get(i);
+        MultiRowInsert multiRowInsert = multiRowInsertList.get(i);
+        if (multiRowInsert != null) {
+          try {
+            batchResult.setUpdateCounts(executeMultiRowInsert(multiRowInsert));
+          } catch (SQLException e) {
+            throw new BatchExecutorException(failureMessage(batchResult, i), new BatchUpdateException(e.getMessage(),
+                e.getSQLState(), e.getErrorCode(), new int[0], e), results, batchResult);
+          }
+          results.add(batchResult);
+          continue;
+        }
         Statement stmt = statementList.get(i);
         applyTransactionTimeout(stmt);
-        BatchResult batchResult = batchResultList.get(i);
         try {
           batchResult.setUpdateCounts(stmt.executeBatch());
           MappedStatement ms = batchResult.getMappedStatement();
@@ -138,14 +169,7 @@ public class BatchExecutor extends BaseExecutor {
           // Close statement to close cursor #1109
           closeStatement(stmt);
         } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId()).append(" (batch index #").append(i + 1).append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ").append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+          throw new BatchExecutorException(failureMessage(batchResult, i), e, results, batchResult);
         }
         results.add(batchResult);
       }
@@ -156,8 +180,51 @@ public class BatchExecutor extends BaseExecutor {
       }
       currentSql = null;
       statementList.clear();
+      multiRowInsertList.clear();
       batchResultList.clear();
     }
   }
 
+  private int[] executeMultiRowInsert(MultiRowInsert multiRowInsert) throws SQLException {
+    MappedStatement ms = multiRowInsert.getMappedStatement();
+    Configuration configuration = ms.getConfiguration();
+    int chunkSize = configuration.getMultiRowInsertSize();
+    int[] updateCounts = new int[multiRowInsert.size()];
+    for (int from = 0; from < multiRowInsert.size(); from += chunkSize) {
+      int to = Math.min(from + chunkSize, multiRowInsert.size());
+      BoundSql boundSql = new BoundSql(configuration, multiRowInsert.getSql(to - from), Collections.emptyList(), null);
+      StatementHandler handler = configuration.newStatementHandler(this, ms, null, RowBounds.DEFAULT, null, boundSql);
+      Statement stmt = handler.prepare(getConnection(ms.getStatementLog()), transaction.getTimeout());
+      try {
+        PreparedStatement ps = (PreparedStatement) stmt;
+        multiRowInsert.parameterize(ps, from, to);
+        ps.execute();
+        Arrays.fill(updateCounts, from, to, ps.getUpdateCount() == to - from ? 1 : Statement.SUCCESS_NO_INFO);
+        KeyGenerator keyGenerator = ms.getKeyGenerator();
+        if (keyGenerator instanceof Jdbc3KeyGenerator) {
+          List<Object> parameterObjects = new ArrayList<>(to - from);
+          for (int i = from; i < to; i++) {
+            parameterObjects.add(multiRowInsert.getParameterObject(i));
+          }
+          // the generated keys are returned in the order of the rows
+          ((Jdbc3KeyGenerator) keyGenerator).processBatch(ms, stmt, parameterObjects);
+        }
+      } finally {
+        closeStatement(stmt);
+      }
+    }
+    return updateCounts;
+  }
+
+  private String failureMessage(BatchResult batchResult, int index) {
+    StringBuilder message = new StringBuilder();
+    message.append(batchResult.getMappedStatement().getId()).append(" (batch index #").append(index + 1).append(")")
+        .append(" failed.");
+    if (index > 0) {
+      message.append(" ").append(index)
+          .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+    }
+    return message.toString();
+  }
+
 }
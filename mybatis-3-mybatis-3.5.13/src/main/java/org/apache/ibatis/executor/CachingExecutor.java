@@ -16,18 +16,26 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.DependencyTrackingCache;
+import org.apache.ibatis.cache.decorators.IdentityIndexCache;
+import org.apache.ibatis.cache.decorators.TableDependencyCache;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -72,13 +80,13 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameterObject, null);
     return delegate.update(ms, parameterObject);
   }
 
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameter, null);
     return delegate.queryCursor(ms, parameter, rowBounds);
   }
 
@@ -95,13 +103,24 @@ public class CachingExecutor implements Executor {
       CacheKey key, BoundSql boundSql) throws SQLException {
     Cache cache = ms.getCache();
     if (cache != null) {
-      flushCacheIfRequired(ms);
+      flushCacheIfRequired(ms, parameterObject, boundSql);
       if (ms.isUseCache() && resultHandler == null) {
         ensureNoOutParams(ms, boundSql);
+        if (cache instanceof DependencyTrackingCache) {
+          Collection<?> dependsOn = cache instanceof TableDependencyCache ? ms.getTables(boundSql)
+              : identityOf(ms, parameterObject);
+          @SuppressWarnings("unchecked")
+          List<E> list = (List<E>) tcm.getObject(cache, key, dependsOn);
+          if (list == null) {
+            list = load(ms, cache, parameterObject, rowBounds, key, boundSql);
+            tcm.putObject(cache, key, list, dependsOn);
+          }
+          return list;
+        }
         @SuppressWarnings("unchecked")
         List<E> list = (List<E>) tcm.getObject(cache, key);
         if (list == null) {
-          list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+          list = load(ms, cache, parameterObject, rowBounds, key, boundSql);
           tcm.putObject(cache, key, list); // issue #578 and #116
         }
         return list;
@@ -110,6 +129,18 @@ public class CachingExecutor implements Executor {
     return delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
   }
 
+  private <E> List<E> load(MappedStatement ms, Cache cache, Object parameterObject, RowBounds rowBounds, CacheKey key,
+      BoundSql boundSql) throws SQLException {
+    Configuration configuration = ms.getConfiguration();
+    if (!configuration.isCacheStatsEnabled()) {
+      return delegate.query(ms, parameterObject, rowBounds, null, key, boundSql);
+    }
+    long start = System.nanoTime();
+    List<E> list = delegate.query(ms, parameterObject, rowBounds, null, key, boundSql);
+    configuration.getCacheStatsCounter(cache.getId()).recordLoad(System.nanoTime() - start);
+    return list;
+  }
+
   @Override
   public List<BatchResult> flushStatements() throws SQLException {
     return delegate.flushStatements();
@@ -165,11 +196,41 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
-  private void flushCacheIfRequired(MappedStatement ms) {
+  private void flushCacheIfRequired(MappedStatement ms, Object parameterObject, BoundSql boundSql) {
+    if (!ms.isFlushCacheRequired()) {
+      return;
+    }
     Cache cache = ms.getCache();
-    if (cache != null && ms.isFlushCacheRequired()) {
+    SqlCommandType type = ms.getSqlCommandType();
+    boolean write = type == SqlCommandType.INSERT || type == SqlCommandType.UPDATE || type == SqlCommandType.DELETE;
+    if (write && cache instanceof IdentityIndexCache) {
+      // only the lookups of the written entity and the results not looked up by identity
+      tcm.invalidate(cache, identityOf(ms, parameterObject));
+    } else if (cache != null && !(cache instanceof TableDependencyCache)) {
       tcm.clear(cache);
     }
+    List<TableDependencyCache> tableCaches = ms.getConfiguration().getTableDependencyCaches();
+    if (tableCaches.isEmpty() || !write) {
+      if (cache instanceof TableDependencyCache) {
+        tcm.clear(cache);
+      }
+      return;
+    }
+    // a write invalidates the results read from its tables in every namespace, or its own cache if they are unknown
+    Set<String> tables = ms.getTables();
+    if (tables == null) {
+      tables = ms.getTables(boundSql != null ? boundSql : ms.getBoundSql(parameterObject));
+    }
+    for (TableDependencyCache tableCache : tableCaches) {
+      if (tables != null || tableCache == cache) {
+        tcm.invalidate(tableCache, tables);
+      }
+    }
+  }
+
+  private Collection<Object> identityOf(MappedStatement ms, Object parameterObject) {
+    Object identity = ms.getIdentity(parameterObject);
+    return identity == null ? null : Collections.singleton(identity);
   }
 
   @Override
@@ -78,6 +78,17 @@ public class ErrorContext {
     return this;
   }
 
+  /**
+   * Returns the object (typically the id of the mapped statement) set by the current activity.
+   *
+   * @return the object, or {@code null} if none was set
+   *
+   * @since 3.5.14
+   */
+  public String getObject() {
+    return object;
+  }
+
   public ErrorContext cause(Throwable cause) {
     this.cause = cause;
     return this;
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.EstimatedRowsWeigher;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Keeps the local cache of a session within the configured bounds, in least recently used order.
+ * <p>
+ * Entries are only evicted once the top level query has completed, as the nested queries and the deferred loads of
+ * the query read the results of the queries in progress from the local cache.
+ *
+ * @since 3.5.14
+ */
+final class LocalCacheTracker {
+
+  private final int maxSize;
+  private final long maxBytes;
+  private final int maxRows;
+  private final CacheWeigher weigher = new EstimatedRowsWeigher();
+  private final Map<Object, Long> weights = new LinkedHashMap<>(16, .75F, true);
+  private final List<Object> bypassed = new ArrayList<>();
+  private long bytes;
+
+  private LocalCacheTracker(int maxSize, long maxBytes, int maxRows) {
+    this.maxSize = maxSize;
+    this.maxBytes = maxBytes;
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * Returns a tracker for the bounds of the configuration.
+   *
+   * @param configuration
+   *          the configuration, {@code null} for executors that never query (e.g. of deserialized lazy loaders)
+   *
+   * @return the tracker, or {@code null} if the local cache is not bounded
+   */
+  static LocalCacheTracker of(Configuration configuration) {
+    if (configuration == null || configuration.getLocalCacheSize() <= 0 && configuration.getLocalCacheMaxBytes() <= 0
+        && configuration.getLocalCacheMaxRows() <= 0) {
+      return null;
+    }
+    return new LocalCacheTracker(configuration.getLocalCacheSize(), configuration.getLocalCacheMaxBytes(),
+        configuration.getLocalCacheMaxRows());
+  }
+
+  void put(Object key, List<?> list) {
+    if (maxRows > 0 && list.size() > maxRows) {
+      bypassed.add(key);
+      Long previous = weights.remove(key);
+      bytes -= previous == null ? 0 : previous;
+      return;
+    }
+    long weight = maxBytes > 0 ? weigher.weigh(key, list) : 0;
+    Long previous = weights.put(key, weight);
+    bytes += weight - (previous == null ? 0 : previous);
+  }
+
+  void touch(Object key) {
+    weights.get(key);
+  }
+
+  void clear() {
+    weights.clear();
+    bypassed.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Removes the entries above the row threshold and the least recently used entries beyond the bounds.
+   *
+   * @return the keys to evict from the local cache
+   */
+  List<Object> trim() {
+    List<Object> evicted = new ArrayList<>(bypassed);
+    bypassed.clear();
+    Iterator<Map.Entry<Object, Long>> eldest = weights.entrySet().iterator();
+    while (eldest.hasNext() && (maxSize > 0 && weights.size() > maxSize || maxBytes > 0 && bytes > maxBytes)) {
+      Map.Entry<Object, Long> entry = eldest.next();
+      eldest.remove();
+      bytes -= entry.getValue();
+      evicted.add(entry.getKey());
+    }
+    return evicted;
+  }
+
+}
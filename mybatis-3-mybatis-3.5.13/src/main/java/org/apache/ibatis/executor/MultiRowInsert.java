@@ -0,0 +1,246 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.keygen.BlockKeyGenerator;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A batch of single row inserts of the same statement, executed as multi-row inserts ({@code VALUES (...),(...)}).
+ *
+ * @since 3.5.14
+ */
+final class MultiRowInsert {
+
+  private static final Pattern VALUES = Pattern.compile("\\bvalues\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+  private final MappedStatement mappedStatement;
+  private final String prefix;
+  private final String row;
+  private final List<Row> rows = new ArrayList<>();
+
+  private MultiRowInsert(MappedStatement mappedStatement, String prefix, String row) {
+    this.mappedStatement = mappedStatement;
+    this.prefix = prefix;
+    this.row = row;
+  }
+
+  /**
+   * Returns a batch for a statement inserting a single row, with nothing after its values.
+   *
+   * @param ms
+   *          the statement
+   * @param sql
+   *          the sql of the statement
+   *
+   * @return the batch, or {@code null} if the statement cannot be rewritten
+   */
+  static MultiRowInsert of(MappedStatement ms, String sql) {
+    if (ms.getSqlCommandType() != SqlCommandType.INSERT || ms.getStatementType() != StatementType.PREPARED
+        || !isSupported(ms.getKeyGenerator())) {
+      return null;
+    }
+    String insert = sql.trim();
+    if (insert.endsWith(";")) {
+      insert = insert.substring(0, insert.length() - 1).trim();
+    }
+    Matcher values = VALUES.matcher(insert);
+    if (!insert.regionMatches(true, 0, "insert", 0, 6) || !values.find()) {
+      return null;
+    }
+    int open = values.end() - 1;
+    if (closingParenthesis(insert, open) != insert.length() - 1) {
+      return null;
+    }
+    return new MultiRowInsert(ms, insert.substring(0, open), insert.substring(open));
+  }
+
+  private static boolean isSupported(KeyGenerator keyGenerator) {
+    // keys selected after each insert cannot be told apart
+    return keyGenerator instanceof NoKeyGenerator || Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())
+        || keyGenerator instanceof SelectKeyGenerator && ((SelectKeyGenerator) keyGenerator).isExecuteBefore()
+        || keyGenerator instanceof BlockKeyGenerator;
+  }
+
+  private static int closingParenthesis(String sql, int open) {
+    int depth = 0;
+    boolean quoted = false;
+    for (int i = open; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      } else if (!quoted && c == '(') {
+        depth++;
+      } else if (!quoted && c == ')' && --depth == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  MappedStatement getMappedStatement() {
+    return mappedStatement;
+  }
+
+  /**
+   * Adds a row, binding its parameters right away through the handler, so that plugins of the handler run as for any
+   * batched statement and a parameter object changed afterwards does not change the row.
+   *
+   * @param handler
+   *          the handler of the row
+   * @param connection
+   *          the connection, for the type handlers that need it to create a parameter
+   *
+   * @throws SQLException
+   *           if a parameter cannot be bound
+   */
+  void add(StatementHandler handler, Connection connection) throws SQLException {
+    Row row = new Row(handler.getBoundSql());
+    PreparedStatement recorder = row.recorder(connection);
+    handler.parameterize(recorder);
+    handler.batch(recorder);
+    rows.add(row);
+  }
+
+  int size() {
+    return rows.size();
+  }
+
+  Object getParameterObject(int index) {
+    return rows.get(index).parameterObject;
+  }
+
+  /**
+   * Returns the sql inserting some rows at once.
+   *
+   * @param rows
+   *          the number of rows
+   *
+   * @return the sql
+   */
+  String getSql(int rows) {
+    return prefix + String.join(",", Collections.nCopies(rows, row));
+  }
+
+  /**
+   * Sets the parameters bound for the rows of a chunk, each row after the parameters of the previous one.
+   *
+   * @param ps
+   *          the statement of the chunk
+   * @param from
+   *          the index of the first row, inclusive
+   * @param to
+   *          the index of the last row, exclusive
+   *
+   * @throws SQLException
+   *           if a parameter cannot be set
+   */
+  void parameterize(PreparedStatement ps, int from, int to) throws SQLException {
+    int offset = 0;
+    for (int i = from; i < to; i++) {
+      Row row = rows.get(i);
+      row.bind(ps, offset);
+      offset += row.parameterCount;
+    }
+  }
+
+  private static final class Row {
+
+    private final Object parameterObject;
+    private final int parameterCount;
+    private final List<Method> setters = new ArrayList<>();
+    private final List<Object[]> arguments = new ArrayList<>();
+
+    Row(BoundSql boundSql) {
+      this.parameterObject = boundSql.getParameterObject();
+      this.parameterCount = boundSql.getParameterMappings().size();
+    }
+
+    PreparedStatement recorder(Connection connection) {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+            // the parameter setters take the index first, the statement setters a single argument
+            if (args != null && args.length > 1 && method.getName().startsWith("set")
+                && int.class.equals(method.getParameterTypes()[0])) {
+              setters.add(method);
+              arguments.add(args.clone());
+              return null;
+            }
+            switch (method.getName()) {
+              case "addBatch":
+                if (args == null) {
+                  return null;
+                }
+                break;
+              case "clearParameters":
+                setters.clear();
+                arguments.clear();
+                return null;
+              case "getConnection":
+                return connection;
+              case "equals":
+                return proxy == args[0];
+              case "hashCode":
+                return System.identityHashCode(proxy);
+              case "toString":
+                return "row of a multi-row insert";
+              default:
+                break;
+            }
+            throw new UnsupportedOperationException("PreparedStatement." + method.getName()
+                + " is not supported while binding a row of a multi-row insert");
+          });
+    }
+
+    void bind(PreparedStatement ps, int offset) throws SQLException {
+      for (int i = 0; i < setters.size(); i++) {
+        Object[] args = arguments.get(i).clone();
+        args[0] = (Integer) args[0] + offset;
+        try {
+          setters.get(i).invoke(ps, args);
+        } catch (ReflectiveOperationException e) {
+          Throwable cause = ExceptionUtil.unwrapThrowable(e);
+          if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+          }
+          throw new ExecutorException("Error setting a parameter of a multi-row insert. Cause: " + cause, cause);
+        }
+      }
+    }
+
+  }
+
+}
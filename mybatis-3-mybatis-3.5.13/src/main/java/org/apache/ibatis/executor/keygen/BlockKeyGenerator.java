@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.keygen;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+
+/**
+ * A key generator handing out keys reserved from the database in blocks, so that most inserts need no key round trip.
+ * <p>
+ * The keys are assigned to the key properties of the parameter objects before the insert. One generator is shared by
+ * all the sessions of a configuration: keys are taken from the current block without locking, and only the thread
+ * finding it exhausted reserves the next one while the others wait for it. The keys left in a block when the
+ * application stops are lost, so the generated keys are unique but not gapless.
+ *
+ * @since 3.5.14
+ */
+public abstract class BlockKeyGenerator implements KeyGenerator {
+
+  private final AtomicReference<Block> currentBlock = new AtomicReference<>(new Block(0, 0));
+  private final ReentrantLock reserveLock = new ReentrantLock();
+  private int blockSize = 50;
+
+  @Override
+  public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+    String[] keyProperties = ms.getKeyProperties();
+    if (parameter == null || keyProperties == null || keyProperties.length == 0) {
+      return;
+    }
+    for (Object target : targetsOf(parameter)) {
+      MetaObject metaParam = ms.getConfiguration().newMetaObject(target);
+      for (String keyProperty : keyProperties) {
+        if (!metaParam.hasSetter(keyProperty)) {
+          throw new ExecutorException("No setter found for the keyProperty '" + keyProperty + "' in "
+              + metaParam.getOriginalObject().getClass().getName() + ".");
+        }
+        long key = nextKey(executor, ms);
+        metaParam.setValue(keyProperty, convert(key, metaParam.getSetterType(keyProperty)));
+      }
+    }
+  }
+
+  @Override
+  public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+    // NOP
+  }
+
+  /**
+   * Sets the {@code blockSize} property, the number of keys reserved at once ({@code 50} by default).
+   */
+  @Override
+  public void setProperties(Properties properties) {
+    String value = properties.getProperty("blockSize");
+    if (value != null) {
+      setBlockSize(Integer.parseInt(value));
+    }
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  public void setBlockSize(int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("The block size of a key generator must be positive but was " + blockSize);
+    }
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Reserves the next block of keys.
+   *
+   * @param executor
+   *          the executor running the insert
+   * @param ms
+   *          the insert statement
+   * @param blockSize
+   *          the number of keys to reserve
+   *
+   * @return the first key of the block, the following {@code blockSize - 1} keys being reserved too
+   *
+   * @throws SQLException
+   *           if the block could not be reserved
+   */
+  protected abstract long reserveBlock(Executor executor, MappedStatement ms, int blockSize) throws SQLException;
+
+  private long nextKey(Executor executor, MappedStatement ms) {
+    while (true) {
+      Block block = currentBlock.get();
+      long key = block.next();
+      if (key != Block.EXHAUSTED) {
+        return key;
+      }
+      reserveLock.lock();
+      try {
+        // the threads waiting here take their keys from the block reserved by the first one
+        if (currentBlock.get() == block) {
+          int size = blockSize;
+          currentBlock.set(new Block(reserveBlock(executor, ms, size), size));
+        }
+      } catch (SQLException e) {
+        throw new ExecutorException("Error reserving a block of keys. Cause: " + e, e);
+      } finally {
+        reserveLock.unlock();
+      }
+    }
+  }
+
+  private static Collection<?> targetsOf(Object parameter) {
+    if (parameter instanceof Collection) {
+      return (Collection<?>) parameter;
+    }
+    if (parameter.getClass().isArray()) {
+      List<Object> elements = new ArrayList<>();
+      for (int i = 0, n = Array.getLength(parameter); i < n; i++) {
+        elements.add(Array.get(parameter, i));
+      }
+      return elements;
+    }
+    if (parameter instanceof ParamMap) {
+      // a single argument is available under several names
+      Set<Object> values = Collections.newSetFromMap(new IdentityHashMap<>());
+      values.addAll(((Map<?, ?>) parameter).values());
+      if (values.size() == 1 && !values.contains(null)) {
+        return targetsOf(values.iterator().next());
+      }
+    }
+    return Arrays.asList(parameter);
+  }
+
+  private static Object convert(long key, Class<?> type) {
+    if (type == Integer.class || type == int.class) {
+      return Math.toIntExact(key);
+    }
+    if (type == String.class) {
+      return String.valueOf(key);
+    }
+    if (type == BigInteger.class) {
+      return BigInteger.valueOf(key);
+    }
+    if (type == BigDecimal.class) {
+      return BigDecimal.valueOf(key);
+    }
+    return key;
+  }
+
+  private static class Block {
+
+    static final long EXHAUSTED = Long.MIN_VALUE;
+
+    private final AtomicLong next;
+    private final long end;
+
+    Block(long start, int size) {
+      this.next = new AtomicLong(start);
+      this.end = start + size;
+    }
+
+    long next() {
+      long key = next.getAndIncrement();
+      return key < end ? key : EXHAUSTED;
+    }
+
+  }
+
+}
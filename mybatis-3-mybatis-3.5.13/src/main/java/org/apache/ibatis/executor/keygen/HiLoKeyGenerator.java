@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.keygen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * A {@link BlockKeyGenerator} reserving its blocks from a hi/lo table.
+ * <p>
+ * The table holds the next hi value of each generator, one row per {@code name}. Reserving hi value {@code h} gives
+ * the keys {@code h * blockSize + 1} to {@code (h + 1) * blockSize}. The row is incremented with an optimistic update
+ * on a connection of its own, so that the reservation is kept when the inserting session rolls back. A missing row is
+ * inserted with hi value {@code 0}; only an integrity constraint violation of that insert is taken for a row inserted
+ * meanwhile by another thread or node and retried. The properties are:
+ * <ul>
+ * <li>{@code name}: the row of the generator (required)</li>
+ * <li>{@code table}: the table, {@code hilo_keys} by default</li>
+ * <li>{@code nameColumn}: the column holding the name, {@code name} by default</li>
+ * <li>{@code valueColumn}: the column holding the next hi value, {@code next_hi} by default</li>
+ * <li>{@code blockSize}: the number of keys per hi value, which must not change once keys are generated</li>
+ * </ul>
+ *
+ * @since 3.5.14
+ */
+public class HiLoKeyGenerator extends BlockKeyGenerator {
+
+  private static final int MAX_ATTEMPTS = 10;
+
+  private String name;
+  private String table = "hilo_keys";
+  private String nameColumn = "name";
+  private String valueColumn = "next_hi";
+
+  @Override
+  public void setProperties(Properties properties) {
+    super.setProperties(properties);
+    name = properties.getProperty("name", name);
+    table = properties.getProperty("table", table);
+    nameColumn = properties.getProperty("nameColumn", nameColumn);
+    valueColumn = properties.getProperty("valueColumn", valueColumn);
+  }
+
+  @Override
+  protected long reserveBlock(Executor executor, MappedStatement ms, int blockSize) throws SQLException {
+    if (name == null) {
+      throw new ExecutorException("The 'name' property of the key generator of " + ms.getId() + " is not set.");
+    }
+    Environment environment = ms.getConfiguration().getEnvironment();
+    if (environment == null) {
+      throw new ExecutorException(
+          "A hi/lo key generator needs an environment to reserve keys on a connection of its own.");
+    }
+    try (Connection connection = environment.getDataSource().getConnection()) {
+      for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+        Long hi = selectHi(connection);
+        if (hi == null ? insertHi(connection) : updateHi(connection, hi)) {
+          return (hi == null ? 0 : hi) * blockSize + 1;
+        }
+      }
+    }
+    throw new ExecutorException(
+        "Could not reserve a block of keys for '" + name + "' in " + MAX_ATTEMPTS + " attempts, too much contention.");
+  }
+
+  private Long selectHi(Connection connection) throws SQLException {
+    try (PreparedStatement ps = connection
+        .prepareStatement("select " + valueColumn + " from " + table + " where " + nameColumn + " = ?")) {
+      ps.setString(1, name);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : null;
+      }
+    } finally {
+      endTransaction(connection, true);
+    }
+  }
+
+  private boolean updateHi(Connection connection, long hi) throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement("update " + table + " set " + valueColumn + " = ? where "
+        + nameColumn + " = ? and " + valueColumn + " = ?")) {
+      ps.setLong(1, hi + 1);
+      ps.setString(2, name);
+      ps.setLong(3, hi);
+      boolean updated = ps.executeUpdate() == 1;
+      endTransaction(connection, updated);
+      return updated;
+    }
+  }
+
+  private boolean insertHi(Connection connection) throws SQLException {
+    try (PreparedStatement ps = connection
+        .prepareStatement("insert into " + table + " (" + nameColumn + ", " + valueColumn + ") values (?, ?)")) {
+      ps.setString(1, name);
+      ps.setLong(2, 1);
+      ps.executeUpdate();
+      endTransaction(connection, true);
+      return true;
+    } catch (SQLException e) {
+      endTransaction(connection, false);
+      if (isIntegrityConstraintViolation(e)) {
+        // inserted by another thread or node meanwhile
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private static boolean isIntegrityConstraintViolation(SQLException e) {
+    return e instanceof SQLIntegrityConstraintViolationException
+        || e.getSQLState() != null && e.getSQLState().startsWith("23");
+  }
+
+  private static void endTransaction(Connection connection, boolean commit) throws SQLException {
+    if (!connection.getAutoCommit()) {
+      if (commit) {
+        connection.commit();
+      } else {
+        connection.rollback();
+      }
+    }
+  }
+
+}
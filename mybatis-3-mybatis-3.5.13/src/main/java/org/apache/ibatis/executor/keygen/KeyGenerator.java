@@ -16,6 +16,7 @@
 package org.apache.ibatis.executor.keygen;
 
 import java.sql.Statement;
+import java.util.Properties;
 
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -29,4 +30,16 @@ public interface KeyGenerator {
 
   void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter);
 
+  /**
+   * Sets the properties of a key generator declared in the configuration.
+   *
+   * @param properties
+   *          the properties
+   *
+   * @since 3.5.14
+   */
+  default void setProperties(Properties properties) {
+    // NOP
+  }
+
 }
@@ -16,8 +16,14 @@
 package org.apache.ibatis.executor.keygen;
 
 import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
+import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -33,18 +39,53 @@ import org.apache.ibatis.session.RowBounds;
 public class SelectKeyGenerator implements KeyGenerator {
 
   public static final String SELECT_KEY_SUFFIX = "!selectKey";
+  /**
+   * The name of the parameter holding the number of keys the key statement selects in bulk.
+   *
+   * @since 3.5.14
+   */
+  public static final String KEY_COUNT_PARAMETER = "keyCount";
   private final boolean executeBefore;
   private final MappedStatement keyStatement;
+  private final int batchSize;
+  private final Map<Executor, Deque<Object>> prefetchedKeys = Collections.synchronizedMap(new WeakHashMap<>());
 
   public SelectKeyGenerator(MappedStatement keyStatement, boolean executeBefore) {
+    this(keyStatement, executeBefore, 0);
+  }
+
+  /**
+   * Creates a generator selecting the keys of a batch executor in bulk. The key statement is run with a map holding
+   * {@value #KEY_COUNT_PARAMETER} and must select that many keys, one per row, e.g. values of a sequence. Other
+   * executors select one key at a time. The keys left when the executor is closed are not used.
+   *
+   * @param keyStatement
+   *          the key statement
+   * @param executeBefore
+   *          whether the keys are selected before the insert, required to select them in bulk
+   * @param batchSize
+   *          the number of keys selected at once by a batch executor, less than {@code 2} to select them one by one
+   *
+   * @since 3.5.14
+   */
+  public SelectKeyGenerator(MappedStatement keyStatement, boolean executeBefore, int batchSize) {
     this.executeBefore = executeBefore;
     this.keyStatement = keyStatement;
+    this.batchSize = batchSize;
+  }
+
+  public boolean isExecuteBefore() {
+    return executeBefore;
   }
 
   @Override
   public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
     if (executeBefore) {
-      processGeneratedKeys(executor, ms, parameter);
+      if (batchSize > 1) {
+        processPrefetchedKeys(executor, ms, parameter);
+      } else {
+        processGeneratedKeys(executor, ms, parameter);
+      }
     }
   }
 
@@ -71,18 +112,7 @@ public class SelectKeyGenerator implements KeyGenerator {
         if (values.size() > 1) {
           throw new ExecutorException("SelectKey returned more than one value.");
         } else {
-          MetaObject metaResult = configuration.newMetaObject(values.get(0));
-          if (keyProperties.length == 1) {
-            if (metaResult.hasGetter(keyProperties[0])) {
-              setValue(metaParam, keyProperties[0], metaResult.getValue(keyProperties[0]));
-            } else {
-              // no getter for the property - maybe just a single value object
-              // so try that
-              setValue(metaParam, keyProperties[0], values.get(0));
-            }
-          } else {
-            handleMultipleProperties(keyProperties, metaParam, metaResult);
-          }
+          assignKey(configuration, keyProperties, metaParam, values.get(0));
         }
       }
     } catch (ExecutorException e) {
@@ -92,6 +122,50 @@ public class SelectKeyGenerator implements KeyGenerator {
     }
   }
 
+  private void processPrefetchedKeys(Executor executor, MappedStatement ms, Object parameter) {
+    try {
+      if (parameter != null && keyStatement != null && keyStatement.getKeyProperties() != null) {
+        final Configuration configuration = ms.getConfiguration();
+        // only a batch executor runs the following inserts of the statement
+        boolean batch = executor instanceof BatchExecutor;
+        Deque<Object> keys = batch ? prefetchedKeys.computeIfAbsent(executor, k -> new ArrayDeque<>())
+            : new ArrayDeque<>();
+        if (keys.isEmpty()) {
+          // Do not close keyExecutor.
+          // The transaction will be closed by parent executor.
+          Executor keyExecutor = configuration.newExecutor(executor.getTransaction(), ExecutorType.SIMPLE);
+          Object keyParameter = Collections.singletonMap(KEY_COUNT_PARAMETER, batch ? batchSize : 1);
+          List<Object> values = keyExecutor.query(keyStatement, keyParameter, RowBounds.DEFAULT,
+              Executor.NO_RESULT_HANDLER);
+          if (values.size() == 0) {
+            throw new ExecutorException("SelectKey returned no data.");
+          }
+          keys.addAll(values);
+        }
+        assignKey(configuration, keyStatement.getKeyProperties(), configuration.newMetaObject(parameter), keys.poll());
+      }
+    } catch (ExecutorException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ExecutorException("Error selecting keys or setting result to parameter object. Cause: " + e, e);
+    }
+  }
+
+  private void assignKey(Configuration configuration, String[] keyProperties, MetaObject metaParam, Object value) {
+    MetaObject metaResult = configuration.newMetaObject(value);
+    if (keyProperties.length == 1) {
+      if (metaResult.hasGetter(keyProperties[0])) {
+        setValue(metaParam, keyProperties[0], metaResult.getValue(keyProperties[0]));
+      } else {
+        // no getter for the property - maybe just a single value object
+        // so try that
+        setValue(metaParam, keyProperties[0], value);
+      }
+    } else {
+      handleMultipleProperties(keyProperties, metaParam, metaResult);
+    }
+  }
+
   private void handleMultipleProperties(String[] keyProperties, MetaObject metaParam, MetaObject metaResult) {
     String[] keyColumns = keyStatement.getKeyColumns();
 
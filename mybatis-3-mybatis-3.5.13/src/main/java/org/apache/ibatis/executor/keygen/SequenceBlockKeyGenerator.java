@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.keygen;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * A {@link BlockKeyGenerator} reserving its blocks from a database sequence.
+ * <p>
+ * The {@code query} property selects the next value of the sequence (e.g.
+ * {@code select nextval('user_seq')}), which must be incremented by the {@code blockSize} property: each value starts
+ * a block of {@code blockSize} keys. The query runs on the connection of the inserting session.
+ *
+ * @since 3.5.14
+ */
+public class SequenceBlockKeyGenerator extends BlockKeyGenerator {
+
+  private String query;
+
+  public SequenceBlockKeyGenerator() {
+  }
+
+  public SequenceBlockKeyGenerator(String query, int blockSize) {
+    this.query = query;
+    setBlockSize(blockSize);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    super.setProperties(properties);
+    query = properties.getProperty("query", query);
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  @Override
+  protected long reserveBlock(Executor executor, MappedStatement ms, int blockSize) throws SQLException {
+    if (query == null) {
+      throw new ExecutorException("The 'query' property of the key generator of " + ms.getId() + " is not set.");
+    }
+    Connection connection = executor.getTransaction().getConnection();
+    try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+      if (!rs.next()) {
+        throw new ExecutorException("The sequence query '" + query + "' returned no data.");
+      }
+      return rs.getLong(1);
+    }
+  }
+
+}
@@ -0,0 +1,229 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Rewrites the single key lookup of a nested select into a lookup of many keys at once, and splits the results back by
+ * key.
+ * <p>
+ * Only the simplest form is supported: a select from a single table whose only parameter is compared with a column,
+ * e.g. {@code select * from comment where post_id = #{id} order by id}. The comparison becomes
+ * {@code post_id in (?, ?, ...)} and every result is assigned to the key held by the property mapped to that column.
+ * If the select does not read that column back, the results cannot be split and the loaders query one by one.
+ * Anything that could change which rows match a key (joins, {@code or}, sub selects, grouping, row limits) makes the
+ * statement unsupported and {@link #of} returns {@code null}. So do keys that the database may match differently than
+ * {@code equals} (e.g. strings under a case insensitive collation or padded {@code CHAR} columns, floating point
+ * numbers): only integral and {@code BigDecimal} keys and key properties are batched.
+ *
+ * @since 3.5.14
+ */
+public class MultiKeyQuery {
+
+  private static final Pattern KEY_PREDICATE = Pattern
+      .compile("(?<![\\w.$])((?:[A-Za-z_][\\w$]*\\.)?([A-Za-z_][\\w$]*))\\s*=\\s*\\?");
+  private static final Pattern UNSUPPORTED = Pattern.compile(
+      "\\b(?:join|or|union|intersect|except|minus|group|having|limit|offset|fetch|top|rownum|distinct)\\b");
+  private static final Pattern FROM_CLAUSE = Pattern.compile("\\bfrom\\b(.*?)(?:\\bwhere\\b)", Pattern.DOTALL);
+  private static final String KEY_PARAMETER = "batchKey";
+
+  private final Configuration configuration;
+  private final MappedStatement mappedStatement;
+  private final String sqlBeforeKey;
+  private final String sqlAfterKey;
+  private final ParameterMapping keyMapping;
+  private final String keyProperty;
+
+  private MultiKeyQuery(Configuration configuration, MappedStatement mappedStatement, String sqlBeforeKey,
+      String sqlAfterKey, ParameterMapping keyMapping, String keyProperty) {
+    this.configuration = configuration;
+    this.mappedStatement = mappedStatement;
+    this.sqlBeforeKey = sqlBeforeKey;
+    this.sqlAfterKey = sqlAfterKey;
+    this.keyMapping = keyMapping;
+    this.keyProperty = keyProperty;
+  }
+
+  /**
+   * Returns the multi key form of a nested select.
+   *
+   * @param configuration
+   *          the configuration
+   * @param mappedStatement
+   *          the nested select
+   * @param boundSql
+   *          the nested select bound to one key
+   * @param key
+   *          the key
+   *
+   * @return the multi key query, or {@code null} if the statement cannot be rewritten
+   */
+  public static MultiKeyQuery of(Configuration configuration, MappedStatement mappedStatement, BoundSql boundSql,
+      Object key) {
+    if (key == null || !isExactKeyType(key.getClass())
+        || mappedStatement.getStatementType() != StatementType.PREPARED || mappedStatement.getResultSets() != null
+        || mappedStatement.getResultMaps().size() != 1 || boundSql.getParameterMappings().size() != 1) {
+      return null;
+    }
+    String sql = boundSql.getSql();
+    String lowerCaseSql = sql.toLowerCase(Locale.ENGLISH);
+    if (sql.indexOf('?') != sql.lastIndexOf('?') || UNSUPPORTED.matcher(lowerCaseSql).find()
+        || lowerCaseSql.indexOf("select") != lowerCaseSql.lastIndexOf("select")) {
+      return null;
+    }
+    Matcher from = FROM_CLAUSE.matcher(lowerCaseSql);
+    if (!from.find() || from.group(1).indexOf(',') >= 0) {
+      return null;
+    }
+    Matcher predicate = KEY_PREDICATE.matcher(sql);
+    if (!predicate.find()) {
+      return null;
+    }
+    ResultMap resultMap = mappedStatement.getResultMaps().get(0);
+    String keyProperty = findKeyProperty(configuration, resultMap, predicate.group(2));
+    if (keyProperty == null) {
+      return null;
+    }
+    MetaClass metaClass = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
+    if (!metaClass.hasGetter(keyProperty) || !isExactKeyType(metaClass.getGetterType(keyProperty))) {
+      return null;
+    }
+    return new MultiKeyQuery(configuration, mappedStatement, sql.substring(0, predicate.start()) + predicate.group(1)
+        + " in (", ")" + sql.substring(predicate.end()), boundSql.getParameterMappings().get(0), keyProperty);
+  }
+
+  private static String findKeyProperty(Configuration configuration, ResultMap resultMap, String column) {
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(resultMap.getType())) {
+      return null;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (column.equalsIgnoreCase(resultMapping.getColumn()) && resultMapping.getProperty() != null
+          && resultMapping.getNestedQueryId() == null) {
+        return resultMapping.getProperty();
+      }
+    }
+    boolean autoMapping = resultMap.getAutoMapping() != null ? resultMap.getAutoMapping()
+        : configuration.getAutoMappingBehavior() != AutoMappingBehavior.NONE;
+    if (!autoMapping || resultMap.getMappedColumns().contains(column.toUpperCase(Locale.ENGLISH))) {
+      return null;
+    }
+    MetaClass metaClass = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
+    String property = metaClass.findProperty(column, configuration.isMapUnderscoreToCamelCase());
+    return property != null && metaClass.hasGetter(property) ? property : null;
+  }
+
+  private static boolean isExactKeyType(Class<?> type) {
+    // compared by value in Java once normalized, as in the database
+    return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+        || type == int.class || type == long.class || type == short.class || type == byte.class
+        || type == BigInteger.class || type == BigDecimal.class;
+  }
+
+  public MappedStatement getMappedStatement() {
+    return mappedStatement;
+  }
+
+  /**
+   * Binds the query to the given keys.
+   *
+   * @param keys
+   *          the keys, at least one
+   *
+   * @return the bound query; its parameter object is a map
+   */
+  public BoundSql boundSql(List<Object> keys) {
+    StringBuilder sql = new StringBuilder(sqlBeforeKey);
+    List<ParameterMapping> parameterMappings = new ArrayList<>(keys.size());
+    Map<String, Object> parameterObject = new HashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      String property = KEY_PARAMETER + i;
+      sql.append(i == 0 ? "?" : ", ?");
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, keyMapping.getTypeHandler())
+          .javaType(keyMapping.getJavaType()).jdbcType(keyMapping.getJdbcType()).build());
+      parameterObject.put(property, keys.get(i));
+    }
+    sql.append(sqlAfterKey);
+    return new BoundSql(configuration, sql.toString(), parameterMappings, parameterObject);
+  }
+
+  /**
+   * Splits the results of the query by key, keeping their order. A result whose key property is {@code null} or holds
+   * none of the requested keys means that the key is not read back as expected (e.g. the select leaves out the key
+   * column), so the results cannot be split.
+   *
+   * @param results
+   *          the results
+   * @param keys
+   *          the requested keys, {@link #normalizeKey normalized}
+   *
+   * @return the results by {@link #normalizeKey normalized} key, or {@code null} if they cannot be split by key
+   */
+  public Map<Object, List<Object>> groupByKey(List<Object> results, Set<Object> keys) {
+    Map<Object, List<Object>> groups = new LinkedHashMap<>();
+    for (Object result : results) {
+      if (result != null) {
+        Object key = normalizeKey(configuration.newMetaObject(result).getValue(keyProperty));
+        if (!keys.contains(key)) {
+          return null;
+        }
+        groups.computeIfAbsent(key, k -> new ArrayList<>()).add(result);
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Makes keys read from different columns comparable, e.g. an {@code Integer} foreign key with a {@code Long} id.
+   *
+   * @param key
+   *          the key
+   *
+   * @return the normalized key
+   */
+  public static Object normalizeKey(Object key) {
+    if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte
+        || key instanceof BigInteger) {
+      return new BigDecimal(key.toString());
+    }
+    if (key instanceof BigDecimal) {
+      BigDecimal decimal = ((BigDecimal) key).stripTrailingZeros();
+      return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+    }
+    return key;
+  }
+
+}
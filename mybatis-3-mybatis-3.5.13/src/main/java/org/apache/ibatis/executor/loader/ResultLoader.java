@@ -52,6 +52,7 @@ public class ResultLoader {
 
   protected boolean loaded;
   protected Object resultObject;
+  ResultLoaderBatch batch;
 
   public ResultLoader(Configuration config, Executor executor, MappedStatement mappedStatement, Object parameterObject,
       Class<?> targetType, CacheKey cacheKey, BoundSql boundSql) {
@@ -68,19 +69,48 @@ public class ResultLoader {
   }
 
   public Object loadResult() throws SQLException {
+    if (batch != null && !loaded) {
+      batch.load(this);
+    }
+    if (loaded) {
+      return resultObject;
+    }
     List<Object> list = selectList();
     resultObject = resultExtractor.extractObjectFromList(list, targetType);
     return resultObject;
   }
 
+  void setResult(List<Object> list) {
+    resultObject = resultExtractor.extractObjectFromList(list, targetType);
+    loaded = true;
+  }
+
   private <E> List<E> selectList() throws SQLException {
+    return selectList(mappedStatement, parameterObject, cacheKey, boundSql, false);
+  }
+
+  /**
+   * Runs a batch query, or returns null when it is in the local cache already. The same batch can be executing further
+   * up the call stack (circular nested selects), in which case the local cache only holds a placeholder for it.
+   */
+  <E> List<E> selectList(MappedStatement statement, BoundSql statementBoundSql) throws SQLException {
+    return selectList(statement, statementBoundSql.getParameterObject(), null, statementBoundSql, true);
+  }
+
+  private <E> List<E> selectList(MappedStatement statement, Object parameter, CacheKey key, BoundSql statementBoundSql,
+      boolean createKey) throws SQLException {
     Executor localExecutor = executor;
     if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
       localExecutor = newExecutor();
     }
     try {
-      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER,
-          cacheKey, boundSql);
+      CacheKey queryKey = createKey
+          ? localExecutor.createCacheKey(statement, parameter, RowBounds.DEFAULT, statementBoundSql) : key;
+      if (createKey && localExecutor.isCached(statement, queryKey)) {
+        return null;
+      }
+      return localExecutor.query(statement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, queryKey,
+          statementBoundSql);
     } finally {
       if (localExecutor != executor) {
         localExecutor.close(false);
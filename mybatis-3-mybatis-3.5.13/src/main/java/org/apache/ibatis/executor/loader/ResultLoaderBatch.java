@@ -0,0 +1,157 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.executor.ExecutorException;
+
+/**
+ * The pending lazy loaders of one nested select created while handling the results of one statement. When one of them
+ * is triggered, it loads itself together with up to {@code batchSize - 1} other pending loaders through a single
+ * {@link MultiKeyQuery}, and the others then return their result without querying. Eager nested selects are loaded
+ * all at once with {@link #loadAll()}.
+ *
+ * @since 3.5.14
+ */
+public class ResultLoaderBatch {
+
+  private final MultiKeyQuery query;
+  private final int batchSize;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Set<ResultLoader> pending = new LinkedHashSet<>();
+  private volatile boolean unsplittable;
+
+  public ResultLoaderBatch(MultiKeyQuery query, int batchSize) {
+    this.query = query;
+    this.batchSize = batchSize;
+  }
+
+  public void add(ResultLoader resultLoader) {
+    lock.lock();
+    try {
+      pending.add(resultLoader);
+      resultLoader.batch = this;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Loads all pending loaders with queries of up to {@code batchSize} distinct keys. Loaders that could not be loaded by
+   * a batch query load by themselves when their result is requested.
+   *
+   * @throws SQLException
+   *           if a batch query failed
+   */
+  public void loadAll() throws SQLException {
+    Map<Object, List<ResultLoader>> loadersByKey = new LinkedHashMap<>();
+    lock.lock();
+    try {
+      for (ResultLoader loader : pending) {
+        loadersByKey.computeIfAbsent(MultiKeyQuery.normalizeKey(loader.parameterObject), k -> new ArrayList<>())
+            .add(loader);
+      }
+      pending.clear();
+    } finally {
+      lock.unlock();
+    }
+
+    List<ResultLoader> loaders = new ArrayList<>();
+    int keys = 0;
+    for (List<ResultLoader> sameKey : loadersByKey.values()) {
+      if (unsplittable) {
+        return;
+      }
+      loaders.addAll(sameKey);
+      if (++keys == batchSize) {
+        query(loaders);
+        loaders = new ArrayList<>();
+        keys = 0;
+      }
+    }
+    if (!loaders.isEmpty() && !unsplittable) {
+      query(loaders);
+    }
+  }
+
+  /**
+   * Loads the given loader and a batch of other pending loaders. A loader that is not pending any more (because it is
+   * being loaded by another thread, or its batch failed) is left alone and loads by itself.
+   */
+  void load(ResultLoader trigger) throws SQLException {
+    List<ResultLoader> loaders = new ArrayList<>();
+    lock.lock();
+    try {
+      if (!pending.remove(trigger)) {
+        return;
+      }
+      loaders.add(trigger);
+      for (Iterator<ResultLoader> iterator = pending.iterator(); iterator.hasNext() && loaders.size() < batchSize;) {
+        loaders.add(iterator.next());
+        iterator.remove();
+      }
+    } finally {
+      lock.unlock();
+    }
+    query(loaders);
+  }
+
+  private void query(List<ResultLoader> loaders) throws SQLException {
+    List<Object> keys = new ArrayList<>();
+    Set<Object> normalizedKeys = new LinkedHashSet<>();
+    for (ResultLoader loader : loaders) {
+      if (normalizedKeys.add(MultiKeyQuery.normalizeKey(loader.parameterObject))) {
+        keys.add(loader.parameterObject);
+      }
+    }
+    List<Object> list = loaders.get(0).selectList(query.getMappedStatement(), query.boundSql(keys));
+    if (list == null) {
+      return;
+    }
+    Map<Object, List<Object>> results = query.groupByKey(list, normalizedKeys);
+    if (results == null) {
+      // the key is not read back: this and every later loader runs its own query
+      unsplittable = true;
+      lock.lock();
+      try {
+        pending.clear();
+      } finally {
+        lock.unlock();
+      }
+      return;
+    }
+    for (ResultLoader loader : loaders) {
+      List<Object> loaded = results.getOrDefault(MultiKeyQuery.normalizeKey(loader.parameterObject),
+          Collections.emptyList());
+      try {
+        loader.setResult(new ArrayList<>(loaded));
+      } catch (ExecutorException e) {
+        // e.g. several rows for a single valued property: the loader runs its own query and reports it
+      }
+    }
+  }
+
+}
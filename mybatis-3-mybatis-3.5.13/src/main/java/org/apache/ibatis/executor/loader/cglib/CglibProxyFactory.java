@@ -19,6 +19,7 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
@@ -103,6 +104,7 @@ public class CglibProxyFactory implements ProxyFactory {
 
         private final Class<?> type;
         private final ResultLoaderMap lazyLoader;
+        private final ReentrantLock lock = new ReentrantLock();
         private final boolean aggressive;
         private final Set<String> lazyLoadTriggerMethods;
         private final ObjectFactory objectFactory;
@@ -135,7 +137,8 @@ public class CglibProxyFactory implements ProxyFactory {
             final String methodName = method.getName();
             try {
 //                先给延迟加载器同步
-                synchronized (lazyLoader) {
+                lock.lock();
+                try {
                     if (WRITE_REPLACE_METHOD.equals(methodName)) {
                         Object original;
                         if (constructorArgTypes.isEmpty()) {
@@ -168,6 +171,8 @@ public class CglibProxyFactory implements ProxyFactory {
                             }
                         }
                     }
+                } finally {
+                    lock.unlock();
                 }
                 return methodProxy.invokeSuper(enhanced, args);
             } catch (Throwable t) {
@@ -0,0 +1,320 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader.hiddenclass;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtConstructor;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyCopier;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Creates lazy loading proxies from subclasses generated once per result type and defined as hidden classes
+ * ({@code MethodHandles.Lookup#defineHiddenClass}) in the package of the result type.
+ * <p>
+ * Unlike the proxies of {@link JavassistProxyFactory}, which route every method call through a method handler, the
+ * generated subclasses only override the getters and setters of the result type, the lazy load trigger methods and
+ * {@code writeReplace}. Whether a property may still be unloaded is kept in a bit set held by {@code long} fields of
+ * the proxy, so that a getter only calls the {@link LazyLoadHandler} the first time it is invoked.
+ * <p>
+ * Javassist is only used to compile the subclasses. Proxies are created by the {@link JavassistProxyFactory} instead
+ * when hidden classes are not supported (before Java 15), when {@code aggressiveLazyLoading} is enabled, and when the
+ * result type cannot be subclassed this way (e.g. it is final, it is not open to MyBatis, or it inherits default methods
+ * that would need to be intercepted).
+ *
+ * @since 3.5.14
+ */
+public class HiddenClassProxyFactory implements ProxyFactory {
+
+  private static final String FINALIZE_METHOD = "finalize";
+  private static final String WRITE_REPLACE_METHOD = "writeReplace";
+  private static final String HANDLER_FIELD = "mybatisLazyLoadHandler";
+  private static final String STATE_FIELD = "mybatisLazyLoadState";
+  private static final String PROXY_CLASS_SUFFIX = "$$MyBatisLazyProxy";
+
+  private static final Method PRIVATE_LOOKUP_IN;
+  private static final Method DEFINE_HIDDEN_CLASS;
+  private static final Object NO_CLASS_OPTIONS;
+
+  static {
+    Method privateLookupIn = null;
+    Method defineHiddenClass = null;
+    Object noClassOptions = null;
+    try {
+      privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+      noClassOptions = Array.newInstance(Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption"), 0);
+      defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class,
+          noClassOptions.getClass());
+    } catch (ReflectiveOperationException e) {
+      // hidden classes require Java 15
+    }
+    PRIVATE_LOOKUP_IN = privateLookupIn;
+    DEFINE_HIDDEN_CLASS = defineHiddenClass;
+    NO_CLASS_OPTIONS = noClassOptions;
+  }
+
+  private final JavassistProxyFactory fallback = new JavassistProxyFactory();
+  private final ConcurrentMap<List<Object>, Optional<Class<?>>> proxyClasses = new ConcurrentHashMap<>();
+
+  @Override
+  public Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration,
+      ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    final Class<?> type = target.getClass();
+    final Class<?> proxyClass = configuration.isAggressiveLazyLoading() ? null
+        : getProxyClass(type, configuration.getLazyLoadTriggerMethods());
+    if (proxyClass == null) {
+      return fallback.createProxy(target, lazyLoader, configuration, objectFactory, constructorArgTypes,
+          constructorArgs);
+    }
+    Object enhanced;
+    try {
+      Constructor<?> constructor = proxyClass
+          .getConstructor(constructorArgTypes.toArray(new Class[constructorArgTypes.size()]));
+      enhanced = constructor.newInstance(constructorArgs.toArray(new Object[constructorArgs.size()]));
+    } catch (Exception e) {
+      throw new ExecutorException("Error creating lazy proxy.  Cause: " + ExceptionUtil.unwrapThrowable(e), e);
+    }
+    ((HiddenClassProxy) enhanced)
+        .setLazyLoadHandler(new LazyLoadHandler(type, lazyLoader, objectFactory, constructorArgTypes, constructorArgs));
+    PropertyCopier.copyBeanProperties(type, target, enhanced);
+    return enhanced;
+  }
+
+  public Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
+      ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    // deserialized objects are rare and must intercept every method, as Javassist proxies do
+    return fallback.createDeserializationProxy(target, unloadedProperties, objectFactory, constructorArgTypes,
+        constructorArgs);
+  }
+
+  private Class<?> getProxyClass(Class<?> type, Set<String> lazyLoadTriggerMethods) {
+    List<Object> key = Arrays.asList(type, lazyLoadTriggerMethods);
+    Optional<Class<?>> proxyClass = proxyClasses.get(key);
+    if (proxyClass == null) {
+      Set<String> triggerMethods = new HashSet<>(lazyLoadTriggerMethods);
+      proxyClass = proxyClasses.computeIfAbsent(Arrays.asList(type, triggerMethods),
+          k -> Optional.ofNullable(defineProxyClass(type, triggerMethods)));
+    }
+    return proxyClass.orElse(null);
+  }
+
+  private static Class<?> defineProxyClass(Class<?> type, Set<String> lazyLoadTriggerMethods) {
+    if (DEFINE_HIDDEN_CLASS == null || Modifier.isFinal(type.getModifiers()) || type.getClassLoader() == null) {
+      return null;
+    }
+    try {
+      // the proxy is defined by the class loader of the result type, which must see the same handler class
+      if (Class.forName(LazyLoadHandler.class.getName(), false, type.getClassLoader()) != LazyLoadHandler.class) {
+        return null;
+      }
+      byte[] bytecode = generateProxyClass(type, lazyLoadTriggerMethods);
+      if (bytecode == null) {
+        return null;
+      }
+      Object lookup = PRIVATE_LOOKUP_IN.invoke(null, type, MethodHandles.lookup());
+      return ((MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytecode, true, NO_CLASS_OPTIONS))
+          .lookupClass();
+    } catch (Exception | LinkageError e) {
+      if (LogHolder.log.isDebugEnabled()) {
+        LogHolder.log.debug("Using Javassist proxies for " + type + ". Cause: " + ExceptionUtil.unwrapThrowable(e));
+      }
+      return null;
+    }
+  }
+
+  private static byte[] generateProxyClass(Class<?> type, Set<String> lazyLoadTriggerMethods) throws Exception {
+    Collection<Method> methods = overridableMethods(type);
+    if (methods == null) {
+      return null;
+    }
+    ClassPool pool = new ClassPool(true);
+    pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+    pool.appendClassPath(new ClassClassPath(HiddenClassProxyFactory.class));
+    CtClass proxyClass = pool.makeClass(type.getName() + PROXY_CLASS_SUFFIX, pool.get(type.getName()));
+    try {
+      proxyClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+      proxyClass.addInterface(pool.get(HiddenClassProxy.class.getName()));
+
+      for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+        if (!Modifier.isPrivate(constructor.getModifiers())) {
+          CtConstructor proxyConstructor = CtNewConstructor.make(ctClasses(pool, constructor.getParameterTypes()),
+              ctClasses(pool, constructor.getExceptionTypes()), proxyClass);
+          proxyConstructor.setModifiers(Modifier.PUBLIC);
+          proxyClass.addConstructor(proxyConstructor);
+        }
+      }
+
+      // one bit per property, set while the property may have a pending loader
+      Map<String, Integer> properties = new LinkedHashMap<>();
+      for (Method method : methods) {
+        String name = method.getName();
+        if (!lazyLoadTriggerMethods.contains(name) && (PropertyNamer.isGetter(name) || PropertyNamer.isSetter(name))) {
+          properties.putIfAbsent(PropertyNamer.methodToProperty(name), properties.size());
+        }
+      }
+      int stateFields = (properties.size() + 63) / 64;
+      proxyClass.addField(CtField.make("private " + LazyLoadHandler.class.getName() + " " + HANDLER_FIELD + ";",
+          proxyClass));
+      StringBuilder setHandler = new StringBuilder("public void setLazyLoadHandler(")
+          .append(LazyLoadHandler.class.getName()).append(" handler) { this.").append(HANDLER_FIELD)
+          .append(" = handler;");
+      for (int i = 0; i < stateFields; i++) {
+        proxyClass.addField(CtField.make("private volatile long " + STATE_FIELD + i + ";", proxyClass));
+        setHandler.append(" this.").append(STATE_FIELD).append(i).append(" = -1L;");
+      }
+      proxyClass.addMethod(CtMethod.make(setHandler.append(" }").toString(), proxyClass));
+
+      boolean writeReplaceFound = false;
+      for (Method method : methods) {
+        String name = method.getName();
+        String superCall = (method.getReturnType() == void.class ? "" : "return ") + "super." + name + "($$);";
+        String body;
+        if (WRITE_REPLACE_METHOD.equals(name) && method.getParameterCount() == 0) {
+          body = "{ return this." + HANDLER_FIELD + ".writeReplace(this); }";
+          writeReplaceFound = true;
+        } else if (lazyLoadTriggerMethods.contains(name)) {
+          body = "{ if (this." + HANDLER_FIELD + " != null) { this." + HANDLER_FIELD + ".loadAll(); } " + superCall
+              + " }";
+        } else if (PropertyNamer.isGetter(name) || PropertyNamer.isSetter(name)) {
+          int index = properties.get(PropertyNamer.methodToProperty(name));
+          String state = "this." + STATE_FIELD + index / 64;
+          String mask = "(1L << " + index % 64 + ")";
+          String handlerCall = PropertyNamer.isGetter(name) ? "load" : "unload";
+          // the bit is cleared once the property is loaded, so concurrent getters wait for the handler
+          body = "{ if ((" + state + " & " + mask + ") != 0L) { this." + HANDLER_FIELD + "." + handlerCall + "(\""
+              + PropertyNamer.methodToProperty(name) + "\"); " + state + " = " + state + " & ~" + mask + "; } "
+              + superCall + " }";
+        } else {
+          continue;
+        }
+        proxyClass.addMethod(override(pool, proxyClass, method, body));
+      }
+      if (!writeReplaceFound && !declaresWriteReplace(type)) {
+        proxyClass.addInterface(pool.get(WriteReplaceInterface.class.getName()));
+        proxyClass.addMethod(CtMethod.make("public Object " + WRITE_REPLACE_METHOD
+            + "() throws java.io.ObjectStreamException { return this." + HANDLER_FIELD + ".writeReplace(this); }",
+            proxyClass));
+      }
+      return proxyClass.toBytecode();
+    } finally {
+      proxyClass.detach();
+    }
+  }
+
+  /**
+   * Returns the public and protected methods of the type that a subclass can override, or null if the type inherits
+   * default methods, which are not intercepted.
+   */
+  private static Collection<Method> overridableMethods(Class<?> type) {
+    Map<String, Method> methods = new LinkedHashMap<>();
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (Method method : current.getDeclaredMethods()) {
+        int modifiers = method.getModifiers();
+        if ((Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) && !Modifier.isStatic(modifiers)
+            && !method.isBridge() && !method.isSynthetic() && !FINALIZE_METHOD.equals(method.getName())) {
+          // a final method hides the methods it overrides too
+          methods.putIfAbsent(method.getName() + Arrays.toString(method.getParameterTypes()), method);
+        }
+      }
+    }
+    for (Method method : type.getMethods()) {
+      if (method.isDefault() && !methods.containsKey(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+        return null;
+      }
+    }
+    List<Method> overridable = new ArrayList<>();
+    for (Method method : methods.values()) {
+      if (!Modifier.isFinal(method.getModifiers()) && !Modifier.isAbstract(method.getModifiers())) {
+        overridable.add(method);
+      }
+    }
+    return overridable;
+  }
+
+  private static boolean declaresWriteReplace(Class<?> type) {
+    try {
+      type.getDeclaredMethod(WRITE_REPLACE_METHOD);
+      // ObjectOutputStream will call writeReplace of objects returned by writeReplace
+      if (LogHolder.log.isDebugEnabled()) {
+        LogHolder.log.debug(WRITE_REPLACE_METHOD + " method was found on bean " + type + ", make sure it returns this");
+      }
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static CtMethod override(ClassPool pool, CtClass proxyClass, Method method, String body)
+      throws Exception {
+    CtMethod override = new CtMethod(ctClass(pool, method.getReturnType()), method.getName(),
+        ctClasses(pool, method.getParameterTypes()), proxyClass);
+    override.setModifiers(method.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED));
+    override.setExceptionTypes(ctClasses(pool, method.getExceptionTypes()));
+    override.setBody(body);
+    return override;
+  }
+
+  private static CtClass[] ctClasses(ClassPool pool, Class<?>[] types) throws NotFoundException {
+    CtClass[] ctClasses = new CtClass[types.length];
+    for (int i = 0; i < types.length; i++) {
+      ctClasses[i] = ctClass(pool, types[i]);
+    }
+    return ctClasses;
+  }
+
+  private static CtClass ctClass(ClassPool pool, Class<?> type) throws NotFoundException {
+    return pool.get(type.isArray() ? ctClass(pool, type.getComponentType()).getName() + "[]" : type.getName());
+  }
+
+  private static class LogHolder {
+    private static final Log log = LogFactory.getLog(HiddenClassProxyFactory.class);
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader.hiddenclass;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.loader.AbstractSerialStateHolder;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+
+class HiddenClassSerialStateHolder extends AbstractSerialStateHolder {
+
+  private static final long serialVersionUID = -3561946264553867592L;
+
+  public HiddenClassSerialStateHolder() {
+  }
+
+  public HiddenClassSerialStateHolder(final Object userBean,
+      final Map<String, ResultLoaderMap.LoadPair> unloadedProperties, final ObjectFactory objectFactory,
+      List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    super(userBean, unloadedProperties, objectFactory, constructorArgTypes, constructorArgs);
+  }
+
+  @Override
+  protected Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
+      ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    return new HiddenClassProxyFactory().createDeserializationProxy(target, unloadedProperties, objectFactory,
+        constructorArgTypes, constructorArgs);
+  }
+}
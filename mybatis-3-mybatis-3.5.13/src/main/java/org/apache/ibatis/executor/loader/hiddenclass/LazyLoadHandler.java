@@ -0,0 +1,133 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader.hiddenclass;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyCopier;
+
+/**
+ * The state shared by a proxy generated by {@link HiddenClassProxyFactory} and its loaders. The generated methods call
+ * it only while the property they access may still be unloaded.
+ *
+ * @since 3.5.14
+ */
+public final class LazyLoadHandler {
+
+  private final Class<?> type;
+  private final ResultLoaderMap lazyLoader;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ObjectFactory objectFactory;
+  private final List<Class<?>> constructorArgTypes;
+  private final List<Object> constructorArgs;
+
+  LazyLoadHandler(Class<?> type, ResultLoaderMap lazyLoader, ObjectFactory objectFactory,
+      List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    this.type = type;
+    this.lazyLoader = lazyLoader;
+    this.objectFactory = objectFactory;
+    this.constructorArgTypes = constructorArgTypes;
+    this.constructorArgs = constructorArgs;
+  }
+
+  /**
+   * Called by a getter: loads the property if it has a pending loader.
+   *
+   * @param property
+   *          the property
+   *
+   * @throws SQLException
+   *           if the property could not be loaded
+   */
+  public void load(String property) throws SQLException {
+    lock.lock();
+    try {
+      if (lazyLoader.size() > 0 && lazyLoader.hasLoader(property)) {
+        lazyLoader.load(property);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Called by a setter: the value being set replaces the one that would have been loaded.
+   *
+   * @param property
+   *          the property
+   */
+  public void unload(String property) {
+    lock.lock();
+    try {
+      if (lazyLoader.size() > 0) {
+        lazyLoader.remove(property);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Called by the lazy load trigger methods.
+   *
+   * @throws SQLException
+   *           if a property could not be loaded
+   */
+  public void loadAll() throws SQLException {
+    lock.lock();
+    try {
+      if (lazyLoader.size() > 0) {
+        lazyLoader.loadAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Called by {@code writeReplace}: returns a copy of the proxy as an instance of the original type, wrapped with its
+   * unloaded properties if there are any.
+   *
+   * @param enhanced
+   *          the proxy
+   *
+   * @return the object to serialize instead of the proxy
+   */
+  public Object writeReplace(Object enhanced) {
+    lock.lock();
+    try {
+      Object original;
+      if (constructorArgTypes.isEmpty()) {
+        original = objectFactory.create(type);
+      } else {
+        original = objectFactory.create(type, constructorArgTypes, constructorArgs);
+      }
+      PropertyCopier.copyBeanProperties(type, enhanced, original);
+      if (lazyLoader.size() > 0) {
+        return new HiddenClassSerialStateHolder(original, lazyLoader.getProperties(), objectFactory,
+            constructorArgTypes, constructorArgs);
+      }
+      return original;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
@@ -41,12 +41,16 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.MultiKeyQuery;
 import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderBatch;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.jfr.FlightRecorderEvents;
+import org.apache.ibatis.jfr.RecordedPhase;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -98,6 +102,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
     private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
+    // lazy load batches by nested query and sql
+    private final Map<String, ResultLoaderBatch> lazyLoadBatches = new HashMap<>();
+
+    // eager load batches by nested query and sql, loaded once all result sets are handled
+    private final Map<String, ResultLoaderBatch> eagerLoadBatches = new HashMap<>();
+    private final List<PendingEagerLoad> pendingEagerLoads = new ArrayList<>();
+    private boolean batchEagerLoads;
+
     // Cached Automappings
     private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
     private final Map<String, List<String>> constructorAutoMappingColumns = new HashMap<>();
@@ -110,6 +122,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         public ResultMapping propertyMapping;
     }
 
+    private static class PendingEagerLoad {
+        public MetaObject metaObject;
+        public String property;
+        public ResultLoader resultLoader;
+    }
+
     private static class UnMappedColumnAutoMapping {
         private final String column;
         private final String property;
@@ -147,6 +165,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         final Object parameterObject = parameterHandler.getParameterObject();
         final MetaObject metaParam = configuration.newMetaObject(parameterObject);
         final List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+//        游标类型的OUT参数同样可以把立即加载的嵌套查询攒成一批，在所有OUT参数处理完后统一加载
+        batchEagerLoads = resultHandler == null && configuration.getEagerLoadBatchSize() > 1;
         for (int i = 0; i < parameterMappings.size(); i++) {
             final ParameterMapping parameterMapping = parameterMappings.get(i);
             if (parameterMapping.getMode() == ParameterMode.OUT || parameterMapping.getMode() == ParameterMode.INOUT) {
@@ -158,6 +178,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 }
             }
         }
+        loadEagerBatches();
     }
 
     private void handleRefCursorOutputParameter(ResultSet rs, ParameterMapping parameterMapping, MetaObject metaParam)
@@ -188,10 +209,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     @Override
     public List<Object> handleResultSets(Statement stmt) throws SQLException {
         ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
+        RecordedPhase phase = FlightRecorderEvents.resultSetHandling(mappedStatement.getId());
 
         final List<Object> multipleResults = new ArrayList<>();
 
         int resultSetCount = 0;
+//        结果只有在全部处理完后才交给调用方时，才能推迟立即加载的嵌套查询
+        batchEagerLoads = resultHandler == null && configuration.getEagerLoadBatchSize() > 1;
 //        先获取第一个结果集
         ResultSetWrapper rsw = getFirstResultSet(stmt);
 //        获取resultMaps集合，这是Mapper配置文件中写的那个 结果集到Java类的映射关系集合
@@ -222,6 +246,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             }
         }
 
+        loadEagerBatches();
+
+        long rows = 0;
+        for (Object result : multipleResults) {
+            rows += ((List<?>) result).size();
+        }
+        phase.setRows(rows);
+        phase.commit();
         return collapseSingleResultList(multipleResults);
     }
 
@@ -907,6 +939,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                     nestedQueryParameterObject, targetType, key, nestedBoundSql);
                 if (propertyMapping.isLazy()) {
                     lazyLoader.addLoader(property, metaResultObject, resultLoader);
+                    addToLazyLoadBatch(nestedQuery, nestedQueryParameterObject, nestedBoundSql, resultLoader);
+                    value = DEFERRED;
+                } else if (batchEagerLoads
+                    && addToEagerLoadBatch(nestedQuery, nestedQueryParameterObject, nestedBoundSql, resultLoader)) {
+                    PendingEagerLoad pendingEagerLoad = new PendingEagerLoad();
+                    pendingEagerLoad.metaObject = metaResultObject;
+                    pendingEagerLoad.property = property;
+                    pendingEagerLoad.resultLoader = resultLoader;
+                    pendingEagerLoads.add(pendingEagerLoad);
                     value = DEFERRED;
                 } else {
                     value = resultLoader.loadResult();
@@ -916,6 +957,66 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return value;
     }
 
+    private boolean addToEagerLoadBatch(MappedStatement nestedQuery, Object nestedQueryParameterObject,
+                                        BoundSql nestedBoundSql, ResultLoader resultLoader) {
+        String batchId = nestedQuery.getId() + '\n' + nestedBoundSql.getSql();
+        ResultLoaderBatch batch = eagerLoadBatches.get(batchId);
+        if (batch == null && !eagerLoadBatches.containsKey(batchId)) {
+            MultiKeyQuery query = MultiKeyQuery.of(configuration, nestedQuery, nestedBoundSql, nestedQueryParameterObject);
+            batch = query == null ? null : new ResultLoaderBatch(query, configuration.getEagerLoadBatchSize());
+            eagerLoadBatches.put(batchId, batch);
+        }
+        if (batch == null) {
+            return false;
+        }
+        batch.add(resultLoader);
+        return true;
+    }
+
+    private void loadEagerBatches() throws SQLException {
+//        批量只在一个处理阶段内有效，之后（例如通过游标取结果时）按原来的方式逐个加载
+        batchEagerLoads = false;
+        if (pendingEagerLoads.isEmpty()) {
+            return;
+        }
+        for (ResultLoaderBatch batch : eagerLoadBatches.values()) {
+            if (batch != null) {
+                batch.loadAll();
+            }
+        }
+        for (PendingEagerLoad pendingEagerLoad : pendingEagerLoads) {
+            final MetaObject metaObject = pendingEagerLoad.metaObject;
+            final String property = pendingEagerLoad.property;
+            // loaders left out of their batch query load by themselves
+            final Object value = pendingEagerLoad.resultLoader.loadResult();
+            if (value != null
+                || configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive()) {
+                metaObject.setValue(property, value);
+            }
+        }
+        pendingEagerLoads.clear();
+        eagerLoadBatches.clear();
+    }
+
+    private void addToLazyLoadBatch(MappedStatement nestedQuery, Object nestedQueryParameterObject,
+                                    BoundSql nestedBoundSql, ResultLoader resultLoader) {
+        int batchSize = configuration.getLazyLoadBatchSize();
+        if (batchSize < 2) {
+            return;
+        }
+//        同一个嵌套查询（且SQL相同）的延迟加载器放在同一批里，不支持批量的查询记为null
+        String batchId = nestedQuery.getId() + '\n' + nestedBoundSql.getSql();
+        ResultLoaderBatch batch = lazyLoadBatches.get(batchId);
+        if (batch == null && !lazyLoadBatches.containsKey(batchId)) {
+            MultiKeyQuery query = MultiKeyQuery.of(configuration, nestedQuery, nestedBoundSql, nestedQueryParameterObject);
+            batch = query == null ? null : new ResultLoaderBatch(query, batchSize);
+            lazyLoadBatches.put(batchId, batch);
+        }
+        if (batch != null) {
+            batch.add(resultLoader);
+        }
+    }
+
     private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType,
                                                   String columnPrefix) throws SQLException {
         if (resultMapping.isCompositeResult()) {
@@ -25,6 +25,8 @@ import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.jfr.FlightRecorderEvents;
+import org.apache.ibatis.jfr.RecordedPhase;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
@@ -85,11 +87,13 @@ public abstract class BaseStatementHandler implements StatementHandler {
   @Override
   public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
     ErrorContext.instance().sql(boundSql.getSql());
+    RecordedPhase phase = FlightRecorderEvents.statementPrepare(mappedStatement.getId());
     Statement statement = null;
     try {
       statement = instantiateStatement(connection);
       setStatementTimeout(statement, transactionTimeout);
       setFetchSize(statement);
+      phase.commit();
       return statement;
     } catch (SQLException e) {
       closeStatement(statement);
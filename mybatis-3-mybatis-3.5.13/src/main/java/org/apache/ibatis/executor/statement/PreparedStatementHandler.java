@@ -26,6 +26,8 @@ import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.jfr.FlightRecorderEvents;
+import org.apache.ibatis.jfr.RecordedPhase;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
@@ -62,7 +64,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
+    RecordedPhase phase = FlightRecorderEvents.statementExecute(mappedStatement.getId());
     ps.execute();
+    phase.commit();
     return resultSetHandler.handleResultSets(ps);
   }
 
@@ -94,7 +98,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
 
   @Override
   public void parameterize(Statement statement) throws SQLException {
+    RecordedPhase phase = FlightRecorderEvents.parameterBinding(mappedStatement.getId());
     parameterHandler.setParameters((PreparedStatement) statement);
+    phase.commit();
   }
 
 }
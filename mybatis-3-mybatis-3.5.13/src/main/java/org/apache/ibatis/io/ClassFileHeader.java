@@ -0,0 +1,275 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The declaration of a class as read directly from its class file, without loading the class.
+ * <p>
+ * Only the constant pool, the access flags, the super types and the {@code InnerClasses} and
+ * {@code RuntimeVisibleAnnotations} attributes are read. This is what {@link ResolverUtil} needs to discard candidate
+ * classes before handing them to the class loader.
+ *
+ * @since 3.5.14
+ */
+public class ClassFileHeader {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ABSTRACT = 0x0400;
+  private static final int ACC_ANNOTATION = 0x2000;
+  private static final int ACC_MODULE = 0x8000;
+
+  private final int accessFlags;
+  private final String className;
+  private final String superClassName;
+  private final List<String> interfaceNames;
+  private final List<String> annotationNames;
+  private final boolean memberClass;
+  private final boolean anonymousClass;
+
+  private ClassFileHeader(int accessFlags, String className, String superClassName, List<String> interfaceNames,
+      List<String> annotationNames, boolean memberClass, boolean anonymousClass) {
+    this.accessFlags = accessFlags;
+    this.className = className;
+    this.superClassName = superClassName;
+    this.interfaceNames = interfaceNames;
+    this.annotationNames = annotationNames;
+    this.memberClass = memberClass;
+    this.anonymousClass = anonymousClass;
+  }
+
+  /**
+   * Reads the header of a class file.
+   *
+   * @param inputStream
+   *          the class file content
+   *
+   * @return the class file header
+   *
+   * @throws IOException
+   *           if the stream could not be read or does not contain a class file
+   */
+  public static ClassFileHeader read(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a class file");
+    }
+    in.readUnsignedShort(); // minor version
+    in.readUnsignedShort(); // major version
+
+    int constantPoolCount = in.readUnsignedShort();
+    String[] utf8 = new String[constantPoolCount];
+    int[] classNameIndex = new int[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8[i] = in.readUTF();
+          break;
+        case 7: // Class
+          classNameIndex[i] = in.readUnsignedShort();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          in.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          in.skipBytes(3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          in.skipBytes(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          in.skipBytes(8);
+          i++;
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag);
+      }
+    }
+
+    int accessFlags = in.readUnsignedShort();
+    int thisClass = in.readUnsignedShort();
+    String className = className(utf8, classNameIndex, thisClass);
+    String superClassName = className(utf8, classNameIndex, in.readUnsignedShort());
+    int interfaceCount = in.readUnsignedShort();
+    List<String> interfaceNames = new ArrayList<>(interfaceCount);
+    for (int i = 0; i < interfaceCount; i++) {
+      interfaceNames.add(className(utf8, classNameIndex, in.readUnsignedShort()));
+    }
+    skipMembers(in);
+    skipMembers(in);
+
+    List<String> annotationNames = Collections.emptyList();
+    boolean memberClass = false;
+    boolean anonymousClass = false;
+    int attributeCount = in.readUnsignedShort();
+    for (int i = 0; i < attributeCount; i++) {
+      String attributeName = utf8[in.readUnsignedShort()];
+      int length = in.readInt();
+      if ("InnerClasses".equals(attributeName)) {
+        int classes = in.readUnsignedShort();
+        for (int j = 0; j < classes; j++) {
+          int innerClass = in.readUnsignedShort();
+          int outerClass = in.readUnsignedShort();
+          int innerName = in.readUnsignedShort();
+          in.skipBytes(2);
+          if (innerClass == thisClass || className.equals(className(utf8, classNameIndex, innerClass))) {
+            memberClass = outerClass != 0;
+            anonymousClass = innerName == 0;
+          }
+        }
+      } else if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+        int annotations = in.readUnsignedShort();
+        annotationNames = new ArrayList<>(annotations);
+        for (int j = 0; j < annotations; j++) {
+          annotationNames.add(readAnnotation(in, utf8));
+        }
+      } else {
+        in.skipBytes(length);
+      }
+    }
+    return new ClassFileHeader(accessFlags, className, superClassName, interfaceNames, annotationNames, memberClass,
+        anonymousClass);
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  /**
+   * Returns the name of the super class.
+   *
+   * @return the super class name, or {@code null} for {@code java.lang.Object} and module descriptors
+   */
+  public String getSuperClassName() {
+    return superClassName;
+  }
+
+  public List<String> getInterfaceNames() {
+    return interfaceNames;
+  }
+
+  /**
+   * Returns the names of the runtime visible annotations declared on the class itself. Inherited annotations are not
+   * included.
+   *
+   * @return the annotation type names
+   */
+  public List<String> getAnnotationNames() {
+    return annotationNames;
+  }
+
+  /**
+   * Returns whether the class is an interface, including annotation types and {@code package-info}.
+   *
+   * @return true if the class is an interface
+   */
+  public boolean isInterface() {
+    return (accessFlags & ACC_INTERFACE) != 0;
+  }
+
+  public boolean isAnnotation() {
+    return (accessFlags & ACC_ANNOTATION) != 0;
+  }
+
+  public boolean isAbstract() {
+    return (accessFlags & ACC_ABSTRACT) != 0;
+  }
+
+  public boolean isModule() {
+    return (accessFlags & ACC_MODULE) != 0;
+  }
+
+  public boolean isMemberClass() {
+    return memberClass;
+  }
+
+  public boolean isAnonymousClass() {
+    return anonymousClass;
+  }
+
+  private static String className(String[] utf8, int[] classNameIndex, int index) {
+    if (index == 0) {
+      return null;
+    }
+    return utf8[classNameIndex[index]].replace('/', '.');
+  }
+
+  private static void skipMembers(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      in.skipBytes(6);
+      int attributeCount = in.readUnsignedShort();
+      for (int j = 0; j < attributeCount; j++) {
+        in.skipBytes(2);
+        in.skipBytes(in.readInt());
+      }
+    }
+  }
+
+  private static String readAnnotation(DataInputStream in, String[] utf8) throws IOException {
+    String descriptor = utf8[in.readUnsignedShort()];
+    int pairs = in.readUnsignedShort();
+    for (int i = 0; i < pairs; i++) {
+      in.skipBytes(2);
+      skipElementValue(in, utf8);
+    }
+    // descriptor is of the form Lcom/example/Annotation;
+    return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+  }
+
+  private static void skipElementValue(DataInputStream in, String[] utf8) throws IOException {
+    int tag = in.readUnsignedByte();
+    switch (tag) {
+      case 'e':
+        in.skipBytes(4);
+        break;
+      case '@':
+        readAnnotation(in, utf8);
+        break;
+      case '[':
+        int values = in.readUnsignedShort();
+        for (int i = 0; i < values; i++) {
+          skipElementValue(in, utf8);
+        }
+        break;
+      default:
+        in.skipBytes(2);
+        break;
+    }
+  }
+
+}
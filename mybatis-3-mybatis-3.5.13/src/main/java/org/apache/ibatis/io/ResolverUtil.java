@@ -16,10 +16,13 @@
 package org.apache.ibatis.io;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -224,8 +227,11 @@ public class ResolverUtil<T> {
     }
 
     Test test = new AnnotatedWith(annotation);
+    // inherited annotations are not visible in the class file of a subclass
+    Predicate<ClassFileHeader> candidateFilter = annotation.isAnnotationPresent(Inherited.class) ? null
+        : header -> header.getAnnotationNames().contains(annotation.getName());
     for (String pkg : packageNames) {
-      find(test, pkg);
+      find(test, pkg, candidateFilter);
     }
 
     return this;
@@ -244,12 +250,32 @@ public class ResolverUtil<T> {
    * @return the resolver util
    */
   public ResolverUtil<T> find(Test test, String packageName) {
+    return find(test, packageName, null);
+  }
+
+  /**
+   * Scans for classes like {@link #find(Test, String)}, but first reads the header of each class file and only loads
+   * the classes accepted by the given filter. Classes that are rejected by the filter are never loaded, which avoids
+   * defining every class of a package when only a few of them can match.
+   *
+   * @param test
+   *          an instance of {@link Test} that will be used to filter classes
+   * @param packageName
+   *          the name of the package from which to start scanning for classes, e.g. {@code net.sourceforge.stripes}
+   * @param candidateFilter
+   *          the filter applied to the class file headers, may be {@code null}
+   *
+   * @return the resolver util
+   *
+   * @since 3.5.14
+   */
+  public ResolverUtil<T> find(Test test, String packageName, Predicate<ClassFileHeader> candidateFilter) {
     String path = getPackagePath(packageName);
 
     try {
       List<String> children = VFS.getInstance().list(path);
       for (String child : children) {
-        if (child.endsWith(".class")) {
+        if (child.endsWith(".class") && (candidateFilter == null || isCandidate(candidateFilter, child))) {
           addIfMatching(test, child);
         }
       }
@@ -273,6 +299,33 @@ public class ResolverUtil<T> {
     return packageName == null ? null : packageName.replace('.', '/');
   }
 
+  /**
+   * Reads the header of the given class file and applies the filter to it. Class files that cannot be read are left to
+   * {@link #addIfMatching(Test, String)}.
+   *
+   * @param candidateFilter
+   *          the filter applied to the class file header
+   * @param fqn
+   *          the fully qualified name of a class
+   *
+   * @return false if the class can be skipped without loading it
+   */
+  protected boolean isCandidate(Predicate<ClassFileHeader> candidateFilter, String fqn) {
+    ClassFileHeader header;
+    try (InputStream inputStream = getClassLoader().getResourceAsStream(fqn)) {
+      if (inputStream == null) {
+        return true;
+      }
+      header = ClassFileHeader.read(inputStream);
+    } catch (IOException | RuntimeException e) {
+      if (log.isDebugEnabled()) {
+        log.debug("Could not read class file header of '" + fqn + "', loading the class instead. Cause: " + e);
+      }
+      return true;
+    }
+    return !header.isModule() && candidateFilter.test(header);
+  }
+
   /**
    * Add the class designated by the fully qualified class name provided to the set of resolved classes if and only if
    * it is approved by the Test supplied.
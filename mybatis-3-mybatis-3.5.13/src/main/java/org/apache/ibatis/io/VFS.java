@@ -224,7 +224,7 @@ public abstract class VFS {
 
   /**
    * Recursively list the full resource path of all the resources that are children of all the resources found at the
-   * specified path.
+   * specified path. If a build-time listing of the path exists (see {@link VFSIndex}), it is returned instead.
    *
    * @param path
    *          The path of the resource(s) to list.
@@ -235,6 +235,10 @@ public abstract class VFS {
    *           If I/O errors occur
    */
   public List<String> list(String path) throws IOException {
+    List<String> indexed = VFSIndex.list(path);
+    if (indexed != null) {
+      return indexed;
+    }
     List<String> names = new ArrayList<>();
     for (URL url : getResources(path)) {
       names.addAll(list(url, path));
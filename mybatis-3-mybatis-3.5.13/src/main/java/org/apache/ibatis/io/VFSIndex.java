@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build-time generated listings of the resources below a package, consulted by {@link VFS#list(String)} instead of
+ * scanning directories and JAR files.
+ * <p>
+ * The listing of a path is stored in {@code META-INF/mybatis/vfs-index/<path>.list}, one resource path per line. When
+ * several JAR files provide a listing for the same path, their listings are merged. Note that resources of a package
+ * contributed by a JAR without a listing are not seen once any listing for that package exists, so every JAR contributing
+ * to an indexed package should be indexed.
+ *
+ * @since 3.5.14
+ */
+public final class VFSIndex {
+
+  public static final String INDEX_LOCATION = "META-INF/mybatis/vfs-index/";
+
+  private VFSIndex() {
+  }
+
+  /**
+   * Returns the indexed resources below the given path.
+   *
+   * @param path
+   *          the resource path, e.g. {@code org/example/mappers}
+   *
+   * @return the full resource paths, or {@code null} if the path is not indexed
+   *
+   * @throws IOException
+   *           if an index could not be read
+   */
+  public static List<String> list(String path) throws IOException {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    Enumeration<URL> indexes = classLoader.getResources(indexResource(path));
+    if (!indexes.hasMoreElements()) {
+      return null;
+    }
+    List<String> resources = new ArrayList<>();
+    while (indexes.hasMoreElements()) {
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+        for (String line; (line = reader.readLine()) != null;) {
+          if (!line.isEmpty()) {
+            resources.add(line);
+          }
+        }
+      }
+    }
+    return resources;
+  }
+
+  static String indexResource(String path) {
+    String normalized = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    return INDEX_LOCATION + normalized + ".list";
+  }
+
+  /**
+   * Writes the listings for the given packages of a class output directory into the same directory.
+   * <p>
+   * Usage: {@code VFSIndex <classes directory> <package>...}, typically run at build time after compilation (e.g. from
+   * the exec-maven-plugin) for the packages named in {@code <typeAliases>}, {@code <typeHandlers>} and
+   * {@code <mappers>}.
+   *
+   * @param args
+   *          the class output directory followed by one or more package names
+   *
+   * @throws IOException
+   *           if the directory could not be listed or an index could not be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Usage: VFSIndex <classes directory> <package>...");
+    }
+    Path root = Paths.get(args[0]);
+    for (int i = 1; i < args.length; i++) {
+      String path = args[i].replace('.', '/');
+      Path packageDir = root.resolve(path);
+      if (!Files.isDirectory(packageDir)) {
+        continue;
+      }
+      List<String> resources;
+      try (Stream<Path> files = Files.walk(packageDir)) {
+        resources = files.filter(Files::isRegularFile).map(file -> root.relativize(file).toString().replace('\\', '/'))
+            .sorted().collect(Collectors.toList());
+      }
+      Path index = root.resolve(indexResource(path));
+      Files.createDirectories(index.getParent());
+      try (Writer writer = new BufferedWriter(Files.newBufferedWriter(index, StandardCharsets.UTF_8))) {
+        for (String resource : resources) {
+          writer.write(resource);
+          writer.write('\n');
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jfr;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Entry point for recording statement execution phases as Java Flight Recorder events.
+ * <p>
+ * The events are:
+ * <ul>
+ * <li>{@code org.apache.ibatis.Query}: a query that missed the local cache, from {@code BaseExecutor}</li>
+ * <li>{@code org.apache.ibatis.ConnectionAcquire}: obtaining a connection from {@code PooledDataSource}</li>
+ * <li>{@code org.apache.ibatis.StatementPrepare}: creating and configuring the JDBC statement</li>
+ * <li>{@code org.apache.ibatis.ParameterBinding}: setting the statement parameters</li>
+ * <li>{@code org.apache.ibatis.StatementExecute}: executing the JDBC statement</li>
+ * <li>{@code org.apache.ibatis.ResultSetHandling}: mapping the result sets</li>
+ * </ul>
+ * They are recorded while a recording is running (e.g. {@code jcmd <pid> JFR.start}) and can be disabled or given a
+ * threshold in the recording settings like any other event. When no recording has them enabled, or when Flight Recorder
+ * is not available (e.g. a runtime image without the {@code jdk.jfr} module), {@link RecordedPhase#DISABLED} is returned
+ * without allocating.
+ *
+ * @since 3.5.14
+ */
+public final class FlightRecorderEvents {
+
+  private static final Log log = LogFactory.getLog(FlightRecorderEvents.class);
+
+  private static final PhaseFactory factory = loadFactory();
+
+  private FlightRecorderEvents() {
+  }
+
+  public static RecordedPhase query(String statementId) {
+    return factory.query(statementId);
+  }
+
+  public static RecordedPhase connectionAcquire(String url) {
+    return factory.connectionAcquire(url);
+  }
+
+  public static RecordedPhase statementPrepare(String statementId) {
+    return factory.statementPrepare(statementId);
+  }
+
+  public static RecordedPhase parameterBinding(String statementId) {
+    return factory.parameterBinding(statementId);
+  }
+
+  public static RecordedPhase statementExecute(String statementId) {
+    return factory.statementExecute(statementId);
+  }
+
+  public static RecordedPhase resultSetHandling(String statementId) {
+    return factory.resultSetHandling(statementId);
+  }
+
+  private static PhaseFactory loadFactory() {
+    try {
+      return (PhaseFactory) Class.forName("org.apache.ibatis.jfr.JfrEventFactory").getDeclaredConstructor()
+          .newInstance();
+    } catch (Throwable t) {
+      if (log.isDebugEnabled()) {
+        log.debug("Java Flight Recorder is not available, MyBatis events are disabled. Cause: " + t);
+      }
+      return new PhaseFactory();
+    }
+  }
+
+  static class PhaseFactory {
+
+    RecordedPhase query(String statementId) {
+      return RecordedPhase.DISABLED;
+    }
+
+    RecordedPhase connectionAcquire(String url) {
+      return RecordedPhase.DISABLED;
+    }
+
+    RecordedPhase statementPrepare(String statementId) {
+      return RecordedPhase.DISABLED;
+    }
+
+    RecordedPhase parameterBinding(String statementId) {
+      return RecordedPhase.DISABLED;
+    }
+
+    RecordedPhase statementExecute(String statementId) {
+      return RecordedPhase.DISABLED;
+    }
+
+    RecordedPhase resultSetHandling(String statementId) {
+      return RecordedPhase.DISABLED;
+    }
+
+  }
+
+}
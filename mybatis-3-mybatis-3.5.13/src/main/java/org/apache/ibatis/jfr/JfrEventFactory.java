@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jfr;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jdk.jfr.AnnotationElement;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventFactory;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.ValueDescriptor;
+
+/**
+ * Creates the Flight Recorder events. Loaded reflectively by {@link FlightRecorderEvents} so that the rest of MyBatis
+ * does not depend on the {@code jdk.jfr} module.
+ * <p>
+ * The events are defined with {@link EventFactory} and accessed through method handles rather than by subclassing
+ * {@code jdk.jfr.Event}, because {@code javac --release 16} cannot resolve the internal super class of
+ * {@code jdk.jfr.Event}.
+ */
+final class JfrEventFactory extends FlightRecorderEvents.PhaseFactory {
+
+  private static final MethodHandle BEGIN;
+  private static final MethodHandle SET;
+  private static final MethodHandle COMMIT;
+
+  static {
+    try {
+      Class<?> eventClass = Class.forName("jdk.jfr.Event");
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      BEGIN = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class))
+          .asType(MethodType.methodType(void.class, Object.class));
+      SET = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class))
+          .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+      COMMIT = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class))
+          .asType(MethodType.methodType(void.class, Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Definition query = new Definition("Query", "Query",
+      "A query executed against the database because it was not found in the local cache", statementId(), rows());
+  private final Definition connectionAcquire = new Definition("ConnectionAcquire", "Connection Acquire",
+      "Obtaining a connection from a pooled data source", field(String.class, "url", "URL", null),
+      field(boolean.class, "waited", "Waited", "Whether the pool was exhausted and the thread had to wait"),
+      field(int.class, "badConnectionCount", "Bad Connections",
+          "Invalid connections discarded while acquiring the connection"));
+  private final Definition statementPrepare = new Definition("StatementPrepare", "Statement Prepare",
+      "Creating and configuring a JDBC statement", statementId());
+  private final Definition parameterBinding = new Definition("ParameterBinding", "Parameter Binding",
+      "Setting the parameters of a JDBC statement", statementId());
+  private final Definition statementExecute = new Definition("StatementExecute", "Statement Execute",
+      "Executing a JDBC statement, excluding result mapping", statementId());
+  private final Definition resultSetHandling = new Definition("ResultSetHandling", "Result Set Handling",
+      "Mapping the result sets of a JDBC statement to objects", statementId(), rows());
+
+  @Override
+  RecordedPhase query(String statementId) {
+    return query.begin(statementId);
+  }
+
+  @Override
+  RecordedPhase connectionAcquire(String url) {
+    return connectionAcquire.begin(url);
+  }
+
+  @Override
+  RecordedPhase statementPrepare(String statementId) {
+    return statementPrepare.begin(statementId);
+  }
+
+  @Override
+  RecordedPhase parameterBinding(String statementId) {
+    return parameterBinding.begin(statementId);
+  }
+
+  @Override
+  RecordedPhase statementExecute(String statementId) {
+    return statementExecute.begin(statementId);
+  }
+
+  @Override
+  RecordedPhase resultSetHandling(String statementId) {
+    return resultSetHandling.begin(statementId);
+  }
+
+  private static ValueDescriptor statementId() {
+    return field(String.class, "statementId", "Statement Id", null);
+  }
+
+  private static ValueDescriptor rows() {
+    return field(long.class, "rows", "Rows", null);
+  }
+
+  private static ValueDescriptor field(Class<?> type, String name, String label, String description) {
+    List<AnnotationElement> annotations = new ArrayList<>();
+    annotations.add(new AnnotationElement(Label.class, label));
+    if (description != null) {
+      annotations.add(new AnnotationElement(Description.class, description));
+    }
+    return new ValueDescriptor(type, name, annotations);
+  }
+
+  private static final class Definition {
+
+    private final EventFactory factory;
+    private final int rowsIndex;
+    private final int waitedIndex;
+    private final int badConnectionCountIndex;
+
+    Definition(String name, String label, String description, ValueDescriptor... fields) {
+      List<AnnotationElement> annotations = Arrays.asList(new AnnotationElement(Name.class, "org.apache.ibatis." + name),
+          new AnnotationElement(Label.class, label), new AnnotationElement(Description.class, description),
+          new AnnotationElement(Category.class, new String[] { "MyBatis" }),
+          new AnnotationElement(StackTrace.class, false));
+      this.factory = EventFactory.create(annotations, Arrays.asList(fields));
+      this.rowsIndex = indexOf(fields, "rows");
+      this.waitedIndex = indexOf(fields, "waited");
+      this.badConnectionCountIndex = indexOf(fields, "badConnectionCount");
+    }
+
+    RecordedPhase begin(String firstValue) {
+      if (!factory.getEventType().isEnabled()) {
+        return RecordedPhase.DISABLED;
+      }
+      Object event = factory.newEvent();
+      set(event, 0, firstValue);
+      invoke(BEGIN, event);
+      return new Phase(this, event);
+    }
+
+    void set(Object event, int index, Object value) {
+      if (index < 0) {
+        return;
+      }
+      try {
+        SET.invokeExact(event, index, value);
+      } catch (Throwable t) {
+        throw new IllegalStateException("Could not set field " + index + " of a Flight Recorder event", t);
+      }
+    }
+
+    static void invoke(MethodHandle handle, Object event) {
+      try {
+        handle.invokeExact(event);
+      } catch (Throwable t) {
+        throw new IllegalStateException("Could not record a Flight Recorder event", t);
+      }
+    }
+
+    private static int indexOf(ValueDescriptor[] fields, String name) {
+      for (int i = 0; i < fields.length; i++) {
+        if (fields[i].getName().equals(name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+  }
+
+  private static final class Phase implements RecordedPhase {
+
+    private final Definition definition;
+    private final Object event;
+
+    Phase(Definition definition, Object event) {
+      this.definition = definition;
+      this.event = event;
+    }
+
+    @Override
+    public void setRows(long rows) {
+      definition.set(event, definition.rowsIndex, rows);
+    }
+
+    @Override
+    public void setWaited(boolean waited) {
+      definition.set(event, definition.waitedIndex, waited);
+    }
+
+    @Override
+    public void setBadConnectionCount(int badConnectionCount) {
+      definition.set(event, definition.badConnectionCountIndex, badConnectionCount);
+    }
+
+    @Override
+    public void commit() {
+      Definition.invoke(COMMIT, event);
+    }
+
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jfr;
+
+/**
+ * A phase of statement execution being recorded as a Java Flight Recorder event.
+ * <p>
+ * A phase starts when it is obtained from {@link FlightRecorderEvents} and ends when {@link #commit()} is called. When
+ * Flight Recorder is not available or the event is not enabled, the shared {@link #DISABLED} phase is returned and all
+ * calls are no-ops.
+ *
+ * @since 3.5.14
+ */
+public interface RecordedPhase {
+
+  RecordedPhase DISABLED = () -> {
+  };
+
+  /**
+   * Sets the number of rows returned or affected by this phase.
+   *
+   * @param rows
+   *          the row count
+   */
+  default void setRows(long rows) {
+  }
+
+  /**
+   * Sets whether the thread had to wait for a pooled connection.
+   *
+   * @param waited
+   *          true if the thread waited
+   */
+  default void setWaited(boolean waited) {
+  }
+
+  /**
+   * Sets the number of bad connections discarded while acquiring a pooled connection.
+   *
+   * @param badConnectionCount
+   *          the number of discarded connections
+   */
+  default void setBadConnectionCount(int badConnectionCount) {
+  }
+
+  /**
+   * Ends this phase and writes the event if it is enabled and exceeds the configured threshold.
+   */
+  void commit();
+
+}
@@ -24,13 +24,23 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatsCounter;
+import org.apache.ibatis.cache.CacheWeightBudget;
+import org.apache.ibatis.cache.CacheWeigher;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.DependencyTrackingCache;
+import org.apache.ibatis.cache.decorators.IdentityIndexCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.NearCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SnapshotCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TableDependencyCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.InvalidationChannel;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -44,8 +54,15 @@ public class CacheBuilder {
     private Integer size;
     private Long clearInterval;
     private boolean readWrite;
+    private boolean snapshot;
     private Properties properties;
     private boolean blocking;
+    private CacheInvalidation invalidation = CacheInvalidation.NAMESPACE;
+    private InvalidationChannel invalidationChannel;
+    private CacheStatsCounter statsCounter;
+    private Long maxBytes;
+    private Class<? extends CacheWeigher> weigher;
+    private CacheWeightBudget weightBudget;
 
     public CacheBuilder(String id) {
         this.id = id;
@@ -79,11 +96,96 @@ public class CacheBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the cache stores immutable snapshots of the results and hands them out on every hit, instead of
+     * copies ({@link #readWrite(boolean)}) or the results themselves.
+     *
+     * @param snapshot whether the cache stores snapshots, overriding read-write
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder snapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
     public CacheBuilder blocking(boolean blocking) {
         this.blocking = blocking;
         return this;
     }
 
+    /**
+     * Sets how writes invalidate the cache.
+     *
+     * @param invalidation the invalidation mode, {@code null} means {@link CacheInvalidation#NAMESPACE}
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder invalidation(CacheInvalidation invalidation) {
+        this.invalidation = invalidation == null ? CacheInvalidation.NAMESPACE : invalidation;
+        return this;
+    }
+
+    /**
+     * Sets the channel sending the evictions of the cache to other nodes.
+     *
+     * @param invalidationChannel the channel, or {@code null} if the cache is only local
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder invalidationChannel(InvalidationChannel invalidationChannel) {
+        this.invalidationChannel = invalidationChannel;
+        return this;
+    }
+
+    /**
+     * Sets the counter recording the statistics of the cache.
+     *
+     * @param statsCounter the counter, or {@code null} if not recorded
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder statsCounter(CacheStatsCounter statsCounter) {
+        this.statsCounter = statsCounter;
+        return this;
+    }
+
+    /**
+     * Sets the byte budget of the cache, evicting the least recently used entries beyond it.
+     *
+     * @param maxBytes the budget, {@code null} or {@code 0} if not bounded in bytes
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder maxBytes(Long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Sets the class estimating the weight of the entries.
+     *
+     * @param weigher the weigher class, {@code null} means {@link org.apache.ibatis.cache.EstimatedRowsWeigher}
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder weigher(Class<? extends CacheWeigher> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Sets the byte budget shared with the caches of the other namespaces.
+     *
+     * @param weightBudget the budget, or {@code null} if not bounded globally
+     * @return the builder
+     * @since 3.5.14
+     */
+    public CacheBuilder weightBudget(CacheWeightBudget weightBudget) {
+        this.weightBudget = weightBudget;
+        return this;
+    }
+
     public CacheBuilder properties(Properties properties) {
         this.properties = properties;
         return this;
@@ -97,7 +199,19 @@ public class CacheBuilder {
 //    设置缓存属性
         setCacheProperties(cache);
 //    检测cache是否是PerpetualCache类型，如果是则为其添加装饰器
+        DependencyTrackingCache.Dependencies dependencies = invalidation == CacheInvalidation.NAMESPACE
+            ? null : new DependencyTrackingCache.Dependencies();
         if (PerpetualCache.class.equals(cache.getClass())) {
+//            淘汰由各个装饰器调用最内层的removeObject和clear完成，在这里统计
+            ((PerpetualCache) cache).setStatsCounter(statsCounter);
+//            按表或按标识失效时，在最内层记录淘汰和清空，保持索引准确
+            if (dependencies != null) {
+                cache = dependencies.track(cache);
+            }
+//            按字节淘汰时放在其他装饰器之下，它们淘汰的缓存项也会减去权重
+            if (maxBytes != null && maxBytes > 0 || weightBudget != null) {
+                cache = newWeightedCache(cache);
+            }
 //            遍历decorators集合，为cache添加装饰器
             for (Class<? extends Cache> decorator : decorators) {
                 cache = newCacheDecoratorInstance(decorator, cache);
@@ -105,13 +219,65 @@ public class CacheBuilder {
             }
 //            设置标准的装饰器
             cache = setStandardDecorators(cache);
-        } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
-//            如果cache不是LoggingCache类型，则添加LoggingCache装饰器
-            cache = new LoggingCache(cache);
+            cache = nearCache(cache);
+            Cache unblocked = cache;
+            if (blocking) {
+                cache = new BlockingCache(cache);
+            }
+            if (dependencies != null) {
+                cache = newDependencyTrackingCache(cache, unblocked, dependencies);
+            }
+        } else {
+            if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
+//                如果cache不是LoggingCache类型，则添加LoggingCache装饰器
+                cache = new LoggingCache(cache, statsCounter);
+            }
+            cache = nearCache(cache);
+            if (dependencies != null) {
+                cache = newDependencyTrackingCache(cache, cache, dependencies);
+            }
         }
         return cache;
     }
 
+    private Cache newWeightedCache(Cache cache) {
+        WeightedCache weightedCache = new WeightedCache(cache);
+        if (weigher != null) {
+            try {
+                weightedCache.setWeigher(weigher.getDeclaredConstructor().newInstance());
+            } catch (Exception e) {
+                throw new CacheException("Could not instantiate cache weigher (" + weigher + "). Cause: " + e, e);
+            }
+        }
+        if (maxBytes != null) {
+            weightedCache.setMaxBytes(maxBytes);
+        }
+        weightedCache.setBudget(weightBudget);
+        return weightedCache;
+    }
+
+    private Cache nearCache(Cache cache) {
+        if (invalidationChannel == null) {
+            return cache;
+        }
+//        放在BlockingCache之下，只发送清空；按表或按标识的失效由外层的DependencyTrackingCache发送
+        NearCache nearCache = new NearCache(cache, invalidationChannel);
+        invalidationChannel.register(nearCache);
+        return nearCache;
+    }
+
+    private Cache newDependencyTrackingCache(Cache cache, Cache removalDelegate,
+                                             DependencyTrackingCache.Dependencies dependencies) {
+        DependencyTrackingCache dependencyTrackingCache = invalidation == CacheInvalidation.TABLE
+            ? new TableDependencyCache(cache, removalDelegate, dependencies)
+            : new IdentityIndexCache(cache, removalDelegate, dependencies);
+//        失效的表或标识发送给其他节点，由各节点在自己的索引中找出要删除的key
+        if (invalidationChannel != null) {
+            dependencyTrackingCache.setInvalidationChannel(invalidationChannel);
+        }
+        return dependencyTrackingCache;
+    }
+
     private void setDefaultImplementations() {
         if (implementation == null) {
             implementation = PerpetualCache.class;
@@ -131,15 +297,14 @@ public class CacheBuilder {
                 cache = new ScheduledCache(cache);
                 ((ScheduledCache) cache).setClearInterval(clearInterval);
             }
-            if (readWrite) {
+//            快照在放入时复制一次，命中时不再反序列化
+            if (snapshot) {
+                cache = new SnapshotCache(cache);
+            } else if (readWrite) {
                 cache = new SerializedCache(cache);
             }
-            cache = new LoggingCache(cache);
-            cache = new SynchronizedCache(cache);
-            if (blocking) {
-                cache = new BlockingCache(cache);
-            }
-            return cache;
+            cache = new LoggingCache(cache, statsCounter);
+            return new SynchronizedCache(cache);
         } catch (Exception e) {
             throw new CacheException("Error building standard cache decorators.  Cause: " + e, e);
         }
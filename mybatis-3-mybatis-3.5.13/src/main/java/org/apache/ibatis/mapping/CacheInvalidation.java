@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+/**
+ * How the statements of a namespace invalidate its second level cache.
+ *
+ * @since 3.5.14
+ */
+public enum CacheInvalidation {
+
+  /**
+   * Any statement that flushes the cache clears the whole cache (the default).
+   */
+  NAMESPACE,
+
+  /**
+   * Cached results remember the tables their statement read. An insert, update or delete only removes the results that
+   * depend on the tables it writes, and does so in every cache using this mode, not just the cache of its namespace.
+   */
+  TABLE,
+
+  /**
+   * Cached results of statements declaring an identity property are indexed by the identity they were looked up by. An
+   * insert, update or delete declaring an identity property only removes the results of that identity and the results
+   * of statements without an identity property. Other statements that flush the cache clear it.
+   */
+  IDENTITY
+
+}
@@ -15,9 +15,14 @@
  */
 package org.apache.ibatis.mapping;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -61,6 +66,9 @@ public final class MappedStatement {
     private LanguageDriver lang;
     private String[] resultSets;
     private boolean dirtySelect;
+    private Set<String> tables;
+    private String identityProperty;
+    private volatile Object[] lastDerivedTables;
 
     MappedStatement() {
         // constructor disabled
@@ -186,6 +194,34 @@ public final class MappedStatement {
             return this;
         }
 
+        /**
+         * Declares the tables the statement reads (select) or writes (insert, update, delete), instead of deriving
+         * them from its SQL.
+         *
+         * @param tables the comma separated table names
+         * @return the builder
+         * @since 3.5.14
+         */
+        public Builder tables(String tables) {
+            String[] names = delimitedStringToArray(tables);
+            mappedStatement.tables = names == null ? null : normalizeTables(Arrays.asList(names));
+            return this;
+        }
+
+        /**
+         * Declares the parameter property identifying the entity the statement looks up or writes, for caches using
+         * {@link CacheInvalidation#IDENTITY}.
+         *
+         * @param identityProperty the property name, or {@code null}
+         * @return the builder
+         * @since 3.5.14
+         */
+        public Builder identityProperty(String identityProperty) {
+            mappedStatement.identityProperty = identityProperty == null || identityProperty.trim().isEmpty() ? null
+                : identityProperty.trim();
+            return this;
+        }
+
         /**
          * Resul sets.
          *
@@ -305,6 +341,90 @@ public final class MappedStatement {
         return dirtySelect;
     }
 
+    /**
+     * Returns the tables declared for this statement.
+     *
+     * @return the declared table names in lower case, or {@code null} if none were declared
+     * @since 3.5.14
+     */
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns the tables this statement reads (select) or writes (insert, update, delete) when run with the given
+     * SQL. The declared tables are returned if any, otherwise they are derived from the SQL by {@link SqlTables}.
+     *
+     * @param boundSql the bound SQL
+     * @return the table names in lower case, or {@code null} if they cannot be told
+     * @since 3.5.14
+     */
+    public Set<String> getTables(BoundSql boundSql) {
+        if (tables != null) {
+            return tables;
+        }
+        if (statementType == StatementType.CALLABLE) {
+            return null;
+        }
+        String sql = boundSql.getSql();
+//      动态SQL通常只生成少数几种SQL，记住最近一次的结果即可
+        Object[] last = lastDerivedTables;
+        if (last != null && last[0].equals(sql)) {
+            @SuppressWarnings("unchecked")
+            Set<String> derived = (Set<String>) last[1];
+            return derived;
+        }
+        Set<String> derived;
+        switch (sqlCommandType) {
+            case SELECT:
+                derived = SqlTables.reads(sql);
+                break;
+            case INSERT:
+            case UPDATE:
+            case DELETE:
+                derived = SqlTables.writes(sql);
+                break;
+            default:
+                derived = null;
+                break;
+        }
+        if (derived != null) {
+            derived = Collections.unmodifiableSet(derived);
+        }
+        lastDerivedTables = new Object[] { sql, derived };
+        return derived;
+    }
+
+    public String getIdentityProperty() {
+        return identityProperty;
+    }
+
+    /**
+     * Returns the identity of the entity this statement looks up or writes, read from the identity property of the
+     * parameter. A parameter having a type handler (e.g. a single {@code int} parameter) is the identity itself.
+     * Integral numbers are returned as {@code Long} so that lookups and writes using different number types match.
+     *
+     * @param parameterObject the parameter object
+     * @return the identity, or {@code null} if no identity property is declared or its value is {@code null}
+     * @since 3.5.14
+     */
+    public Object getIdentity(Object parameterObject) {
+        if (identityProperty == null || parameterObject == null) {
+            return null;
+        }
+        Object identity;
+        if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+            identity = parameterObject;
+        } else {
+            identity = configuration.newMetaObject(parameterObject).getValue(identityProperty);
+        }
+        if (identity instanceof Integer || identity instanceof Long || identity instanceof Short
+            || identity instanceof Byte || identity instanceof BigInteger && ((BigInteger) identity).bitLength() < 64) {
+            return ((Number) identity).longValue();
+        }
+        return identity;
+    }
+
     /**
      * Gets the resul sets.
      *
@@ -337,6 +457,18 @@ public final class MappedStatement {
         return boundSql;
     }
 
+    private static Set<String> normalizeTables(List<String> names) {
+        Set<String> tables = new LinkedHashSet<>();
+        for (String name : names) {
+            String table = name.trim();
+            table = table.substring(table.lastIndexOf('.') + 1).toLowerCase(Locale.ENGLISH);
+            if (!table.isEmpty()) {
+                tables.add(table);
+            }
+        }
+        return Collections.unmodifiableSet(tables);
+    }
+
     private static String[] delimitedStringToArray(String in) {
         if (in == null || in.trim().length() == 0) {
             return null;
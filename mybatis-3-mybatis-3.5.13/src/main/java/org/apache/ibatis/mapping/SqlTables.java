@@ -0,0 +1,249 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives the tables read or written by an SQL statement, for {@link CacheInvalidation#TABLE}.
+ * <p>
+ * This is a lexical scan, not a parser: it reads the table lists following {@code FROM}, {@code JOIN} and the target of
+ * {@code INSERT}, {@code UPDATE}, {@code DELETE}, {@code MERGE} and {@code TRUNCATE}. Extra names (aliases of common
+ * table expressions, {@code dual}) only cause extra invalidations. When a table list cannot be read reliably (table
+ * functions, parenthesized joins, stored procedures, several statements), no tables are returned and the statement is
+ * treated as depending on every table. Names are compared in lower case and without schema or quotes.
+ *
+ * @since 3.5.14
+ */
+public final class SqlTables {
+
+  private static final Pattern TOKEN = Pattern.compile(
+      "'(?:[^']|'')*'|--[^\\n]*|/\\*.*?\\*/|((?:\"[^\"]*\"|`[^`]*`|\\[[^\\]]*\\]|[\\p{L}_][\\p{L}\\p{N}_$#@]*)"
+          + "(?:\\s*\\.\\s*(?:\"[^\"]*\"|`[^`]*`|\\[[^\\]]*\\]|[\\p{L}_][\\p{L}\\p{N}_$#@]*))*)|([(),;])",
+      Pattern.DOTALL);
+
+  private static final Pattern NAME_PART = Pattern.compile("\"[^\"]*\"|`[^`]*`|\\[[^\\]]*\\]|[^.\\s]+");
+
+  private static final Set<String> LIST_TERMINATORS = new HashSet<>(Arrays.asList("where", "join", "inner", "left",
+      "right", "full", "cross", "natural", "outer", "straight_join", "on", "using", "group", "order", "having", "limit",
+      "offset", "fetch", "union", "intersect", "except", "minus", "for", "window", "connect", "start", "qualify", "set",
+      "values", "select", "returning", "into", "when", "then", "partition", "sample", "tablesample", "with", "pivot",
+      "unpivot", "match_recognize", "output", "default", "lock", "procedure", "model"));
+
+  private static final Set<String> SUBQUERY_STARTS = new HashSet<>(Arrays.asList("select", "with", "values"));
+
+  private SqlTables() {
+  }
+
+  /**
+   * Returns the tables read by a query.
+   *
+   * @param sql
+   *          the query
+   *
+   * @return the table names, or {@code null} if they cannot be told
+   */
+  public static Set<String> reads(String sql) {
+    List<String> tokens = tokenize(sql);
+    if (tokens == null || tokens.isEmpty() || !SUBQUERY_STARTS.contains(keyword(tokens.get(0)))
+        && !"(".equals(tokens.get(0))) {
+      return null;
+    }
+    return readTables(tokens, 0, tokens.size());
+  }
+
+  /**
+   * Returns the tables written by an insert, update, delete, merge or truncate statement.
+   *
+   * @param sql
+   *          the statement
+   *
+   * @return the table names, or {@code null} if they cannot be told
+   */
+  public static Set<String> writes(String sql) {
+    List<String> tokens = tokenize(sql);
+    if (tokens == null || tokens.isEmpty()) {
+      return null;
+    }
+    int i = 0;
+    switch (keyword(tokens.get(0))) {
+      case "insert":
+      case "replace":
+      case "merge":
+      case "upsert":
+        i = skip(tokens, 1, "ignore", "or", "replace", "into", "overwrite", "table", "all", "first");
+        return isName(tokens, i) ? Collections.singleton(tableName(tokens.get(i))) : null;
+      case "truncate":
+        i = skip(tokens, 1, "table");
+        return isName(tokens, i) ? Collections.singleton(tableName(tokens.get(i))) : null;
+      case "update":
+        int set = 1;
+        while (set < tokens.size() && !"set".equals(keyword(tokens.get(set)))) {
+          set++;
+        }
+        // the tables before SET, including joined ones (MySQL multiple table syntax)
+        return set < tokens.size() ? readTables(tokens, 0, set, 1) : null;
+      case "delete":
+        if (tokens.size() < 2) {
+          return null;
+        }
+        if (!"from".equals(keyword(tokens.get(1)))) {
+          // multiple table syntax: DELETE t1, t2 FROM t1 JOIN t2 ...
+          return readTables(tokens, 0, tokens.size());
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        return readTableList(tokens, 2, tables) < 0 ? null : tables;
+      default:
+        return null;
+    }
+  }
+
+  private static Set<String> readTables(List<String> tokens, int start, int end) {
+    return readTables(tokens, start, end, -1);
+  }
+
+  private static Set<String> readTables(List<String> tokens, int start, int end, int firstList) {
+    Set<String> tables = new LinkedHashSet<>();
+    if (firstList >= 0 && readTableList(tokens.subList(0, end), firstList, tables) < 0) {
+      return null;
+    }
+    for (int i = start; i < end; i++) {
+      String keyword = keyword(tokens.get(i));
+      if (("from".equals(keyword) || "join".equals(keyword) || "straight_join".equals(keyword))
+          && readTableList(tokens.subList(0, end), i + 1, tables) < 0) {
+        return null;
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Reads a comma separated list of tables with optional aliases.
+   *
+   * @return the index after the list, or -1 if the list cannot be read
+   */
+  private static int readTableList(List<String> tokens, int start, Set<String> tables) {
+    int i = skip(tokens, start, "only", "lateral");
+    while (i < tokens.size()) {
+      String token = tokens.get(i);
+      if ("(".equals(token)) {
+        if (i + 1 >= tokens.size() || !SUBQUERY_STARTS.contains(keyword(tokens.get(i + 1)))) {
+          return -1;
+        }
+        // the tables of a derived table are read by its own FROM
+        i = closingParenthesis(tokens, i) + 1;
+      } else if (isName(tokens, i)) {
+        if (i + 1 < tokens.size() && "(".equals(tokens.get(i + 1))) {
+          // table function
+          return -1;
+        }
+        tables.add(tableName(token));
+        i++;
+      } else {
+        return i;
+      }
+      // alias
+      while (i < tokens.size() && (isName(tokens, i) || "as".equals(keyword(tokens.get(i))))) {
+        i++;
+      }
+      if (i >= tokens.size() || !",".equals(tokens.get(i))) {
+        return i;
+      }
+      i = skip(tokens, i + 1, "only", "lateral");
+    }
+    return i;
+  }
+
+  private static int closingParenthesis(List<String> tokens, int open) {
+    int depth = 0;
+    for (int i = open; i < tokens.size(); i++) {
+      if ("(".equals(tokens.get(i))) {
+        depth++;
+      } else if (")".equals(tokens.get(i)) && --depth == 0) {
+        return i;
+      }
+    }
+    return tokens.size();
+  }
+
+  private static int skip(List<String> tokens, int start, String... keywords) {
+    List<String> skipped = Arrays.asList(keywords);
+    int i = start;
+    while (i < tokens.size() && skipped.contains(keyword(tokens.get(i)))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isName(List<String> tokens, int i) {
+    if (i >= tokens.size()) {
+      return false;
+    }
+    String token = tokens.get(i);
+    char first = token.charAt(0);
+    if (first == '"' || first == '`' || first == '[') {
+      return true;
+    }
+    return first != '(' && first != ')' && first != ',' && first != ';' && !"as".equals(keyword(token))
+        && !LIST_TERMINATORS.contains(keyword(token));
+  }
+
+  private static String keyword(String token) {
+    return token.toLowerCase(Locale.ENGLISH);
+  }
+
+  private static String tableName(String name) {
+    String table = name;
+    Matcher matcher = NAME_PART.matcher(name);
+    while (matcher.find()) {
+      table = matcher.group();
+    }
+    char first = table.charAt(0);
+    if (first == '"' || first == '`' || first == '[') {
+      table = table.substring(1, table.length() - 1);
+    }
+    return table.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Returns the names and punctuation of a statement without literals and comments, or null if it holds several
+   * statements.
+   */
+  private static List<String> tokenize(String sql) {
+    List<String> tokens = new ArrayList<>();
+    Matcher matcher = TOKEN.matcher(sql);
+    while (matcher.find()) {
+      String token = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+      if (token != null) {
+        tokens.add(token);
+      }
+    }
+    while (!tokens.isEmpty() && ";".equals(tokens.get(tokens.size() - 1))) {
+      tokens.remove(tokens.size() - 1);
+    }
+    return tokens.contains(";") ? null : tokens;
+  }
+
+}
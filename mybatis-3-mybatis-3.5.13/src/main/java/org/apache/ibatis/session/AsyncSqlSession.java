@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Runs the statements of a {@link SqlSession} on the executor configured by {@link Configuration#setAsyncExecutor}, so
+ * the calling thread does not block on the database.
+ * <p>
+ * Work submitted to the same async session runs one task at a time, in submission order, against the same underlying
+ * session, so it shares its connection, transaction and local cache. Mapper methods returning
+ * {@link CompletableFuture} or {@link java.util.concurrent.CompletionStage CompletionStage} are submitted here as well.
+ * Statements called directly on a {@link org.apache.ibatis.session.defaults.DefaultSqlSession} wait for the pending
+ * work before they run; other sessions may not, so once work has been submitted, commit, roll back and close the
+ * session through this interface so those calls are ordered after the pending statements. Submitted work must not wait
+ * for work it submits itself, as that work only runs after it.
+ *
+ * @since 3.5.14
+ */
+public interface AsyncSqlSession {
+
+  /**
+   * Submits work against the underlying session.
+   *
+   * @param <T>
+   *          the result type
+   * @param work
+   *          the work, called with the underlying session on an executor thread
+   *
+   * @return the result of the work, completed exceptionally if the work threw an exception
+   */
+  <T> CompletableFuture<T> submit(Function<SqlSession, T> work);
+
+  <T> CompletableFuture<T> selectOne(String statement);
+
+  <T> CompletableFuture<T> selectOne(String statement, Object parameter);
+
+  <E> CompletableFuture<List<E>> selectList(String statement);
+
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter);
+
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey);
+
+  CompletableFuture<Integer> insert(String statement, Object parameter);
+
+  CompletableFuture<Integer> update(String statement, Object parameter);
+
+  CompletableFuture<Integer> delete(String statement, Object parameter);
+
+  CompletableFuture<Void> commit();
+
+  CompletableFuture<Void> rollback();
+
+  /**
+   * Closes the underlying session once all previously submitted work has completed.
+   *
+   * @return completes when the session is closed
+   */
+  CompletableFuture<Void> close();
+
+  SqlSession getSqlSession();
+
+}
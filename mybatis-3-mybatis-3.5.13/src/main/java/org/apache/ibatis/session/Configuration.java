@@ -15,17 +15,21 @@
  */
 package org.apache.ibatis.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -35,11 +39,18 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStats;
+import org.apache.ibatis.cache.CacheStatsCounter;
+import org.apache.ibatis.cache.CacheWeightBudget;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TableDependencyCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.InvalidationChannel;
+import org.apache.ibatis.cache.invalidation.InvalidationTransport;
+import org.apache.ibatis.cache.invalidation.LoopbackInvalidationTransport;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
@@ -48,9 +59,12 @@ import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.executor.keygen.HiLoKeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.SequenceBlockKeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.hiddenclass.HiddenClassProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
@@ -117,12 +131,22 @@ public class Configuration {
     protected boolean shrinkWhitespacesInSql;
     protected boolean nullableOnForEach;
     protected boolean argNameBasedConstructorAutoMapping;
+    protected boolean parallelMapperParsing;
+    protected boolean lazyStatementLoading;
+    protected boolean cacheStatsEnabled;
 
     protected String logPrefix;
+    protected String mapperSnapshotResource;
     protected Class<? extends Log> logImpl;
     protected Class<? extends VFS> vfsImpl;
     protected Class<?> defaultSqlProviderType;
     protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+//    一级缓存的条目数、字节数上限，以及超过该行数的结果不放入一级缓存，0表示不限制
+    protected int localCacheSize;
+    protected long localCacheMaxBytes;
+    protected int localCacheMaxRows;
+//    批量执行时把相同的单行insert改写为多行insert，每条语句最多插入的行数，小于2时不改写
+    protected int multiRowInsertSize;
     protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
     protected Set<String> lazyLoadTriggerMethods = new HashSet<>(
         Arrays.asList("equals", "clone", "hashCode", "toString"));
@@ -130,6 +154,8 @@ public class Configuration {
     protected Integer defaultFetchSize;
     protected ResultSetType defaultResultSetType;
     protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
+//    AsyncSqlSession和返回CompletableFuture的Mapper方法使用的线程池，为空时每个任务一个线程（Java 21以上为虚拟线程）
+    protected java.util.concurrent.Executor asyncExecutor;
     protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
     protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
 
@@ -139,7 +165,15 @@ public class Configuration {
     protected ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
 
     protected boolean lazyLoadingEnabled;
+//    延迟加载时一次批量加载的同一嵌套查询的数量，小于2时不批量加载
+    protected int lazyLoadBatchSize;
+//    立即加载的同一嵌套查询在整个结果集处理完后按此数量分批查询，小于2时逐行查询
+    protected int eagerLoadBatchSize;
     protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
+//    把二级缓存的失效发送给其他节点，为null时缓存只在本节点
+    protected InvalidationChannel invalidationChannel;
+//    所有命名空间的二级缓存共用的字节预算，为null时不限制
+    protected CacheWeightBudget cacheWeightBudget;
 
     protected String databaseId;
     /**
@@ -160,6 +194,10 @@ public class Configuration {
         .conflictMessageProducer((savedValue, targetValue) -> ". please check " + savedValue.getResource() + " and "
             + targetValue.getResource());
     protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+    protected final List<TableDependencyCache> tableDependencyCaches = new CopyOnWriteArrayList<>();
+//    按缓存id记录二级缓存的统计，所有会话的一级缓存共用一个计数器
+    protected final Map<String, CacheStatsCounter> cacheStatsCounters = new ConcurrentHashMap<>();
+    protected final CacheStatsCounter localCacheStatsCounter = new CacheStatsCounter();
     protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
     protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
     protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -171,6 +209,11 @@ public class Configuration {
     protected final Collection<CacheRefResolver> incompleteCacheRefs = new LinkedList<>();
     protected final Collection<ResultMapResolver> incompleteResultMaps = new LinkedList<>();
     protected final Collection<MethodResolver> incompleteMethods = new LinkedList<>();
+    protected final Map<String, LazyStatement> lazyStatements = new ConcurrentHashMap<>();
+//    延迟构建共享各mapper的XPathParser、DOM和MapperBuilderAssistant，它们都不是线程安全的，所以全局串行构建
+    protected final ReentrantLock lazyStatementLock = new ReentrantLock();
+    private List<String> lazyAddedStatements;
+    private List<String> lazyAddedKeyGenerators;
 
     /*
      * A map holds cache-ref relationship. The key is the namespace that references a cache bound to another namespace and
@@ -199,6 +242,9 @@ public class Configuration {
 
         typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
+        typeAliasRegistry.registerAlias("SEQUENCE_BLOCK", SequenceBlockKeyGenerator.class);
+        typeAliasRegistry.registerAlias("HILO", HiLoKeyGenerator.class);
+
         typeAliasRegistry.registerAlias("XML", XMLLanguageDriver.class);
         typeAliasRegistry.registerAlias("RAW", RawLanguageDriver.class);
 
@@ -212,6 +258,9 @@ public class Configuration {
 
         typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
         typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
+        typeAliasRegistry.registerAlias("HIDDEN_CLASS", HiddenClassProxyFactory.class);
+
+        typeAliasRegistry.registerAlias("LOOPBACK", LoopbackInvalidationTransport.class);
 
         languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
         languageRegistry.register(RawLanguageDriver.class);
@@ -331,6 +380,77 @@ public class Configuration {
         this.argNameBasedConstructorAutoMapping = argNameBasedConstructorAutoMapping;
     }
 
+    /**
+     * Returns whether mapper XML documents listed in the configuration are read and parsed concurrently.
+     * <p>
+     * Default is {@code false}.
+     *
+     * @return If parsed concurrently, set to {@code true}
+     * @since 3.5.14
+     */
+    public boolean isParallelMapperParsing() {
+        return parallelMapperParsing;
+    }
+
+    /**
+     * Sets whether mapper XML documents listed in the configuration are read and parsed concurrently. Statements, result
+     * maps and caches are still registered sequentially in declaration order.
+     *
+     * @param parallelMapperParsing If parsed concurrently, set to {@code true}
+     * @since 3.5.14
+     */
+    public void setParallelMapperParsing(boolean parallelMapperParsing) {
+        this.parallelMapperParsing = parallelMapperParsing;
+    }
+
+    /**
+     * Returns whether building mapped statements is deferred until they are first requested.
+     * <p>
+     * Default is {@code false}.
+     *
+     * @return If deferred, set to {@code true}
+     * @since 3.5.14
+     */
+    public boolean isLazyStatementLoading() {
+        return lazyStatementLoading;
+    }
+
+    /**
+     * Sets whether building mapped statements is deferred until they are first requested. Mappers still register the ids
+     * of their statements at startup, but the statements are only built by the first {@link #getMappedStatement(String)}
+     * or {@link #hasStatement(String)} call for their id.
+     *
+     * @param lazyStatementLoading If deferred, set to {@code true}
+     * @since 3.5.14
+     */
+    public void setLazyStatementLoading(boolean lazyStatementLoading) {
+        this.lazyStatementLoading = lazyStatementLoading;
+    }
+
+    /**
+     * Returns the classpath resource of the mapper snapshot written by
+     * {@link org.apache.ibatis.builder.xml.XMLMapperSnapshot}.
+     *
+     * @return the snapshot resource, or {@code null} if mapper XML files are always parsed
+     * @since 3.5.14
+     */
+    public String getMapperSnapshotResource() {
+        return mapperSnapshotResource;
+    }
+
+    /**
+     * Sets the classpath resource of a mapper snapshot written by
+     * {@link org.apache.ibatis.builder.xml.XMLMapperSnapshot}. Mappers found in the snapshot with an unchanged source are
+     * loaded from it instead of being parsed and validated.
+     *
+     * @param mapperSnapshotResource
+     *          the snapshot resource
+     * @since 3.5.14
+     */
+    public void setMapperSnapshotResource(String mapperSnapshotResource) {
+        this.mapperSnapshotResource = mapperSnapshotResource;
+    }
+
     public String getDatabaseId() {
         return databaseId;
     }
@@ -423,6 +543,53 @@ public class Configuration {
         this.lazyLoadingEnabled = lazyLoadingEnabled;
     }
 
+    /**
+     * Gets the maximum number of lazy loaders of the same nested select that are loaded together.
+     *
+     * @return the lazy load batch size, batching is disabled when less than 2
+     * @since 3.5.14
+     */
+    public int getLazyLoadBatchSize() {
+        return lazyLoadBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of lazy loaders of the same nested select that are loaded together. When a lazy property
+     * is loaded, the same property of up to this many other objects returned by the same statement is loaded with one
+     * {@code IN} query. Only nested selects of a single table with a single {@code column = #{key}} parameter are
+     * batched; others keep loading one by one.
+     *
+     * @param lazyLoadBatchSize the lazy load batch size
+     * @since 3.5.14
+     */
+    public void setLazyLoadBatchSize(int lazyLoadBatchSize) {
+        this.lazyLoadBatchSize = lazyLoadBatchSize;
+    }
+
+    /**
+     * Gets the maximum number of keys of the same eager nested select that are loaded with one query.
+     *
+     * @return the eager load batch size, batching is disabled when less than 2
+     * @since 3.5.14
+     */
+    public int getEagerLoadBatchSize() {
+        return eagerLoadBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of keys of the same eager nested select that are loaded with one query. Instead of running
+     * an eager nested select for each row, the keys of all rows are collected and loaded with {@code IN} queries of up to
+     * this many keys once the result set has been handled, then the results are set on their owners. The same
+     * restrictions as for {@link #setLazyLoadBatchSize(int)} apply, and nested selects are not batched when the results
+     * are passed to a {@link org.apache.ibatis.session.ResultHandler} or read through a cursor.
+     *
+     * @param eagerLoadBatchSize the eager load batch size
+     * @since 3.5.14
+     */
+    public void setEagerLoadBatchSize(int eagerLoadBatchSize) {
+        this.eagerLoadBatchSize = eagerLoadBatchSize;
+    }
+
     public ProxyFactory getProxyFactory() {
         return proxyFactory;
     }
@@ -434,6 +601,45 @@ public class Configuration {
         this.proxyFactory = proxyFactory;
     }
 
+    public InvalidationTransport getInvalidationTransport() {
+        return invalidationChannel == null ? null : invalidationChannel.getTransport();
+    }
+
+    /**
+     * Sets the transport sending the evictions of the second level caches to other nodes. It must be set before the
+     * mappers are added.
+     *
+     * @param invalidationTransport the transport, or {@code null} to keep the caches local
+     * @since 3.5.14
+     */
+    public void setInvalidationTransport(InvalidationTransport invalidationTransport) {
+        this.invalidationChannel = invalidationTransport == null ? null : new InvalidationChannel(invalidationTransport);
+    }
+
+    public long getCacheMaxBytes() {
+        return cacheWeightBudget == null ? 0 : cacheWeightBudget.getMaxBytes();
+    }
+
+    /**
+     * Sets the byte budget shared by the second level caches of all namespaces. When a put exceeds it, the cache
+     * holding the most weight evicts its least recently used entries until the total fits, the entry just put being
+     * evicted last. It must be set before the mappers are added.
+     *
+     * @param cacheMaxBytes the budget, {@code 0} if not bounded
+     * @since 3.5.14
+     */
+    public void setCacheMaxBytes(long cacheMaxBytes) {
+        this.cacheWeightBudget = cacheMaxBytes > 0 ? new CacheWeightBudget(cacheMaxBytes) : null;
+    }
+
+    public CacheWeightBudget getCacheWeightBudget() {
+        return cacheWeightBudget;
+    }
+
+    public InvalidationChannel getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
     public boolean isAggressiveLazyLoading() {
         return aggressiveLazyLoading;
     }
@@ -530,6 +736,28 @@ public class Configuration {
         this.defaultResultSetType = defaultResultSetType;
     }
 
+    /**
+     * Gets the executor that runs the work of {@link AsyncSqlSession}s.
+     *
+     * @return the async executor, or {@code null} if the default one is used
+     * @since 3.5.14
+     */
+    public java.util.concurrent.Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Sets the executor that runs the work of {@link AsyncSqlSession}s and of mapper methods returning
+     * {@link java.util.concurrent.CompletableFuture}. The default runs every task on a new thread, which is a virtual
+     * thread on Java 21 and later.
+     *
+     * @param asyncExecutor the async executor
+     * @since 3.5.14
+     */
+    public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     public boolean isUseColumnLabel() {
         return useColumnLabel;
     }
@@ -538,6 +766,22 @@ public class Configuration {
         this.useColumnLabel = useColumnLabel;
     }
 
+    public int getMultiRowInsertSize() {
+        return multiRowInsertSize;
+    }
+
+    /**
+     * Sets the number of rows inserted per statement when a batch of single row inserts is rewritten into multi-row
+     * inserts ({@code VALUES (...),(...)}) on flush. Only the prepared inserts with nothing after their values and
+     * without a select key are rewritten. The database must support multi-row inserts.
+     *
+     * @param multiRowInsertSize the number of rows per statement, less than {@code 2} to not rewrite
+     * @since 3.5.14
+     */
+    public void setMultiRowInsertSize(int multiRowInsertSize) {
+        this.multiRowInsertSize = multiRowInsertSize;
+    }
+
     public LocalCacheScope getLocalCacheScope() {
         return localCacheScope;
     }
@@ -546,6 +790,50 @@ public class Configuration {
         this.localCacheScope = localCacheScope;
     }
 
+    public int getLocalCacheSize() {
+        return localCacheSize;
+    }
+
+    /**
+     * Sets the number of results the local cache of a session keeps, evicting the least recently used ones once the top
+     * level query completes.
+     *
+     * @param localCacheSize the number of results, {@code 0} if not bounded
+     * @since 3.5.14
+     */
+    public void setLocalCacheSize(int localCacheSize) {
+        this.localCacheSize = localCacheSize;
+    }
+
+    public long getLocalCacheMaxBytes() {
+        return localCacheMaxBytes;
+    }
+
+    /**
+     * Sets the estimated size in bytes the local cache of a session keeps, evicting the least recently used results
+     * once the top level query completes.
+     *
+     * @param localCacheMaxBytes the size, {@code 0} if not bounded
+     * @since 3.5.14
+     */
+    public void setLocalCacheMaxBytes(long localCacheMaxBytes) {
+        this.localCacheMaxBytes = localCacheMaxBytes;
+    }
+
+    public int getLocalCacheMaxRows() {
+        return localCacheMaxRows;
+    }
+
+    /**
+     * Sets the number of rows above which a result is not kept in the local cache once the top level query completes.
+     *
+     * @param localCacheMaxRows the number of rows, {@code 0} if every result is kept
+     * @since 3.5.14
+     */
+    public void setLocalCacheMaxRows(int localCacheMaxRows) {
+        this.localCacheMaxRows = localCacheMaxRows;
+    }
+
     public JdbcType getJdbcTypeForNull() {
         return jdbcTypeForNull;
     }
@@ -715,6 +1003,9 @@ public class Configuration {
 
     public void addKeyGenerator(String id, KeyGenerator keyGenerator) {
         keyGenerators.put(id, keyGenerator);
+        if (lazyAddedKeyGenerators != null && lazyStatementLock.isHeldByCurrentThread()) {
+            lazyAddedKeyGenerators.add(id);
+        }
     }
 
     public Collection<String> getKeyGeneratorNames() {
@@ -735,6 +1026,109 @@ public class Configuration {
 
     public void addCache(Cache cache) {
         caches.put(cache.getId(), cache);
+        if (cache instanceof TableDependencyCache) {
+            tableDependencyCaches.add((TableDependencyCache) cache);
+        }
+    }
+
+    /**
+     * Returns the caches invalidated by table, which a write to a table invalidates whatever its namespace.
+     *
+     * @return the caches built with {@link org.apache.ibatis.mapping.CacheInvalidation#TABLE}
+     * @since 3.5.14
+     */
+    public List<TableDependencyCache> getTableDependencyCaches() {
+        return tableDependencyCaches;
+    }
+
+    /**
+     * Returns whether the caches record their statistics.
+     * <p>
+     * Default is {@code false}.
+     *
+     * @return If recorded, set to {@code true}
+     * @since 3.5.14
+     */
+    public boolean isCacheStatsEnabled() {
+        return cacheStatsEnabled;
+    }
+
+    /**
+     * Sets whether the second level caches and the local caches record their statistics. It must be set before the
+     * mappers are added; the caches built before do not record theirs.
+     *
+     * @param cacheStatsEnabled If recorded, set to {@code true}
+     * @since 3.5.14
+     */
+    public void setCacheStatsEnabled(boolean cacheStatsEnabled) {
+        this.cacheStatsEnabled = cacheStatsEnabled;
+    }
+
+    /**
+     * Returns the counter recording the statistics of a second level cache, created on first use.
+     *
+     * @param id the cache id, i.e. the namespace
+     * @return the counter
+     * @since 3.5.14
+     */
+    public CacheStatsCounter getCacheStatsCounter(String id) {
+        return cacheStatsCounters.computeIfAbsent(id, k -> new CacheStatsCounter());
+    }
+
+    /**
+     * Returns the counter shared by the local caches of all the sessions.
+     *
+     * @return the counter
+     * @since 3.5.14
+     */
+    public CacheStatsCounter getLocalCacheStatsCounter() {
+        return localCacheStatsCounter;
+    }
+
+    /**
+     * Returns the statistics of the second level caches, all zero unless {@link #isCacheStatsEnabled()}. The size in
+     * bytes of the entries is estimated now, from a few of them.
+     *
+     * @return a snapshot for each cache of {@link #getCaches()}
+     * @since 3.5.14
+     */
+    public List<CacheStats> getCacheStats() {
+        Map<String, Cache> distinctCaches = new LinkedHashMap<>();
+//        StrictMap中还有短名称对应的缓存或Ambiguity对象，只取完整id对应的缓存
+        for (Map.Entry<String, ?> entry : caches.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Cache && entry.getKey().equals(((Cache) value).getId())) {
+                distinctCaches.put(entry.getKey(), (Cache) value);
+            }
+        }
+        List<CacheStats> stats = new ArrayList<>();
+        for (Cache cache : distinctCaches.values()) {
+            stats.add(getCacheStatsCounter(cache.getId()).snapshot(cache.getId(), cache.getSize()));
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of a second level cache.
+     *
+     * @param id the cache id, i.e. the namespace
+     * @return the snapshot
+     * @since 3.5.14
+     */
+    public CacheStats getCacheStats(String id) {
+        Cache cache = caches.get(id);
+        return getCacheStatsCounter(cache.getId()).snapshot(cache.getId(), cache.getSize());
+    }
+
+    /**
+     * Returns the statistics of the local caches of all the sessions, all zero unless {@link #isCacheStatsEnabled()}.
+     * Their size is the number of entries held by the open sessions.
+     *
+     * @return the snapshot
+     * @since 3.5.14
+     */
+    public CacheStats getLocalCacheStats() {
+        return localCacheStatsCounter.snapshot("LocalCache", localCacheStatsCounter.liveEntries());
     }
 
     public Collection<String> getCacheNames() {
@@ -797,18 +1191,38 @@ public class Configuration {
 
     public void addMappedStatement(MappedStatement ms) {
         mappedStatements.put(ms.getId(), ms);
+        if (lazyAddedStatements != null && lazyStatementLock.isHeldByCurrentThread()) {
+            lazyAddedStatements.add(ms.getId());
+        }
     }
 
     public Collection<String> getMappedStatementNames() {
         buildAllStatements();
+        buildAllLazyStatements();
         return mappedStatements.keySet();
     }
 
     public Collection<MappedStatement> getMappedStatements() {
         buildAllStatements();
+        buildAllLazyStatements();
         return mappedStatements.values();
     }
 
+    /**
+     * Registers a builder that adds the statement with the given id on its first use. Used when
+     * {@link #isLazyStatementLoading()} is enabled. Several builders can be registered for the same id (e.g. one per
+     * database id), they are run in registration order.
+     *
+     * @param id
+     *          the fully qualified statement id
+     * @param statementBuilder
+     *          the builder adding the statement to this configuration
+     * @since 3.5.14
+     */
+    public void addLazyStatement(String id, Runnable statementBuilder) {
+        lazyStatements.computeIfAbsent(id, k -> new LazyStatement()).add(statementBuilder);
+    }
+
     public Collection<XMLStatementBuilder> getIncompleteStatements() {
         return incompleteStatements;
     }
@@ -849,6 +1263,7 @@ public class Configuration {
         if (validateIncompleteStatements) {
             buildAllStatements();
         }
+        buildLazyStatement(id);
         return mappedStatements.get(id);
     }
 
@@ -888,6 +1303,7 @@ public class Configuration {
         if (validateIncompleteStatements) {
             buildAllStatements();
         }
+        buildLazyStatement(statementName);
         return mappedStatements.containsKey(statementName);
     }
 
@@ -924,6 +1340,72 @@ public class Configuration {
         }
     }
 
+    protected void buildLazyStatement(String id) {
+        if (lazyStatements.isEmpty()) {
+            return;
+        }
+        LazyStatement lazyStatement = lazyStatements.get(id);
+        if (lazyStatement != null) {
+            if (!lazyStatement.built) {
+                lazyStatementLock.lock();
+                try {
+                    runLazyStatementBuilders(lazyStatement);
+                } finally {
+                    lazyStatementLock.unlock();
+                }
+            }
+            if (lazyStatement.built) {
+                lazyStatements.remove(id, lazyStatement);
+            }
+        } else if (id.indexOf('.') == -1 && !mappedStatements.containsKey(id)) {
+            // short names are not indexed, so build everything to make them resolvable
+            buildAllLazyStatements();
+        }
+    }
+
+    private void runLazyStatementBuilders(LazyStatement lazyStatement) {
+//        嵌套请求（例如第二个builder的databaseId检查）直接返回
+        if (lazyStatement.built || lazyStatement.building) {
+            return;
+        }
+        List<String> outerStatements = lazyAddedStatements;
+        List<String> outerKeyGenerators = lazyAddedKeyGenerators;
+        lazyStatement.building = true;
+        try {
+            while (lazyStatement.completed < lazyStatement.builders.size()) {
+                lazyAddedStatements = new ArrayList<>();
+                lazyAddedKeyGenerators = new ArrayList<>();
+                try {
+                    lazyStatement.builders.get(lazyStatement.completed).run();
+                } catch (RuntimeException e) {
+//                    撤销失败的builder已经添加的语句，重试时从头开始
+                    lazyAddedStatements.forEach(added -> removeStrictly(mappedStatements, added));
+                    lazyAddedKeyGenerators.forEach(added -> removeStrictly(keyGenerators, added));
+                    throw e;
+                }
+                lazyStatement.completed++;
+            }
+            lazyStatement.built = true;
+        } finally {
+            lazyStatement.building = false;
+            lazyAddedStatements = outerStatements;
+            lazyAddedKeyGenerators = outerKeyGenerators;
+        }
+    }
+
+    private static void removeStrictly(Map<String, ?> map, String id) {
+        Object value = map.remove(id);
+        if (value != null && id.contains(".")) {
+            map.remove(id.substring(id.lastIndexOf('.') + 1), value);
+        }
+    }
+
+    protected void buildAllLazyStatements() {
+        for (String id : lazyStatements.keySet()) {
+            buildLazyStatement(id);
+        }
+    }
+
     private void parsePendingResultMaps() {
         if (incompleteResultMaps.isEmpty()) {
             return;
@@ -996,6 +1478,25 @@ public class Configuration {
         }
     }
 
+    /**
+     * The builders of a statement whose building has been deferred. Builders of all statements run under one
+     * configuration-wide lock, as the builders of a mapper share its parser, document and builder assistant; concurrent
+     * requests wait for the building thread while a nested request from that thread itself (e.g. the database id check
+     * of a second builder) returns immediately. A builder is marked done only once it succeeded, and the statements
+     * added by a failing builder are removed, so that a later request retries it.
+     */
+    protected static class LazyStatement {
+
+        private final List<Runnable> builders = new ArrayList<>(1);
+        private volatile boolean built;
+        private boolean building;
+        private int completed;
+
+        void add(Runnable builder) {
+            builders.add(builder);
+        }
+    }
+
     protected static class StrictMap<V> extends ConcurrentHashMap<String, V> {
 
         private static final long serialVersionUID = -4950446264854982944L;
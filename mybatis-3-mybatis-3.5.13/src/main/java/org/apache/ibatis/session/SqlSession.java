@@ -22,6 +22,7 @@ import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
 
 /**
  * The primary Java interface for working with MyBatis. Through this interface you can execute commands, get mappers and
@@ -377,4 +378,21 @@ public interface SqlSession extends Closeable {
    * @return Connection
    */
   Connection getConnection();
+
+  /**
+   * Returns an asynchronous view of this session. Mapper methods returning {@link java.util.concurrent.CompletableFuture}
+   * run their statements through it.
+   * <p>
+   * Implementations must return the same view on each call, as work is only run in submission order within one view.
+   * The default implementation returns the view {@link DefaultAsyncSqlSession#of kept for this session}; unlike with
+   * {@link org.apache.ibatis.session.defaults.DefaultSqlSession}, statements called directly on the session then do not
+   * wait for the pending asynchronous work.
+   *
+   * @return the async session
+   *
+   * @since 3.5.14
+   */
+  default AsyncSqlSession getAsyncSession() {
+    return DefaultAsyncSqlSession.of(this);
+  }
 }
@@ -24,10 +24,12 @@ import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
 
 /**
  * @author Larry Meadors
@@ -38,6 +40,8 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
   private final SqlSession sqlSessionProxy;
 
   private final ThreadLocal<SqlSession> localSqlSession = new ThreadLocal<>();
+  private final ReentrantLock asyncSessionLock = new ReentrantLock();
+  private volatile AsyncSqlSession asyncSession;
 
   private SqlSessionManager(SqlSessionFactory sqlSessionFactory) {
     this.sqlSessionFactory = sqlSessionFactory;
@@ -268,6 +272,32 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSession.getConnection();
   }
 
+  /**
+   * Returns the async view of the managed session if one is started, otherwise a single view running each statement
+   * in its own session like the other methods of this manager.
+   */
+  @Override
+  public AsyncSqlSession getAsyncSession() {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession != null) {
+      return sqlSession.getAsyncSession();
+    }
+    AsyncSqlSession result = asyncSession;
+    if (result == null) {
+      asyncSessionLock.lock();
+      try {
+        result = asyncSession;
+        if (result == null) {
+          result = new DefaultAsyncSqlSession(this, getConfiguration().getAsyncExecutor());
+          asyncSession = result;
+        }
+      } finally {
+        asyncSessionLock.unlock();
+      }
+    }
+    return result;
+  }
+
   @Override
   public void clearCache() {
     final SqlSession sqlSession = localSqlSession.get();
@@ -0,0 +1,226 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * The default implementation for {@link AsyncSqlSession}. Submitted work is chained so that it runs sequentially on the
+ * executor, which gives each task exclusive access to the (not thread-safe) underlying session. A
+ * {@link DefaultSqlSession} also waits for the pending work before running a statement called on it directly.
+ *
+ * @since 3.5.14
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  private static final ReentrantLock viewsLock = new ReentrantLock();
+  private static final Map<SqlSession, WeakReference<AsyncSqlSession>> views = new WeakHashMap<>();
+
+  private final SqlSession sqlSession;
+  private final Executor executor;
+  private final ReentrantLock lock = new ReentrantLock();
+  private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+  private volatile Thread worker;
+
+  /**
+   * @param sqlSession
+   *          the session to run the work against
+   * @param executor
+   *          the executor to run the work on, or {@code null} to use a thread per task (a virtual thread on Java 21
+   *          and later)
+   */
+  public DefaultAsyncSqlSession(SqlSession sqlSession, Executor executor) {
+    this.sqlSession = sqlSession;
+    this.executor = executor == null ? DefaultExecutorHolder.EXECUTOR : executor;
+  }
+
+  /**
+   * Returns the async view of a session that does not keep one itself, creating it on first use. The same view is
+   * returned as long as it has pending work or is referenced, so the work submitted to it for the session stays in
+   * order.
+   *
+   * @param sqlSession
+   *          the session
+   *
+   * @return the async view of the session
+   */
+  public static AsyncSqlSession of(SqlSession sqlSession) {
+    viewsLock.lock();
+    try {
+      WeakReference<AsyncSqlSession> reference = views.get(sqlSession);
+      AsyncSqlSession view = reference == null ? null : reference.get();
+      if (view == null) {
+        // the view refers to the session, so the map must not keep the view
+        view = new DefaultAsyncSqlSession(sqlSession, sqlSession.getConfiguration().getAsyncExecutor());
+        views.put(sqlSession, new WeakReference<>(view));
+      }
+      return view;
+    } finally {
+      viewsLock.unlock();
+    }
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submit(Function<SqlSession, T> work) {
+    lock.lock();
+    try {
+      // a failed task must not prevent the following ones from running
+      CompletableFuture<T> result = tail.handle((value, ex) -> null).thenApplyAsync(ignored -> run(work), executor);
+      tail = result;
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private <T> T run(Function<SqlSession, T> work) {
+    worker = Thread.currentThread();
+    try {
+      return work.apply(sqlSession);
+    } finally {
+      worker = null;
+    }
+  }
+
+  /**
+   * Waits until the submitted work has run, unless called by that work itself. The session calls it before running a
+   * statement called directly, so that its statements still run one at a time and in the order they were issued.
+   */
+  void awaitPendingWork() {
+    if (Thread.currentThread() == worker) {
+      return;
+    }
+    for (CompletableFuture<?> pending = pendingWork(); !pending.isDone(); pending = pendingWork()) {
+      pending.handle((value, ex) -> null).join();
+    }
+  }
+
+  private CompletableFuture<?> pendingWork() {
+    lock.lock();
+    try {
+      return tail;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return submit(session -> session.selectOne(statement));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return submit(session -> session.selectOne(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return submit(session -> session.selectList(statement));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return submit(session -> session.selectList(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return submit(session -> session.selectList(statement, parameter, rowBounds));
+  }
+
+  @Override
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey) {
+    return submit(session -> session.selectMap(statement, parameter, mapKey));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return submit(session -> session.insert(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return submit(session -> session.update(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return submit(session -> session.delete(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Void> commit() {
+    return submit(session -> {
+      session.commit();
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> rollback() {
+    return submit(session -> {
+      session.rollback();
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> close() {
+    return submit(session -> {
+      session.close();
+      return null;
+    });
+  }
+
+  @Override
+  public SqlSession getSqlSession() {
+    return sqlSession;
+  }
+
+  private static class DefaultExecutorHolder {
+    static final Executor EXECUTOR = createExecutor();
+
+    private static Executor createExecutor() {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (Executor) factory.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+  }
+
+}
@@ -34,6 +34,7 @@ import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.AsyncSqlSession;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -52,6 +53,7 @@ public class DefaultSqlSession implements SqlSession {
   private final boolean autoCommit;
   private boolean dirty;
   private List<Cursor<?>> cursorList;
+  private DefaultAsyncSqlSession asyncSession;
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
     this.configuration = configuration;
@@ -119,6 +121,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+    awaitAsyncWork();
     try {
       MappedStatement ms = configuration.getMappedStatement(statement);
       dirty |= ms.isDirtySelect();
@@ -148,6 +151,7 @@ public class DefaultSqlSession implements SqlSession {
   }
 
   private <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+    awaitAsyncWork();
     try {
       MappedStatement ms = configuration.getMappedStatement(statement);
       dirty |= ms.isDirtySelect();
@@ -191,6 +195,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public int update(String statement, Object parameter) {
+    awaitAsyncWork();
     try {
       dirty = true;
       MappedStatement ms = configuration.getMappedStatement(statement);
@@ -219,6 +224,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void commit(boolean force) {
+    awaitAsyncWork();
     try {
       executor.commit(isCommitOrRollbackRequired(force));
       dirty = false;
@@ -236,6 +242,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void rollback(boolean force) {
+    awaitAsyncWork();
     try {
       executor.rollback(isCommitOrRollbackRequired(force));
       dirty = false;
@@ -248,6 +255,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public List<BatchResult> flushStatements() {
+    awaitAsyncWork();
     try {
       return executor.flushStatements();
     } catch (Exception e) {
@@ -259,6 +267,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void close() {
+    awaitAsyncWork();
     try {
       executor.close(isCommitOrRollbackRequired(false));
       closeCursors();
@@ -293,6 +302,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public Connection getConnection() {
+    awaitAsyncWork();
     try {
       return executor.getTransaction().getConnection();
     } catch (SQLException e) {
@@ -300,11 +310,26 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public AsyncSqlSession getAsyncSession() {
+    if (asyncSession == null) {
+      asyncSession = new DefaultAsyncSqlSession(this, configuration.getAsyncExecutor());
+    }
+    return asyncSession;
+  }
+
   @Override
   public void clearCache() {
+    awaitAsyncWork();
     executor.clearLocalCache();
   }
 
+  private void awaitAsyncWork() {
+    if (asyncSession != null) {
+      asyncSession.awaitPendingWork();
+    }
+  }
+
   private <T> void registerCursor(Cursor<T> cursor) {
     if (cursorList == null) {
       cursorList = new ArrayList<>();
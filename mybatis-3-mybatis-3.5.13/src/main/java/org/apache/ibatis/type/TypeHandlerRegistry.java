@@ -44,6 +44,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.io.ClassFileHeader;
 import org.apache.ibatis.io.ResolverUtil;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.Configuration;
@@ -490,7 +491,8 @@ public final class TypeHandlerRegistry {
     */
     public void register(String packageName) {
         ResolverUtil<Class<?>> resolverUtil = new ResolverUtil<>();
-        resolverUtil.find(new ResolverUtil.IsA(TypeHandler.class), packageName);
+        resolverUtil.find(new ResolverUtil.IsA(TypeHandler.class), packageName,
+            header -> !header.isAnonymousClass() && !header.isInterface() && !header.isAbstract());
         Set<Class<? extends Class<?>>> handlerSet = resolverUtil.getClasses();
         for (Class<?> type : handlerSet) {
             // Ignore inner classes and interfaces (including package-info.java) and abstract classes
@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values (typically durations in nanoseconds) with a bounded relative error.
+ * <p>
+ * Like an HDR histogram, values are counted in buckets whose width grows with their magnitude: every power of two is
+ * split into 8 linear sub-buckets, so percentiles are reported with an error of at most 12.5% using a fixed array of
+ * 480 counters, whatever the range of the values.
+ *
+ * @since 3.5.14
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final long MAX_VALUE = (1L << 62) - 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray((63 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  public void record(long value) {
+    long bounded = Math.max(0, Math.min(value, MAX_VALUE));
+    counts.incrementAndGet(index(bounded));
+    count.increment();
+    sum.add(bounded);
+    max.accumulate(bounded);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Returns the value below which the given percentage of the recorded values fall.
+   *
+   * @param percentile
+   *          the percentile, between 0 and 100
+   *
+   * @return the upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    long[] snapshot = new long[counts.length()];
+    long total = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+    long cumulative = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      cumulative += snapshot[i];
+      if (cumulative >= rank) {
+        return Math.min(upperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucketWidth = 1L << (exponent - SUB_BUCKET_BITS);
+    return (1L << exponent) + (index % SUB_BUCKETS + 1) * subBucketWidth - 1;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + (long) getMean() + ", p50=" + getValueAtPercentile(50) + ", p99="
+        + getValueAtPercentile(99) + ", max=" + getMax();
+  }
+
+}
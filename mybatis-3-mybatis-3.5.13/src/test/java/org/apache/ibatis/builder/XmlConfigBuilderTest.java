@@ -217,6 +217,7 @@ class XmlConfigBuilderTest {
       assertThat(config.isArgNameBasedConstructorAutoMapping()).isTrue();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
       assertThat(config.isNullableOnForEach()).isTrue();
+      assertThat(config.isParallelMapperParsing()).isTrue();
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -256,9 +257,33 @@ class XmlConfigBuilderTest {
       assertThat(config.getMapperRegistry().hasMapper(CustomMapper.class)).isTrue();
       assertThat(config.getMapperRegistry().hasMapper(BlogMapper.class)).isTrue();
       assertThat(config.getMapperRegistry().hasMapper(NestedBlogMapper.class)).isTrue();
+      assertThat(config.hasStatement("org.apache.ibatis.domain.blog.mappers.BlogMapper.selectBlogWithPostsUsingSubSelect"))
+          .isTrue();
     }
   }
 
+  @Test
+  void parallelMapperParsingReportsFirstFailingMapperInDeclarationOrder() {
+    // @formatter:off
+    final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"https://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+        + "<configuration>\n"
+        + "  <settings>\n"
+        + "    <setting name=\"parallelMapperParsing\" value=\"true\"/>\n"
+        + "  </settings>\n"
+        + "  <mappers>\n"
+        + "    <mapper resource=\"a/b/c/First.xml\"/>\n"
+        + "    <mapper resource=\"a/b/c/Second.xml\"/>\n"
+        + "  </mappers>\n"
+        + "</configuration>\n";
+    // @formatter:on
+
+    XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(MAPPER_CONFIG));
+    when(builder::parse);
+    then(caughtException()).isInstanceOf(BuilderException.class)
+        .hasMessageContaining("Could not find resource a/b/c/First.xml");
+  }
+
   @Test
   void shouldSuccessfullyLoadXMLConfigFileWithPropertiesUrl() throws Exception {
     String resource = "org/apache/ibatis/builder/PropertiesUrlMapperConfig.xml";
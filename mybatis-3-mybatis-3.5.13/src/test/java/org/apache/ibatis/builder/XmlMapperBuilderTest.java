@@ -20,18 +20,26 @@ import static com.googlecode.catchexception.apis.BDDCatchException.when;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.BDDAssertions.then;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.builder.xml.XMLMapperSnapshot;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.TypeHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
 
 class XmlMapperBuilderTest {
 
@@ -229,4 +237,31 @@ class XmlMapperBuilderTest {
       assertThat(exception.getMessage()).isEqualTo(message);
     }
   }
+
+  @Test
+  void shouldLoadMapperFromSnapshot() throws Exception {
+    String resource = "org/apache/ibatis/builder/AuthorMapper.xml";
+    byte[] source = Files.readAllBytes(Resources.getResourceAsFile(resource).toPath());
+    XMLMapperSnapshot snapshot = new XMLMapperSnapshot();
+    snapshot.add(resource, source);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    snapshot.write(out);
+    XMLMapperSnapshot loaded = XMLMapperSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+
+    Document document = loaded.getDocument(resource, source);
+    assertThat(document).isNotNull();
+    Configuration configuration = new Configuration();
+    XPathParser parser = new XPathParser(document, true, configuration.getVariables(), new XMLMapperEntityResolver());
+    new XMLMapperBuilder(parser, configuration, resource, configuration.getSqlFragments()).parse();
+
+    MappedStatement mappedStatement = configuration.getMappedStatement("selectWithOptions");
+    assertThat(mappedStatement.getFetchSize()).isEqualTo(200);
+    assertThat(configuration.getMappedStatement("selectAuthor").getBoundSql(null).getSql())
+        .isEqualTo("select id, username, password, email, bio, favourite_section\n        from author where id = ?");
+
+    byte[] changed = Arrays.copyOf(source, source.length + 1);
+    changed[source.length] = '\n';
+    assertThat(loaded.getDocument(resource, changed)).isNull();
+    assertThat(loaded.getDocument("org/apache/ibatis/builder/BlogMapper.xml", source)).isNull();
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ObjectSizeEstimatorTest {
+
+  @Test
+  void shouldEstimateNullAsEmpty() {
+    assertThat(ObjectSizeEstimator.estimate(null)).isZero();
+  }
+
+  @Test
+  void shouldGrowWithTheContent() {
+    assertThat(ObjectSizeEstimator.estimate("a long string to size")).isGreaterThan(ObjectSizeEstimator.estimate("a"));
+    assertThat(ObjectSizeEstimator.estimate(new byte[1000])).isEqualTo(1016);
+    Node node = new Node("node");
+    long one = ObjectSizeEstimator.estimate(Arrays.asList(node));
+    long two = ObjectSizeEstimator.estimate(Arrays.asList(node, new Node("other")));
+    assertThat(two).isGreaterThan(one);
+  }
+
+  @Test
+  void shouldCountSharedObjectsOnce() {
+    Node node = new Node("node");
+    List<Node> nodes = new ArrayList<>();
+    nodes.add(node);
+    long once = ObjectSizeEstimator.estimate(nodes);
+    nodes.add(node);
+    assertThat(ObjectSizeEstimator.estimate(nodes)).isEqualTo(once);
+  }
+
+  @Test
+  void shouldStopOnCycles() {
+    Node parent = new Node("parent");
+    Node child = new Node("child");
+    parent.next = child;
+    child.next = parent;
+    assertThat(ObjectSizeEstimator.estimate(parent)).isEqualTo(ObjectSizeEstimator.estimate(child));
+  }
+
+  @Test
+  void shouldNotKeepTheClassLoadersOfEstimatedObjects() throws Exception {
+    WeakReference<ClassLoader> loader = estimateWithOwnClassLoader();
+    for (int i = 0; i < 50 && loader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertThat(loader.get()).isNull();
+  }
+
+  private static WeakReference<ClassLoader> estimateWithOwnClassLoader() throws Exception {
+    URL testClasses = Node.class.getProtectionDomain().getCodeSource().getLocation();
+    try (URLClassLoader loader = new URLClassLoader(new URL[] { testClasses }, null)) {
+      Class<?> type = loader.loadClass(Node.class.getName());
+      assertThat(type).isNotEqualTo(Node.class);
+      Constructor<?> constructor = type.getDeclaredConstructor(String.class);
+      constructor.setAccessible(true);
+      assertThat(ObjectSizeEstimator.estimate(constructor.newInstance("node"))).isPositive();
+      return new WeakReference<>(loader);
+    }
+  }
+
+  static class Node {
+    private final String name;
+    private Node next;
+
+    Node(String name) {
+      this.name = name;
+    }
+  }
+
+}
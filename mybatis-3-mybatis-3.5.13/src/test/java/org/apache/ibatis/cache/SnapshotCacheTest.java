@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.SnapshotCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class SnapshotCacheTest {
+
+  @Test
+  void shouldCopyCollectionsIntoTheDeclaredPropertyType() {
+    SnapshotCache cache = new SnapshotCache(new PerpetualCache("default"));
+    Bean bean = new Bean();
+    bean.setTags(new ArrayList<>(Arrays.asList("a", "b")));
+    bean.setAttributes(new HashMap<>());
+    bean.getAttributes().put("key", "value");
+    cache.putObject(0, bean);
+    bean.getTags().add("c");
+    bean.getAttributes().clear();
+
+    Bean snapshot = (Bean) cache.getObject(0);
+    assertNotSame(bean, snapshot);
+    assertEquals(Arrays.asList("a", "b"), snapshot.getTags());
+    assertEquals("value", snapshot.getAttributes().get("key"));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getTags().add("c"));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getTags().iterator().remove());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getAttributes().keySet().clear());
+  }
+
+  @Test
+  void shouldNotLetAHitChangeTheNextHit() {
+    SnapshotCache cache = new SnapshotCache(new PerpetualCache("default"));
+    Bean bean = new Bean();
+    bean.setTags(new ArrayList<>(Arrays.asList("a")));
+    Bean child = new Bean();
+    child.setDate(LocalDate.of(2020, 1, 1));
+    child.setChildren(new ArrayList<>());
+    bean.setChildren(new ArrayList<>(Arrays.asList(child)));
+    bean.setTimestamp(new Timestamp(1000L));
+    cache.putObject(0, Arrays.asList(bean));
+
+    @SuppressWarnings("unchecked")
+    Bean hit = ((List<Bean>) cache.getObject(0)).get(0);
+    assertThrows(UnsupportedOperationException.class, () -> hit.setTags(new ArrayList<>()));
+    assertThrows(UnsupportedOperationException.class, () -> hit.getTags().set(0, "b"));
+    assertThrows(UnsupportedOperationException.class, () -> hit.getChildren().get(0).setDate(null));
+    assertThrows(UnsupportedOperationException.class, () -> hit.getChildren().get(0).getChildren().add(bean));
+    assertThrows(UnsupportedOperationException.class, () -> hit.getTimestamp().setTime(0L));
+
+    @SuppressWarnings("unchecked")
+    Bean next = ((List<Bean>) cache.getObject(0)).get(0);
+    assertEquals(Arrays.asList("a"), next.getTags());
+    assertEquals(LocalDate.of(2020, 1, 1), next.getChildren().get(0).getDate());
+    assertEquals(new Timestamp(1000L), next.getTimestamp());
+  }
+
+  @Test
+  void shouldCopyMutableJdkObjects() {
+    SnapshotCache cache = new SnapshotCache(new PerpetualCache("default"));
+    Bean bean = new Bean();
+    bean.setCalendar(Calendar.getInstance());
+    bean.setCounter(new AtomicInteger(1));
+    cache.putObject(0, bean);
+    bean.getCalendar().add(Calendar.YEAR, 1);
+    bean.getCounter().incrementAndGet();
+
+    Bean snapshot = (Bean) cache.getObject(0);
+    assertNotSame(bean.getCalendar(), snapshot.getCalendar());
+    assertEquals(bean.getCalendar().get(Calendar.YEAR) - 1, snapshot.getCalendar().get(Calendar.YEAR));
+    assertEquals(1, snapshot.getCounter().get());
+  }
+
+  @Test
+  void shouldShareImmutableValues() {
+    SnapshotCache cache = new SnapshotCache(new PerpetualCache("default"));
+    Bean bean = new Bean();
+    bean.setDate(LocalDate.of(2020, 1, 1));
+    cache.putObject(0, bean);
+    assertSame(bean.getDate(), ((Bean) cache.getObject(0)).getDate());
+  }
+
+  public static class Bean {
+    private ArrayList<String> tags;
+    private HashMap<String, String> attributes;
+    private Calendar calendar;
+    private AtomicInteger counter;
+    private LocalDate date;
+    private List<Bean> children;
+    private Timestamp timestamp;
+
+    public ArrayList<String> getTags() {
+      return tags;
+    }
+
+    public void setTags(ArrayList<String> tags) {
+      this.tags = tags;
+    }
+
+    public HashMap<String, String> getAttributes() {
+      return attributes;
+    }
+
+    public void setAttributes(HashMap<String, String> attributes) {
+      this.attributes = attributes;
+    }
+
+    public Calendar getCalendar() {
+      return calendar;
+    }
+
+    public void setCalendar(Calendar calendar) {
+      this.calendar = calendar;
+    }
+
+    public AtomicInteger getCounter() {
+      return counter;
+    }
+
+    public void setCounter(AtomicInteger counter) {
+      this.counter = counter;
+    }
+
+    public LocalDate getDate() {
+      return date;
+    }
+
+    public void setDate(LocalDate date) {
+      this.date = date;
+    }
+
+    public List<Bean> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Bean> children) {
+      this.children = children;
+    }
+
+    public Timestamp getTimestamp() {
+      return timestamp;
+    }
+
+    public void setTimestamp(Timestamp timestamp) {
+      this.timestamp = timestamp;
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  private static final CacheWeigher ROWS = (key, value) -> ((List<?>) value).size();
+
+  @Test
+  void shouldRemoveLeastRecentlyUsedItemsBeyondMaxBytes() {
+    WeightedCache cache = newCache("default");
+    cache.setMaxBytes(10);
+    cache.putObject(0, rows(4));
+    cache.putObject(1, rows(4));
+    assertNotNull(cache.getObject(0));
+    cache.putObject(2, rows(4));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(0));
+    assertEquals(8, cache.getWeight());
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  void shouldNotKeepAnItemHeavierThanMaxBytes() {
+    WeightedCache cache = newCache("default");
+    cache.setMaxBytes(10);
+    cache.putObject(0, rows(4));
+    cache.putObject(1, rows(20));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldShareGlobalBudget() {
+    CacheWeightBudget budget = new CacheWeightBudget(10);
+    WeightedCache first = newCache("first");
+    first.setBudget(budget);
+    WeightedCache second = newCache("second");
+    second.setBudget(budget);
+    first.putObject(0, rows(6));
+    second.putObject(0, rows(3));
+    assertEquals(9, budget.getUsedBytes());
+    // the heaviest cache evicts, not the one written
+    second.putObject(1, rows(3));
+    assertNull(first.getObject(0));
+    assertNotNull(second.getObject(0));
+    assertNotNull(second.getObject(1));
+    assertEquals(6, budget.getUsedBytes());
+    second.clear();
+    assertEquals(0, budget.getUsedBytes());
+  }
+
+  @Test
+  void shouldEvictTheEntryPutLast() {
+    CacheWeightBudget budget = new CacheWeightBudget(10);
+    WeightedCache first = newCache("first");
+    first.setBudget(budget);
+    WeightedCache second = newCache("second");
+    second.setBudget(budget);
+    first.putObject(0, rows(4));
+    second.putObject(0, rows(8));
+    assertNull(first.getObject(0));
+    assertNotNull(second.getObject(0));
+    assertEquals(8, budget.getUsedBytes());
+    second.putObject(1, rows(20));
+    assertNull(second.getObject(0));
+    assertNull(second.getObject(1));
+    assertEquals(0, budget.getUsedBytes());
+  }
+
+  @Test
+  void shouldSubtractItemsEvictedByOuterDecorators() {
+    WeightedCache weighted = newCache("default");
+    weighted.setMaxBytes(100);
+    LruCache cache = new LruCache(weighted);
+    cache.setSize(2);
+    cache.putObject(0, rows(4));
+    cache.putObject(1, rows(4));
+    cache.putObject(2, rows(4));
+    assertEquals(8, weighted.getWeight());
+    cache.putObject(2, rows(1));
+    assertEquals(5, weighted.getWeight());
+    cache.removeObject(1);
+    assertEquals(1, weighted.getWeight());
+  }
+
+  @Test
+  void shouldEstimateRowsFromFirstRow() {
+    EstimatedRowsWeigher weigher = new EstimatedRowsWeigher();
+    long one = weigher.weigh(null, Collections.singletonList("row"));
+    long two = weigher.weigh(null, Arrays.asList("row", "a longer row"));
+    long three = weigher.weigh(null, Arrays.asList("row", "a longer row", "an even longer row"));
+    assertEquals(two - one, three - two);
+  }
+
+  private static WeightedCache newCache(String id) {
+    WeightedCache cache = new WeightedCache(new PerpetualCache(id));
+    cache.setWeigher(ROWS);
+    return cache;
+  }
+
+  private static List<Object> rows(int count) {
+    return Collections.nCopies(count, "row");
+  }
+
+}
@@ -18,15 +18,23 @@ package org.apache.ibatis.datasource.pooled;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.ibatis.executor.ErrorContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -158,4 +166,257 @@ class PooledDataSourceTest {
     assertEquals(0, poolState.getActiveConnectionCount());
     assertEquals(0, poolState.getIdleConnectionCount());
   }
+
+  @Test
+  void housekeepingShouldCreateMinimumIdleConnections() {
+    dataSource.setPoolMinimumIdleConnections(3);
+
+    dataSource.housekeep();
+
+    assertEquals(3, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void housekeepingShouldCloseExpiredIdleConnections() throws Exception {
+    dataSource.setPoolMaximumLifetime(50);
+    Connection first = dataSource.getConnection();
+    Connection second = dataSource.getConnection();
+    first.close();
+    second.close();
+    assertEquals(2, dataSource.getPoolState().getIdleConnectionCount());
+
+    Thread.sleep(100);
+    dataSource.housekeep();
+
+    assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldCloseExpiredConnectionOnReturn() throws Exception {
+    dataSource.setPoolMaximumLifetime(50);
+    Connection connection = dataSource.getConnection();
+    Connection realConnection = PooledDataSource.unwrapConnection(connection);
+
+    Thread.sleep(100);
+    connection.close();
+
+    assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+    assertTrue(realConnection.isClosed());
+  }
+
+  @Test
+  void housekeepingShouldCloseTimedOutIdleConnectionsDownToMinimum() throws Exception {
+    dataSource.setPoolIdleTimeout(50);
+    dataSource.setPoolMinimumIdleConnections(1);
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      connections.add(dataSource.getConnection());
+    }
+    for (Connection connection : connections) {
+      connection.close();
+    }
+
+    Thread.sleep(100);
+    dataSource.housekeep();
+
+    assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void housekeepingShouldDiscardBrokenIdleConnections() throws Exception {
+    Connection connection = dataSource.getConnection();
+    Connection realConnection = PooledDataSource.unwrapConnection(connection);
+    connection.close();
+    realConnection.close();
+    long badConnectionCount = dataSource.getPoolState().getBadConnectionCount();
+
+    dataSource.housekeep();
+
+    assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+    assertEquals(badConnectionCount + 1, dataSource.getPoolState().getBadConnectionCount());
+  }
+
+  @Test
+  void housekeeperShouldRunInBackground() throws Exception {
+    dataSource.setPoolMinimumIdleConnections(2);
+    dataSource.setPoolHousekeepingPeriod(20);
+    try {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (dataSource.getPoolState().getIdleConnectionCount() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(2, dataSource.getPoolState().getIdleConnectionCount());
+    } finally {
+      dataSource.setPoolHousekeepingPeriod(0);
+    }
+  }
+
+  @Test
+  void shouldRecordPoolMetrics() throws Exception {
+    List<Long> holdTimes = new ArrayList<>();
+    dataSource.addPoolMetricsListener(new PoolMetricsListener() {
+      @Override
+      public void connectionReleased(long holdNanos) {
+        holdTimes.add(holdNanos);
+      }
+    });
+    PoolMetrics metrics = dataSource.getPoolMetrics();
+
+    Connection first = dataSource.getConnection();
+    Connection second = dataSource.getConnection();
+    assertEquals(2, metrics.getActiveConnections());
+    assertEquals(0, metrics.getIdleConnections());
+    Thread.sleep(10);
+    first.close();
+    second.close();
+
+    assertEquals(0, metrics.getActiveConnections());
+    assertEquals(2, metrics.getIdleConnections());
+    assertEquals(0, metrics.getPendingRequests());
+    assertEquals(2, metrics.getRequestCount());
+    assertEquals(2, metrics.getCreatedConnectionCount());
+    assertEquals(2, metrics.getAcquireTime().getCount());
+    assertEquals(2, metrics.getCreationTime().getCount());
+    assertEquals(2, metrics.getHoldTime().getCount());
+    assertTrue(metrics.getHoldTime().getValueAtPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(10));
+    assertEquals(2, holdTimes.size());
+  }
+
+  @Test
+  void shouldReportPendingRequestsWhenExhausted() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(1);
+    Connection connection = dataSource.getConnection();
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      try (Connection other = dataSource.getConnection()) {
+        acquired.countDown();
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    waiter.start();
+
+    PoolMetrics metrics = dataSource.getPoolMetrics();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (metrics.getPendingRequests() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, metrics.getPendingRequests());
+
+    connection.close();
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    waiter.join();
+    assertEquals(0, metrics.getPendingRequests());
+    assertEquals(1, metrics.getHadToWaitCount());
+  }
+
+  @Test
+  void shouldReportConnectionsHeldBeyondLeakDetectionThreshold() throws Exception {
+    List<String> statementIds = new ArrayList<>();
+    List<StackTraceElement[]> borrowSites = new ArrayList<>();
+    dataSource.setPoolLeakDetectionThreshold(50);
+    dataSource.addPoolMetricsListener(new PoolMetricsListener() {
+      @Override
+      public void connectionLeakSuspected(long holdNanos, String lastStatementId, StackTraceElement[] borrowSite) {
+        statementIds.add(lastStatementId);
+        borrowSites.add(borrowSite);
+      }
+    });
+
+    Connection connection = dataSource.getConnection();
+    ErrorContext.instance().object("org.example.Mapper.select");
+    try {
+      connection.prepareStatement("select 1 from INFORMATION_SCHEMA.SYSTEM_USERS").close();
+    } finally {
+      ErrorContext.instance().reset();
+    }
+    Thread.sleep(100);
+    dataSource.checkLeaks();
+    dataSource.checkLeaks();
+    connection.close();
+
+    assertEquals(1, dataSource.getPoolMetrics().getSuspectedLeakCount());
+    assertEquals("org.example.Mapper.select", statementIds.get(0));
+    assertTrue(Arrays.stream(borrowSites.get(0))
+        .anyMatch(element -> element.getMethodName().equals("shouldReportConnectionsHeldBeyondLeakDetectionThreshold")));
+  }
+
+  @Test
+  void shouldReportLeakOnReturnAndSampleBorrowSites() throws Exception {
+    List<StackTraceElement[]> borrowSites = new ArrayList<>();
+    dataSource.setPoolLeakDetectionThreshold(50);
+    dataSource.setPoolLeakDetectionSampleRate(2);
+    dataSource.addPoolMetricsListener(new PoolMetricsListener() {
+      @Override
+      public void connectionLeakSuspected(long holdNanos, String lastStatementId, StackTraceElement[] borrowSite) {
+        borrowSites.add(borrowSite);
+      }
+    });
+
+    Connection first = dataSource.getConnection();
+    Connection second = dataSource.getConnection();
+    Thread.sleep(100);
+    first.close();
+    second.close();
+    Connection quick = dataSource.getConnection();
+    quick.close();
+
+    assertEquals(2, borrowSites.size());
+    assertNotNull(borrowSites.get(0));
+    assertNull(borrowSites.get(1));
+  }
+
+  @Test
+  void shouldReusePreparedStatementsAcrossCheckouts() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolPreparedStatementCacheSize(2);
+    String sql = "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+
+    PreparedStatement first;
+    try (Connection conn = dataSource.getConnection(); PreparedStatement statement = conn.prepareStatement(sql)) {
+      first = statement.unwrap(PreparedStatement.class);
+      assertTrue(statement.execute());
+    }
+    try (Connection conn = dataSource.getConnection(); PreparedStatement statement = conn.prepareStatement(sql)) {
+      assertEquals(first, statement.unwrap(PreparedStatement.class));
+      assertFalse(statement.isClosed());
+      try (ResultSet rs = statement.executeQuery()) {
+        assertTrue(rs.next());
+      }
+      statement.close();
+      assertTrue(statement.isClosed());
+      assertThrows(SQLException.class, statement::executeQuery);
+    }
+    PreparedStatementCache cache = ((PooledConnection) Proxy.getInvocationHandler(dataSource.getConnection()))
+        .getStatementCacheIfPresent();
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  void shouldNotShareOpenPreparedStatements() throws Exception {
+    dataSource.setPoolPreparedStatementCacheSize(2);
+    String sql = "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+    try (Connection conn = dataSource.getConnection(); PreparedStatement statement1 = conn.prepareStatement(sql);
+        PreparedStatement statement2 = conn.prepareStatement(sql)) {
+      assertNotEquals(statement1.unwrap(PreparedStatement.class), statement2.unwrap(PreparedStatement.class));
+    }
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedPreparedStatement() throws Exception {
+    dataSource.setPoolPreparedStatementCacheSize(2);
+    try (Connection conn = dataSource.getConnection()) {
+      PreparedStatement first = conn.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+      PreparedStatement physicalFirst = first.unwrap(PreparedStatement.class);
+      first.close();
+      conn.prepareStatement("SELECT 2 FROM INFORMATION_SCHEMA.SYSTEM_USERS").close();
+      conn.prepareStatement("SELECT 3 FROM INFORMATION_SCHEMA.SYSTEM_USERS").close();
+      assertTrue(physicalFirst.isClosed());
+      PreparedStatementCache cache = ((PooledConnection) Proxy.getInvocationHandler(conn))
+          .getStatementCacheIfPresent();
+      assertEquals(2, cache.size());
+      assertEquals(0, cache.getHits());
+    }
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import javassist.util.proxy.Proxy;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.executor.loader.hiddenclass.HiddenClassProxy;
+import org.apache.ibatis.executor.loader.hiddenclass.HiddenClassProxyFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class HiddenClassProxyTest extends SerializableProxyTest {
+
+  @BeforeAll
+  static void createProxyFactory() {
+    proxyFactory = new HiddenClassProxyFactory();
+  }
+
+  @Test
+  void shouldCreateAHiddenClassProxy() throws Exception {
+    Object proxy = proxyFactory.createProxy(author, new ResultLoaderMap(), new Configuration(),
+        new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertTrue(proxy instanceof HiddenClassProxy);
+    assertTrue((Boolean) Class.class.getMethod("isHidden").invoke(proxy.getClass()));
+    assertEquals(author.getClass().getPackage().getName(), proxy.getClass().getPackage().getName());
+    Object proxy2 = proxyFactory.createProxy(author, new ResultLoaderMap(), new Configuration(),
+        new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertSame(proxy.getClass(), proxy2.getClass());
+  }
+
+  @Test
+  void shouldLoadAPropertyOnlyOnce() throws Exception {
+    Configuration configuration = new Configuration();
+    ResultLoaderMap loader = new ResultLoaderMap();
+    CountingResultLoader resultLoader = new CountingResultLoader(configuration, "lazy bio");
+    Author proxy = (Author) proxyFactory.createProxy(author, loader, configuration, new DefaultObjectFactory(),
+        new ArrayList<>(), new ArrayList<>());
+    loader.addLoader("bio", configuration.newMetaObject(proxy), resultLoader);
+    assertEquals("lazy bio", proxy.getBio());
+    assertEquals("lazy bio", proxy.getBio());
+    assertEquals(1, resultLoader.loads);
+    assertEquals("someone", proxy.getUsername());
+  }
+
+  @Test
+  void shouldNotLoadAPropertyThatWasSet() throws Exception {
+    Configuration configuration = new Configuration();
+    ResultLoaderMap loader = new ResultLoaderMap();
+    CountingResultLoader resultLoader = new CountingResultLoader(configuration, "lazy bio");
+    Author proxy = (Author) proxyFactory.createProxy(author, loader, configuration, new DefaultObjectFactory(),
+        new ArrayList<>(), new ArrayList<>());
+    loader.addLoader("bio", configuration.newMetaObject(proxy), resultLoader);
+    proxy.setBio("new bio");
+    assertEquals("new bio", proxy.getBio());
+    assertEquals(0, resultLoader.loads);
+  }
+
+  @Test
+  void shouldLoadAllPropertiesOnTriggerMethod() throws Exception {
+    Configuration configuration = new Configuration();
+    ResultLoaderMap loader = new ResultLoaderMap();
+    CountingResultLoader resultLoader = new CountingResultLoader(configuration, "lazy@somewhere.com");
+    Author proxy = (Author) proxyFactory.createProxy(author, loader, configuration, new DefaultObjectFactory(),
+        new ArrayList<>(), new ArrayList<>());
+    loader.addLoader("email", configuration.newMetaObject(proxy), resultLoader);
+    assertTrue(proxy.toString().contains("lazy@somewhere.com"));
+    assertEquals(1, resultLoader.loads);
+    assertEquals(0, loader.size());
+  }
+
+  @Test
+  void shouldUseJavassistForAggressiveLazyLoading() {
+    Configuration configuration = new Configuration();
+    configuration.setAggressiveLazyLoading(true);
+    Object proxy = proxyFactory.createProxy(author, new ResultLoaderMap(), configuration, new DefaultObjectFactory(),
+        new ArrayList<>(), new ArrayList<>());
+    assertTrue(proxy instanceof Proxy);
+    assertFalse(proxy instanceof HiddenClassProxy);
+  }
+
+  @Test
+  void shouldDeserializeAPartiallyLoadedBean() throws Exception {
+    ResultLoaderMap loader = new ResultLoaderMap();
+    loader.addLoader("id", null, null);
+    Object proxy = proxyFactory.createProxy(author, loader, new Configuration(), new DefaultObjectFactory(),
+        new ArrayList<>(), new ArrayList<>());
+    Author author2 = (Author) deserialize(serialize((Serializable) proxy));
+    assertTrue(author2 instanceof Proxy);
+  }
+
+  private static class CountingResultLoader extends ResultLoader {
+    private final Object value;
+    private int loads;
+
+    CountingResultLoader(Configuration configuration, Object value) {
+      super(configuration, null, null, null, null, null, null);
+      this.value = value;
+    }
+
+    @Override
+    public Object loadResult() throws SQLException {
+      loads++;
+      return value;
+    }
+  }
+
+}
@@ -16,13 +16,16 @@
 package org.apache.ibatis.io;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.InputStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Collections;
 import java.util.Set;
 
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -147,6 +150,41 @@ class ResolverUtilTest {
     assertTrue(annotatedWith.toString().contains("@" + CacheNamespace.class.getSimpleName()));
   }
 
+  @Test
+  void findWithCandidateFilter() {
+    ResolverUtil<Object> resolverUtil = new ResolverUtil<>();
+    resolverUtil.find(new ResolverUtil.IsA(Object.class), this.getClass().getPackage().getName(),
+        ClassFileHeader::isInterface);
+    Set<Class<?>> classSets = resolverUtil.getClasses();
+    assertTrue(classSets.contains(TestMapper.class));
+    assertTrue(classSets.contains(ResolverUtil.Test.class));
+    classSets.forEach(c -> assertTrue(c.isInterface()));
+  }
+
+  @Test
+  void readClassFileHeader() throws Exception {
+    ClassFileHeader header;
+    try (InputStream inputStream = currentContextClassLoader
+        .getResourceAsStream("org/apache/ibatis/io/ResolverUtilTest$TestMapper.class")) {
+      header = ClassFileHeader.read(inputStream);
+    }
+    assertEquals(TestMapper.class.getName(), header.getClassName());
+    assertTrue(header.isInterface());
+    assertTrue(header.isMemberClass());
+    assertFalse(header.isAnonymousClass());
+    assertEquals(Collections.singletonList(CacheNamespace.class.getName()), header.getAnnotationNames());
+
+    try (InputStream inputStream = currentContextClassLoader
+        .getResourceAsStream("org/apache/ibatis/io/DefaultVFS.class")) {
+      header = ClassFileHeader.read(inputStream);
+    }
+    assertEquals(DefaultVFS.class.getName(), header.getClassName());
+    assertEquals(VFS.class.getName(), header.getSuperClassName());
+    assertFalse(header.isInterface());
+    assertFalse(header.isAbstract());
+    assertFalse(header.isMemberClass());
+  }
+
   @CacheNamespace(readWrite = false)
   private interface TestMapper {
     // test ResolverUtil.findAnnotated method
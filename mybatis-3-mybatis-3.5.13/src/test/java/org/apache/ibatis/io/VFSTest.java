@@ -17,9 +17,13 @@ package org.apache.ibatis.io;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Unit test for VFS getInstance method in multi-thread environment
@@ -34,6 +38,25 @@ class VFSTest {
     Assertions.assertNotNull(vsf);
   }
 
+  @Test
+  void shouldListIndexedPath() throws IOException {
+    Assertions.assertEquals(
+        Arrays.asList("org/apache/ibatis/io/indexed/First.class", "org/apache/ibatis/io/indexed/sub/Second.class"),
+        VFS.getInstance().list("org/apache/ibatis/io/indexed"));
+  }
+
+  @Test
+  void shouldWriteIndex(@TempDir Path classes) throws IOException {
+    Path packageDir = Files.createDirectories(classes.resolve("com/example/sub"));
+    Files.createFile(classes.resolve("com/example/A.class"));
+    Files.createFile(packageDir.resolve("B.class"));
+
+    VFSIndex.main(new String[] { classes.toString(), "com.example" });
+
+    Assertions.assertEquals(Arrays.asList("com/example/A.class", "com/example/sub/B.class"),
+        Files.readAllLines(classes.resolve("META-INF/mybatis/vfs-index/com/example.list")));
+  }
+
   @Test
   void getInstanceShouldNotBeNullInMultiThreadEnv() throws InterruptedException {
     final int threadCount = 3;
@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SqlTablesTest {
+
+  @Test
+  void shouldReadTablesOfQuery() {
+    assertThat(SqlTables.reads("select * from orders")).containsExactly("orders");
+    assertThat(SqlTables.reads("SELECT o.id FROM shop.Orders o, \"Customers\" AS c WHERE o.customer_id = c.id"))
+        .containsExactly("orders", "customers");
+    assertThat(SqlTables.reads(
+        "select * from orders o left outer join customers c on c.id = o.customer_id inner join lines l using (order_id)"))
+        .containsExactly("orders", "customers", "lines");
+    assertThat(SqlTables.reads("select * from (select id from orders) x join `customers` on 1 = 1"))
+        .containsExactly("orders", "customers");
+    assertThat(SqlTables.reads("select 'from fake' from orders -- join comments\n where id in (select id from lines)"))
+        .containsExactly("orders", "lines");
+    assertThat(SqlTables.reads("with t as (select * from orders) select * from t"))
+        .containsExactly("orders", "t");
+  }
+
+  @Test
+  void shouldNotReadTablesOfUnknownQuery() {
+    assertThat(SqlTables.reads("select * from table(my_function(1))")).isNull();
+    assertThat(SqlTables.reads("select * from (orders o join customers c on 1 = 1)")).isNull();
+    assertThat(SqlTables.reads("call my_procedure()")).isNull();
+    assertThat(SqlTables.reads("select * from orders; delete from customers")).isNull();
+  }
+
+  @Test
+  void shouldReadTablesOfWrite() {
+    assertThat(SqlTables.writes("insert into orders (id) values (?)")).containsExactly("orders");
+    assertThat(SqlTables.writes("INSERT IGNORE INTO app.orders select * from old_orders")).containsExactly("orders");
+    assertThat(SqlTables.writes("update orders o set amount = ? where id = ?")).containsExactly("orders");
+    assertThat(SqlTables.writes("update orders o join customers c on c.id = o.customer_id set o.amount = 0"))
+        .containsExactly("orders", "customers");
+    assertThat(SqlTables.writes("delete from orders where id = ?")).containsExactly("orders");
+    assertThat(SqlTables.writes("delete o from orders o join customers c on 1 = 1")).contains("orders");
+    assertThat(SqlTables.writes("merge into orders o using new_orders n on o.id = n.id")).containsExactly("orders");
+    assertThat(SqlTables.writes("truncate table orders;")).containsExactly("orders");
+  }
+
+  @Test
+  void shouldNotReadTablesOfUnknownWrite() {
+    assertThat(SqlTables.writes("{call update_orders(?)}")).isNull();
+    assertThat(SqlTables.writes("update orders")).isNull();
+    assertThat(SqlTables.writes("delete from orders; delete from customers")).isNull();
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncSqlSessionTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService executor;
+  private static final AtomicInteger asyncTasks = new AtomicInteger();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    executor = Executors.newFixedThreadPool(2);
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(task -> executor.execute(() -> {
+      asyncTasks.incrementAndGet();
+      task.run();
+    }));
+  }
+
+  @BeforeEach
+  void resetData() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+  }
+
+  @AfterAll
+  static void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldRunMapperMethodsOnAsyncExecutor() throws Exception {
+    int tasksBefore = asyncTasks.get();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> user = mapper.getUser(1);
+      List<User> users = mapper.getUsers().toCompletableFuture().get(10, TimeUnit.SECONDS);
+      Map<Integer, User> userMap = mapper.getUserMap().get(10, TimeUnit.SECONDS);
+
+      assertEquals("User1", user.get(10, TimeUnit.SECONDS).getName());
+      assertThat(users).extracting(User::getName).containsExactly("User1", "User2");
+      assertEquals("User2", userMap.get(2).getName());
+    }
+    assertEquals(tasksBefore + 3, asyncTasks.get());
+  }
+
+  @Test
+  void shouldRunInSubmissionOrderWithinOneTransaction() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    Mapper mapper = sqlSession.getMapper(Mapper.class);
+    AsyncSqlSession asyncSession = sqlSession.getAsyncSession();
+
+    CompletableFuture<Integer> inserted = mapper.insertUser(new User(3, "User3"));
+    CompletableFuture<Void> deleted = mapper.deleteUser(1);
+    CompletableFuture<List<User>> uncommitted = mapper.getUsers().toCompletableFuture();
+    CompletableFuture<Void> rolledBack = asyncSession.rollback();
+    CompletableFuture<Integer> afterRollback = asyncSession.submit(session -> session.getMapper(Mapper.class).countUsers());
+    asyncSession.close().get(10, TimeUnit.SECONDS);
+
+    assertEquals(1, inserted.get());
+    assertEquals(null, deleted.get());
+    assertThat(uncommitted.get()).extracting(User::getName).containsExactly("User2", "User3");
+    rolledBack.get();
+    assertEquals(2, afterRollback.get());
+  }
+
+  @Test
+  void shouldReuseOneAsyncViewPerSession() throws Exception {
+    SqlSessionManager manager = SqlSessionManager.newInstance(sqlSessionFactory);
+    AsyncSqlSession unmanaged = manager.getAsyncSession();
+    assertThat(manager.getAsyncSession()).isSameAs(unmanaged);
+    assertEquals(2, unmanaged.submit(AsyncSqlSessionTest::countUsers).get(10, TimeUnit.SECONDS));
+
+    manager.startManagedSession();
+    try {
+      AsyncSqlSession managed = manager.getAsyncSession();
+      assertThat(managed).isNotSameAs(unmanaged).isSameAs(manager.getAsyncSession());
+      assertEquals(1, manager.getMapper(Mapper.class).insertUser(new User(3, "User3")).get(10, TimeUnit.SECONDS));
+      assertEquals(3, managed.submit(AsyncSqlSessionTest::countUsers).get(10, TimeUnit.SECONDS));
+      manager.rollback();
+    } finally {
+      manager.close();
+    }
+    assertEquals(2, unmanaged.submit(AsyncSqlSessionTest::countUsers).get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldRunDirectCallsAfterPendingAsyncWork() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CompletableFuture<Integer> inserted = sqlSession.getAsyncSession().submit(session -> {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return session.insert("org.apache.ibatis.submitted.async_session.Mapper.insertUser", new User(3, "User3"));
+      });
+      assertEquals(3, sqlSession.getMapper(Mapper.class).countUsers());
+      assertEquals(1, inserted.get());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void shouldProvideAnAsyncViewForOtherSessions() throws Exception {
+    SqlSession sqlSession = mock(SqlSession.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+    doReturn(sqlSessionFactory.getConfiguration()).when(sqlSession).getConfiguration();
+    AsyncSqlSession asyncSession = sqlSession.getAsyncSession();
+    assertThat(sqlSession.getAsyncSession()).isSameAs(asyncSession);
+    assertThat(asyncSession.submit(session -> session).get(10, TimeUnit.SECONDS)).isSameAs(sqlSession);
+  }
+
+  @Test
+  void shouldCompleteExceptionallyAndKeepGoing() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> failed = mapper.getAnyUser();
+      CompletableFuture<List<User>> users = sqlSession.getAsyncSession()
+          .selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsers");
+
+      ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+      assertThat(e.getCause()).isInstanceOf(TooManyResultsException.class);
+      assertThat(users.get(10, TimeUnit.SECONDS)).hasSize(2);
+    }
+  }
+
+  private static int countUsers(SqlSession session) {
+    return session.getMapper(Mapper.class).countUsers();
+  }
+
+}
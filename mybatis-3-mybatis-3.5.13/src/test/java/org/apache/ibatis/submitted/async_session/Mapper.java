@@ -0,0 +1,52 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.MapKey;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select * from users where id = #{id}")
+  CompletableFuture<User> getUser(Integer id);
+
+  @Select("select * from users order by id")
+  CompletionStage<List<User>> getUsers();
+
+  @Select("select * from users")
+  @MapKey("id")
+  CompletableFuture<Map<Integer, User>> getUserMap();
+
+  @Select("select * from users")
+  CompletableFuture<User> getAnyUser();
+
+  @Select("select count(*) from users")
+  int countUsers();
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  CompletableFuture<Integer> insertUser(User user);
+
+  @Delete("delete from users where id = #{id}")
+  CompletableFuture<Void> deleteUser(Integer id);
+
+}
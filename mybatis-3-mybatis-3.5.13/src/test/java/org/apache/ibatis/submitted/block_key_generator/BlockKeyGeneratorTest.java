@@ -0,0 +1,156 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.block_key_generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.keygen.HiLoKeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class BlockKeyGeneratorTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/block_key_generator/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/block_key_generator/CreateDB.sql");
+  }
+
+  @Test
+  void shouldHandOutSequenceBlocksAcrossSessions() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 4; i++) {
+        User user = new User(null, "user" + i);
+        mapper.insertUser(user);
+        users.add(user);
+      }
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User(null, "user4");
+      mapper.insertUser(user);
+      users.add(user);
+      List<User> list = Arrays.asList(new User(null, "user5"), new User(null, "user6"));
+      mapper.insertUsers(list);
+      users.addAll(list);
+      sqlSession.commit();
+    }
+    // the keys are consecutive although the sequence was only read for every third one
+    long first = users.get(0).getId();
+    for (int i = 0; i < users.size(); i++) {
+      assertThat(users.get(i).getId()).isEqualTo(first + i);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).countUsers()).isEqualTo(7);
+    }
+  }
+
+  @Test
+  void shouldKeepHiLoBlocksReservedWhenRollingBack() {
+    User rolledBack = new User(null, "rolledBack");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).insertOrder(rolledBack);
+      sqlSession.rollback();
+    }
+    KeyGenerator keyGenerator = sqlSessionFactory.getConfiguration().getKeyGenerator("orderIds");
+    assertThat(keyGenerator).isInstanceOf(HiLoKeyGenerator.class);
+    User order = new User(null, "order");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertOrder(order);
+      sqlSession.commit();
+      assertThat(order.getId()).isEqualTo(rolledBack.getId() + 1);
+      long nextHi = mapper.getNextHi();
+      assertThat(order.getId()).isBetween((nextHi - 1) * 10 + 1, nextHi * 10);
+    }
+  }
+
+  @Test
+  void shouldReportFailedHiLoInserts() {
+    HiLoKeyGenerator keyGenerator = new HiLoKeyGenerator();
+    Properties properties = new Properties();
+    properties.setProperty("name", "readOnly");
+    properties.setProperty("table", "hilo_keys_view");
+    keyGenerator.setProperties(properties);
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.block_key_generator.Mapper.insertOrder");
+
+    assertThatThrownBy(() -> keyGenerator.processBefore(null, ms, null, new HashMap<String, Object>()))
+        .isInstanceOf(ExecutorException.class).hasMessageNotContaining("contention")
+        .hasCauseInstanceOf(SQLException.class);
+  }
+
+  @Test
+  void shouldHandOutUniqueKeysConcurrently() throws Exception {
+    KeyGenerator keyGenerator = sqlSessionFactory.getConfiguration().getKeyGenerator("orderIds");
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.block_key_generator.Mapper.insertOrder");
+    Set<Object> keys = ConcurrentHashMap.newKeySet();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executorService.submit(() -> {
+          for (int i = 0; i < 100; i++) {
+            Map<String, Object> parameter = new HashMap<>();
+            keyGenerator.processBefore(null, ms, null, parameter);
+            keys.add(parameter.get("id"));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    assertThat(keys).hasSize(400);
+  }
+
+}
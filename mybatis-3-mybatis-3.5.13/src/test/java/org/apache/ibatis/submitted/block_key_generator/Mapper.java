@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.block_key_generator;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Options(keyGenerator = "userIds", keyProperty = "id")
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  void insertUser(User user);
+
+  @Options(keyGenerator = "userIds", keyProperty = "id")
+  @Insert({ "<script>", "insert into users (id, name) values",
+      "<foreach item='user' collection='list' separator=','>(#{user.id}, #{user.name})</foreach>", "</script>" })
+  void insertUsers(List<User> users);
+
+  void insertOrder(User order);
+
+  @Select("select count(*) from users")
+  int countUsers();
+
+  @Select("select count(*) from orders")
+  int countOrders();
+
+  @Select("select next_hi from hilo_keys where name = 'orders'")
+  long getNextHi();
+
+}
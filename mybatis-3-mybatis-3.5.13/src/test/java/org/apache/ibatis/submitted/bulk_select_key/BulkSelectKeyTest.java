@@ -0,0 +1,135 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.bulk_select_key;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BulkSelectKeyTest {
+
+  private static final List<String> prepared = new ArrayList<>();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/bulk_select_key/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new PrepareRecorder());
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/bulk_select_key/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetRecords() {
+    prepared.clear();
+  }
+
+  @Test
+  void shouldSelectKeysInBulkInBatch() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 5; i++) {
+        User user = new User(null, "user" + i);
+        mapper.insertUser(user);
+        users.add(user);
+      }
+      sqlSession.commit();
+    }
+    assertThat(countKeySelects()).isEqualTo(2);
+    assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+    assertThat(users.get(1).getId()).isEqualTo(users.get(0).getId() + 1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (User user : users) {
+        assertThat(mapper.getName(user.getId())).isEqualTo(user.getName());
+      }
+    }
+  }
+
+  @Test
+  void shouldSelectKeysInBulkFromXml() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 4; i++) {
+        User user = new User(null, "xml" + i);
+        mapper.insertUserFromXml(user);
+        users.add(user);
+      }
+      sqlSession.commit();
+    }
+    assertThat(countKeySelects()).isEqualTo(2);
+    assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+  }
+
+  @Test
+  void shouldSelectKeysOneByOneWithoutBatch() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user1 = new User(null, "simple1");
+      User user2 = new User(null, "simple2");
+      mapper.insertUser(user1);
+      mapper.insertUser(user2);
+      sqlSession.commit();
+      assertThat(countKeySelects()).isEqualTo(2);
+      assertThat(user1.getId()).isNotEqualTo(user2.getId());
+      assertThat(mapper.getName(user2.getId())).isEqualTo("simple2");
+    }
+  }
+
+  private static long countKeySelects() {
+    return prepared.stream().filter(sql -> sql.contains("next value for user_seq")).count();
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class,
+      Integer.class }))
+  public static class PrepareRecorder implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      prepared.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
@@ -0,0 +1,34 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.bulk_select_key;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.SelectKey;
+
+public interface Mapper {
+
+  @SelectKey(statement = "select next value for user_seq from numbers where n <= #{keyCount} order by n",
+      keyProperty = "id", before = true, resultType = Long.class, batchSize = 3)
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  void insertUser(User user);
+
+  void insertUserFromXml(User user);
+
+  @Select("select name from users where id = #{id}")
+  String getName(Long id);
+
+}
@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.CacheStats;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CacheStatsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_stats/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_stats/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRecordSecondLevelCacheStats() {
+    String cacheId = Mapper.class.getName();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    CacheStats stats = sqlSessionFactory.getConfiguration().getCacheStats(cacheId);
+    assertThat(stats.getCacheId()).isEqualTo(cacheId);
+    assertThat(stats.getSize()).isEqualTo(1);
+    assertThat(stats.getHitCount()).isEqualTo(1);
+    assertThat(stats.getMissCount()).isEqualTo(1);
+    assertThat(stats.getHitRatio()).isEqualTo(0.5);
+    assertThat(stats.getPutCount()).isEqualTo(1);
+    assertThat(stats.getLoadCount()).isEqualTo(1);
+    assertThat(stats.getTotalLoadTime()).isPositive();
+    assertThat(stats.getEstimatedBytes()).isPositive();
+    assertThat(stats.getEvictionCount()).isZero();
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = new User();
+      user.setId(2L);
+      user.setName("bobby");
+      sqlSession.getMapper(Mapper.class).updateUser(user);
+      sqlSession.commit();
+    }
+    stats = sqlSessionFactory.getConfiguration().getCacheStats(cacheId);
+    assertThat(stats.getSize()).isZero();
+    assertThat(stats.getEvictionCount()).isEqualTo(1);
+    assertThat(stats.getEstimatedBytes()).isZero();
+
+    assertThat(sqlSessionFactory.getConfiguration().getCacheStats()).extracting(CacheStats::getCacheId)
+        .containsExactly(cacheId);
+  }
+
+  @Test
+  void shouldRecordLocalCacheStats() {
+    CacheStats before = sqlSessionFactory.getConfiguration().getLocalCacheStats();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      UncachedMapper mapper = sqlSession.getMapper(UncachedMapper.class);
+      mapper.getUser(1);
+      mapper.getUser(1);
+      mapper.getUser(1);
+      CacheStats stats = sqlSessionFactory.getConfiguration().getLocalCacheStats();
+      assertThat(stats.getHitCount() - before.getHitCount()).isEqualTo(2);
+      assertThat(stats.getMissCount() - before.getMissCount()).isEqualTo(1);
+      assertThat(stats.getPutCount() - before.getPutCount()).isEqualTo(1);
+      assertThat(stats.getLoadCount() - before.getLoadCount()).isEqualTo(1);
+      assertThat(stats.getSize() - before.getSize()).isEqualTo(1);
+    }
+    CacheStats after = sqlSessionFactory.getConfiguration().getLocalCacheStats();
+    assertThat(after.getEvictionCount() - before.getEvictionCount()).isEqualTo(1);
+    assertThat(after.getSize()).isEqualTo(before.getSize());
+  }
+
+  @Test
+  void shouldNotRecordUnlessEnabled() {
+    Configuration configuration = new Configuration(sqlSessionFactory.getConfiguration().getEnvironment());
+    configuration.addMapper(Mapper.class);
+    SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(configuration);
+    for (int i = 0; i < 2; i++) {
+      try (SqlSession sqlSession = factory.openSession()) {
+        sqlSession.getMapper(Mapper.class).getUser(1);
+      }
+    }
+    CacheStats stats = configuration.getCacheStats(Mapper.class.getName());
+    assertThat(stats.getSize()).isEqualTo(1);
+    assertThat(stats.getHitCount()).isZero();
+    assertThat(stats.getPutCount()).isZero();
+    assertThat(stats.getEstimatedBytes()).isZero();
+    assertThat(configuration.getLocalCacheStats().getMissCount()).isZero();
+  }
+
+}
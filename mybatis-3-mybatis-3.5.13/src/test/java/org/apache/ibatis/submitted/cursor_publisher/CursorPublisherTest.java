@@ -0,0 +1,160 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_publisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  private static final String COMPLETE = "complete";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_publisher/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_publisher/CreateDB.sql");
+  }
+
+  @Test
+  void shouldEmitOnlyRequestedItems() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      sqlSession.getMapper(Mapper.class).streamUsers().subscribe(subscriber);
+
+      subscriber.subscription.request(2);
+      assertEquals("User1", subscriber.next());
+      assertEquals("User2", subscriber.next());
+      assertNull(subscriber.signals.poll(200, TimeUnit.MILLISECONDS));
+
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertEquals("User3", subscriber.next());
+      assertEquals("User4", subscriber.next());
+      assertEquals("User5", subscriber.next());
+      assertEquals(COMPLETE, subscriber.next());
+      sqlSession.getAsyncSession().close().get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void shouldCloseSessionOnCancel() throws Exception {
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment()
+        .getDataSource();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(sqlSessionFactory, session -> session.getMapper(Mapper.class).getUsers())
+        .subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+    assertEquals("User1", subscriber.next());
+    assertEquals(1, dataSource.getPoolState().getActiveConnectionCount());
+
+    subscriber.subscription.cancel();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (dataSource.getPoolState().getActiveConnectionCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertNull(subscriber.signals.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void shouldCancelWithoutSignallingWhenOnNextThrows() throws Exception {
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment()
+        .getDataSource();
+    RecordingSubscriber subscriber = new RecordingSubscriber() {
+      @Override
+      public void onNext(User item) {
+        super.onNext(item);
+        throw new IllegalStateException("subscriber failed");
+      }
+    };
+    new CursorPublisher<>(sqlSessionFactory, session -> session.getMapper(Mapper.class).getUsers())
+        .subscribe(subscriber);
+
+    subscriber.subscription.request(3);
+    assertEquals("User1", subscriber.next());
+    long deadline = System.currentTimeMillis() + 10000;
+    while (dataSource.getPoolState().getActiveConnectionCount() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertNull(subscriber.signals.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void shouldSignalErrorOnInvalidRequest() throws Exception {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(sqlSessionFactory, session -> session.getMapper(Mapper.class).getUsers())
+        .subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+    Object signal = subscriber.signals.poll(10, TimeUnit.SECONDS);
+    assertTrue(signal instanceof IllegalArgumentException);
+    assertThat(subscriber.signals).isEmpty();
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<User> {
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private volatile Flow.Subscription subscription;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(User item) {
+      signals.add(item.getName());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      signals.add(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      signals.add(COMPLETE);
+    }
+
+    Object next() throws InterruptedException {
+      return signals.poll(10, TimeUnit.SECONDS);
+    }
+  }
+
+}
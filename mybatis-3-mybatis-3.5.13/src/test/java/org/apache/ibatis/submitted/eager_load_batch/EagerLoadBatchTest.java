@@ -0,0 +1,224 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.eager_load_batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.Reader;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EagerLoadBatchTest {
+
+  private static final Map<String, Integer> queries = new ConcurrentHashMap<>();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/eager_load_batch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new QueryCounter());
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/eager_load_batch/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounts() {
+    queries.clear();
+  }
+
+  @Test
+  void shouldLoadEagerAssociationsAndCollectionsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      // 2 distinct teams in one query, 5 users in two queries of at most 3 keys
+      assertEquals(1, count("from teams where"));
+      assertEquals(2, count("from posts"));
+
+      assertEquals("Team1", users.get(0).getTeam().getName());
+      assertEquals("Team2", users.get(1).getTeam().getName());
+      assertSame(users.get(0).getTeam(), users.get(2).getTeam());
+      assertEquals("Team2", users.get(3).getTeam().getName());
+      assertNull(users.get(4).getTeam());
+
+      assertThat(users.get(0).getPosts()).extracting(Post::getTitle).containsExactly("Post6", "Post2", "Post1");
+      assertThat(users.get(1).getPosts()).isEmpty();
+      assertThat(users.get(2).getPosts()).extracting(Post::getTitle).containsExactly("Post3");
+      assertThat(users.get(3).getPosts()).extracting(Post::getTitle).containsExactly("Post4");
+      assertThat(users.get(4).getPosts()).extracting(Post::getTitle).containsExactly("Post5");
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenNestedSelectCannotBeBatched() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithJoinedTeams();
+      assertEquals("Team1", users.get(0).getTeam().getName());
+      assertNull(users.get(1).getTeam());
+      assertEquals(2, count("join users"));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenKeysMayMatchDifferentlyInDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // CHAR(5) codes are blank padded, so 'T1' matches 'T1   ' in the database but not in Java
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithTeamsByCode();
+      assertEquals("Team1", users.get(0).getTeam().getName());
+      assertEquals("Team2", users.get(1).getTeam().getName());
+      assertEquals("Team1", users.get(2).getTeam().getName());
+      assertNull(users.get(4).getTeam());
+      assertEquals(0, count(" in ("));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenNestedSelectLeavesOutTheKeyColumn() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithPostsWithoutUserId();
+      assertThat(users).extracting(user -> user.getPosts().size()).containsExactly(3, 0, 1, 1, 1);
+      // the first batch cannot be split by user, then every user queries alone
+      assertEquals(1, count(" in ("));
+      assertEquals(6, count("from posts"));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWithResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = new ArrayList<>();
+      sqlSession.select("org.apache.ibatis.submitted.eager_load_batch.Mapper.getUsers", context -> {
+        // the nested selects have run by the time each row is handed over
+        User user = (User) context.getResultObject();
+        assertEquals(user.getTeamId() == null, user.getTeam() == null);
+        users.add(user);
+      });
+      assertEquals(5, users.size());
+      assertEquals(2, count("from teams where"));
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldLoadEagerBatchesOfRefCursorOutputParameters() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    String resultMapId = configuration
+        .getMappedStatement("org.apache.ibatis.submitted.eager_load_batch.Mapper.getUsers").getResultMaps().get(0)
+        .getId();
+    ParameterMapping cursor = new ParameterMapping.Builder(configuration, "users", ResultSet.class)
+        .mode(ParameterMode.OUT).jdbcType(JdbcType.OTHER).resultMapId(resultMapId).build();
+    MappedStatement ms = new MappedStatement.Builder(configuration, "callUsers",
+        new StaticSqlSource(configuration, "{call get_users(?)}", Collections.singletonList(cursor)),
+        SqlCommandType.SELECT).statementType(StatementType.CALLABLE).build();
+    HashMap<String, Object> param = new HashMap<>();
+    BoundSql boundSql = ms.getBoundSql(param);
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Statement stmt = sqlSession.getConnection().createStatement()) {
+      // the procedure call is simulated, the ref cursor itself is a real result set
+      CallableStatement cs = mock(CallableStatement.class);
+      when(cs.getObject(1)).thenReturn(stmt.executeQuery("select * from users order by id"));
+      Executor executor = configuration.newExecutor(new JdbcTransaction(sqlSession.getConnection()));
+      new DefaultResultSetHandler(executor, ms, configuration.newParameterHandler(ms, param, boundSql), null, boundSql,
+          RowBounds.DEFAULT).handleOutputParameters(cs);
+
+      List<User> users = (List<User>) param.get("users");
+      assertEquals(1, count("from teams where"));
+      assertEquals(2, count("from posts"));
+      assertEquals("Team1", users.get(0).getTeam().getName());
+      assertSame(users.get(0).getTeam(), users.get(2).getTeam());
+      assertNull(users.get(4).getTeam());
+      assertThat(users.get(0).getPosts()).extracting(Post::getTitle).containsExactly("Post6", "Post2", "Post1");
+      assertThat(users.get(4).getPosts()).extracting(Post::getTitle).containsExactly("Post5");
+    }
+  }
+
+  @Test
+  void shouldResolveCircularNestedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Team> teams = sqlSession.getMapper(Mapper.class).getTeams();
+      assertThat(teams.get(0).getMembers()).extracting(User::getName).containsExactly("User1", "User3");
+      assertThat(teams.get(1).getMembers()).extracting(User::getName).containsExactly("User2", "User4");
+      Team team = teams.get(0).getMembers().get(0).getTeam();
+      assertEquals("Team1", team.getName());
+      assertThat(team.getMembers()).extracting(User::getName).containsExactly("User1", "User3");
+    }
+  }
+
+  private static int count(String sqlFragment) {
+    return queries.entrySet().stream().filter(entry -> entry.getKey().contains(sqlFragment))
+        .mapToInt(Map.Entry::getValue).sum();
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class,
+      Integer.class }))
+  public static class QueryCounter implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      queries.merge(((StatementHandler) invocation.getTarget()).getBoundSql().getSql(), 1, Integer::sum);
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.flight_recorder_events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlightRecorderEventsTest {
+
+  private static final String STATEMENT_ID = Mapper.class.getName() + ".getNames";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/flight_recorder_events/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/flight_recorder_events/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRecordStatementPhases(@TempDir Path tempDir) throws Exception {
+    Path dump = tempDir.resolve("mybatis.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("org.apache.ibatis.*");
+      recording.start();
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        assertThat(sqlSession.getMapper(Mapper.class).getNames()).containsExactly("User1", "User2");
+      }
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+        .filter(event -> event.getEventType().getName().startsWith("org.apache.ibatis.")).collect(Collectors.toList());
+    assertThat(events).extracting(event -> event.getEventType().getName()).contains("org.apache.ibatis.Query",
+        "org.apache.ibatis.ConnectionAcquire", "org.apache.ibatis.StatementPrepare",
+        "org.apache.ibatis.ParameterBinding", "org.apache.ibatis.StatementExecute",
+        "org.apache.ibatis.ResultSetHandling");
+
+    RecordedEvent query = find(events, "org.apache.ibatis.Query");
+    assertThat(query.getString("statementId")).isEqualTo(STATEMENT_ID);
+    assertThat(query.getLong("rows")).isEqualTo(2);
+    RecordedEvent resultSetHandling = find(events, "org.apache.ibatis.ResultSetHandling");
+    assertThat(resultSetHandling.getString("statementId")).isEqualTo(STATEMENT_ID);
+    assertThat(resultSetHandling.getLong("rows")).isEqualTo(2);
+    RecordedEvent connectionAcquire = find(events, "org.apache.ibatis.ConnectionAcquire");
+    assertThat(connectionAcquire.getString("url")).isEqualTo("jdbc:hsqldb:mem:flight_recorder_events");
+    assertThat(connectionAcquire.getBoolean("waited")).isFalse();
+  }
+
+  @Test
+  void shouldNotRecordWithoutRecording() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getNames()).hasSize(2);
+    }
+  }
+
+  private static RecordedEvent find(List<RecordedEvent> events, String name) {
+    return events.stream().filter(event -> event.getEventType().getName().equals(name)).findFirst().get();
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.identity_cache_invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdentityCacheInvalidationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  private User alice;
+  private User bob;
+  private List<User> users;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/identity_cache_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/identity_cache_invalidation/CreateDB.sql");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      alice = mapper.getUser(1);
+      bob = mapper.getUser(2);
+      users = mapper.getUsers();
+    }
+  }
+
+  @Test
+  void shouldEvictOnlyWrittenIdentity() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).updateUser(new User(1L, "carol"));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(1)).isNotSameAs(alice).extracting(User::getName).isEqualTo("carol");
+      assertThat(mapper.getUser(2)).isSameAs(bob);
+      // results not looked up by identity may hold the entity
+      assertThat(mapper.getUsers()).isNotSameAs(users);
+    }
+  }
+
+  @Test
+  void shouldClearOnWriteWithoutIdentity() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).renameAll("dave");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(1)).isNotSameAs(alice);
+      assertThat(mapper.getUser(2)).isNotSameAs(bob).extracting(User::getName).isEqualTo("dave");
+    }
+  }
+
+  @Test
+  void shouldEvictOnCommit() {
+    try (SqlSession writer = sqlSessionFactory.openSession()) {
+      Mapper mapper = writer.getMapper(Mapper.class);
+      mapper.updateUser(new User(1L, "carol"));
+      assertThat(mapper.getUser(1).getName()).isEqualTo("carol");
+      assertThat(mapper.getUser(2)).isSameAs(bob);
+      try (SqlSession reader = sqlSessionFactory.openSession()) {
+        assertThat(reader.getMapper(Mapper.class).getUser(1)).isSameAs(alice);
+      }
+      writer.rollback();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUser(1)).isSameAs(alice);
+    }
+  }
+
+}
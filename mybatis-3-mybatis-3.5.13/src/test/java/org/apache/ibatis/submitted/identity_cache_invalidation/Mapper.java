@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.identity_cache_invalidation;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.IdentityProperty;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.CacheInvalidation;
+
+@CacheNamespace(readWrite = false, invalidation = CacheInvalidation.IDENTITY)
+public interface Mapper {
+
+  @IdentityProperty("id")
+  @Select("select id, name from users where id = #{id}")
+  User getUser(int id);
+
+  @Select("select id, name from users order by id")
+  List<User> getUsers();
+
+  @IdentityProperty("id")
+  @Update("update users set name = #{name} where id = #{id}")
+  void updateUser(User user);
+
+  @Update("update users set name = #{name}")
+  void renameAll(String name);
+
+}
@@ -0,0 +1,125 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_load_batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyLoadBatchTest {
+
+  private static final Map<String, Integer> queries = new ConcurrentHashMap<>();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/lazy_load_batch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new QueryCounter());
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/lazy_load_batch/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounts() {
+    queries.clear();
+  }
+
+  @Test
+  void shouldLoadLazyAssociationsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals("Team1", users.get(0).getTeam().getName());
+      assertEquals(1, count("from teams where"));
+
+      assertEquals("Team2", users.get(1).getTeam().getName());
+      assertEquals("Team1", users.get(2).getTeam().getName());
+      assertEquals(1, count("from teams where"));
+
+      assertEquals("Team2", users.get(3).getTeam().getName());
+      assertNull(users.get(4).getTeam());
+      assertEquals(2, count("from teams where"));
+    }
+  }
+
+  @Test
+  void shouldLoadLazyCollectionsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users.get(0).getPosts()).extracting(Post::getTitle).containsExactly("Post6", "Post2", "Post1");
+      assertThat(users.get(1).getPosts()).isEmpty();
+      assertThat(users.get(2).getPosts()).extracting(Post::getTitle).containsExactly("Post3");
+      assertEquals(1, count("from posts"));
+
+      assertThat(users.get(3).getPosts()).extracting(Post::getTitle).containsExactly("Post4");
+      assertThat(users.get(4).getPosts()).extracting(Post::getTitle).containsExactly("Post5");
+      assertEquals(2, count("from posts"));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenNestedSelectCannotBeBatched() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithJoinedTeams();
+      assertEquals("Team1", users.get(0).getTeam().getName());
+      assertNull(users.get(1).getTeam());
+      assertEquals(2, count("join users"));
+    }
+  }
+
+  private static int count(String sqlFragment) {
+    return queries.entrySet().stream().filter(entry -> entry.getKey().contains(sqlFragment))
+        .mapToInt(Map.Entry::getValue).sum();
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class,
+      Integer.class }))
+  public static class QueryCounter implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      queries.merge(((StatementHandler) invocation.getTarget()).getBoundSql().getSql(), 1, Integer::sum);
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
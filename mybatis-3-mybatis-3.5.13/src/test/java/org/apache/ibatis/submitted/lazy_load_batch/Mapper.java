@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_load_batch;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Many;
+import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select * from users order by id")
+  @Result(property = "id", column = "id", id = true)
+  @Result(property = "teamId", column = "team_id")
+  @Result(property = "team", column = "team_id", one = @One(select = "getTeam"))
+  @Result(property = "posts", column = "id", many = @Many(select = "getPostsByUser"))
+  List<User> getUsers();
+
+  @Select("select * from users order by id")
+  @Result(property = "id", column = "id", id = true)
+  @Result(property = "teamId", column = "team_id")
+  @Result(property = "team", column = "team_id", one = @One(select = "getTeamJoined"))
+  List<User> getUsersWithJoinedTeams();
+
+  @Select("select * from teams where id = #{id}")
+  Team getTeam(Integer id);
+
+  @Select("select t.* from teams t join users u on u.team_id = t.id where t.id = #{id} and u.id = 1")
+  Team getTeamJoined(Integer id);
+
+  @Select("select * from posts where user_id = #{userId} order by id desc")
+  List<Post> getPostsByUser(Integer userId);
+
+}
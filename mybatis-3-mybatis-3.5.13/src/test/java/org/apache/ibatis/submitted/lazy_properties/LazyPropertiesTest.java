@@ -25,6 +25,7 @@ import java.util.HashSet;
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.hiddenclass.HiddenClassProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.Configuration;
@@ -164,6 +165,11 @@ class LazyPropertiesTest {
     shoulInvokingSetterInvalidateLazyLoading(new CglibProxyFactory());
   }
 
+  @Test
+  void shouldInvokingSetterInvalidateLazyLoading_HiddenClass() {
+    shoulInvokingSetterInvalidateLazyLoading(new HiddenClassProxyFactory());
+  }
+
   private void shoulInvokingSetterInvalidateLazyLoading(ProxyFactory proxyFactory) {
     Configuration config = sqlSessionFactory.getConfiguration();
     config.setProxyFactory(proxyFactory);
@@ -0,0 +1,167 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_statement_loading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyStatementLoadingTest {
+
+  private static final String NAMESPACE = Mapper.class.getName();
+
+  private SqlSessionFactory sqlSessionFactory;
+  private InspectableConfiguration configuration;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/lazy_statement_loading/mybatis-config.xml")) {
+      configuration = (InspectableConfiguration) new XMLConfigBuilder(InspectableConfiguration.class, reader, null,
+          null).parse();
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/lazy_statement_loading/CreateDB.sql");
+  }
+
+  @Test
+  void shouldBuildStatementsOnFirstUse() {
+    assertThat(configuration.isBuilt(NAMESPACE + ".getNameById")).isFalse();
+    assertThat(configuration.isBuilt(NAMESPACE + ".getUser")).isFalse();
+    assertThat(configuration.isBuilt(NAMESPACE + ".countUsers")).isFalse();
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getNameById(1)).isEqualTo("User1");
+      assertThat(mapper.getUser(2).getName()).isEqualTo("User2");
+    }
+
+    assertThat(configuration.isBuilt(NAMESPACE + ".getNameById")).isTrue();
+    assertThat(configuration.isBuilt(NAMESPACE + ".getUser")).isTrue();
+    assertThat(configuration.isBuilt(NAMESPACE + ".countUsers")).isFalse();
+  }
+
+  @Test
+  void shouldBuildAllStatementsWhenListingThem() {
+    assertThat(configuration.getMappedStatementNames()).contains(NAMESPACE + ".getNameById", NAMESPACE + ".getUser",
+        NAMESPACE + ".countUsers");
+    assertThat(configuration.isBuilt(NAMESPACE + ".countUsers")).isTrue();
+  }
+
+  @Test
+  void shouldResolveShortNames() {
+    assertThat(configuration.hasStatement("countUsers")).isTrue();
+  }
+
+  @Test
+  void shouldBuildStatementOnceWhenRequestedConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<MappedStatement>> tasks = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        tasks.add(() -> configuration.getMappedStatement(NAMESPACE + ".getUser"));
+      }
+      List<Future<MappedStatement>> results = executor.invokeAll(tasks);
+      MappedStatement first = results.get(0).get();
+      assertThat(first).isNotNull();
+      for (Future<MappedStatement> result : results) {
+        assertThat(result.get()).isSameAs(first);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldBuildDifferentStatementsOfOneMapperConcurrently() throws Exception {
+    String[] ids = { "getUser", "countUsers", "getUsersAbove", "getUsersBelow", "getUsersNamed" };
+    ExecutorService executor = Executors.newFixedThreadPool(ids.length);
+    try {
+      for (int round = 0; round < 20; round++) {
+        setUp();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (String id : ids) {
+          tasks.add(() -> {
+            start.await();
+            return configuration.getMappedStatement(NAMESPACE + "." + id).getBoundSql(null).getSql();
+          });
+        }
+        List<Future<String>> results = new ArrayList<>();
+        for (Callable<String> task : tasks) {
+          results.add(executor.submit(task));
+        }
+        start.countDown();
+        assertThat(results.get(0).get()).isEqualToIgnoringWhitespace("select id, name from users where id = ?");
+        assertThat(results.get(1).get()).isEqualToIgnoringWhitespace("select count(*) from users");
+        assertThat(results.get(2).get()).isEqualToIgnoringWhitespace("select id, name from users where id > ?");
+        assertThat(results.get(3).get()).isEqualToIgnoringWhitespace("select id, name from users where id < ?");
+        assertThat(results.get(4).get()).isEqualToIgnoringWhitespace("select id, name from users where name = ?");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldRetryBuilderThatFailed() {
+    String id = NAMESPACE + ".failingOnce";
+    AtomicInteger attempts = new AtomicInteger();
+    configuration.addLazyStatement(id, () -> {
+      configuration.addMappedStatement(new MappedStatement.Builder(configuration, id,
+          new StaticSqlSource(configuration, "select 1"), SqlCommandType.SELECT).build());
+      if (attempts.incrementAndGet() == 1) {
+        throw new IllegalStateException("first attempt");
+      }
+    });
+
+    assertThatThrownBy(() -> configuration.getMappedStatement(id)).isInstanceOf(IllegalStateException.class)
+        .hasMessage("first attempt");
+    assertThat(configuration.isBuilt(id)).isFalse();
+    assertThat(configuration.getMappedStatement(id).getId()).isEqualTo(id);
+    assertThat(attempts).hasValue(2);
+  }
+
+  public static class InspectableConfiguration extends Configuration {
+    boolean isBuilt(String id) {
+      return mappedStatements.containsKey(id);
+    }
+  }
+
+}
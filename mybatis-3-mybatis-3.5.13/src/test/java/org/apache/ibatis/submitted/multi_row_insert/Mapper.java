@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_row_insert;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+public interface Mapper {
+
+  @Options(useGeneratedKeys = true, keyProperty = "id")
+  @Insert("insert into users (name) values (#{name})")
+  void insertUser(User user);
+
+  @Insert("insert into users (name) select #{name} from (values (0))")
+  void insertUserFromSelect(User user);
+
+  @Select("select count(*) from users")
+  int countUsers();
+
+  @Select("select name from users order by id")
+  List<String> getNames();
+
+  @Delete("delete from users")
+  void deleteUsers();
+
+}
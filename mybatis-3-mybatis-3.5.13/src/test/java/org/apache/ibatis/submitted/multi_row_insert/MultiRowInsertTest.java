@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_row_insert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  private static final List<String> prepared = new ArrayList<>();
+  private static final Map<String, Integer> insertCalls = new ConcurrentHashMap<>();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/multi_row_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new PrepareRecorder());
+    sqlSessionFactory.getConfiguration().addInterceptor(new InsertCallCounter());
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/multi_row_insert/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetRecords() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).deleteUsers();
+    }
+    prepared.clear();
+    insertCalls.clear();
+  }
+
+  @Test
+  void shouldRewriteInsertsIntoMultiRowInsertsAndAssignKeys() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        User user = new User();
+        user.setName("user" + i);
+        mapper.insertUser(user);
+        users.add(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1, 1, 1);
+      assertThat(prepared).containsExactly("insert into users (name) values (?),(?)",
+          "insert into users (name) values (?),(?)", "insert into users (name) values (?)");
+      assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+      assertThat(users.get(4).getId()).isGreaterThan(users.get(0).getId());
+
+      assertThat(mapper.countUsers()).isEqualTo(5);
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void shouldBatchOtherInsertsAsUsual() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        User user = new User();
+        user.setName("user" + i);
+        mapper.insertUserFromSelect(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1);
+      assertThat(prepared).containsExactly("insert into users (name) select ? from (values (0))");
+      assertThat(mapper.countUsers()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void shouldBindEachRowWhenAddedAndThroughPlugins() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      for (int i = 0; i < 3; i++) {
+        // the same parameter object is changed for each row
+        user.setName("user" + i);
+        mapper.insertUser(user);
+      }
+      assertThat(insertCalls).containsEntry("parameterize", 3).containsEntry("batch", 3);
+      sqlSession.flushStatements();
+      assertThat(mapper.getNames()).containsExactly("user0", "user1", "user2");
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class,
+      Integer.class }))
+  public static class PrepareRecorder implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      String sql = ((StatementHandler) invocation.getTarget()).getBoundSql().getSql();
+      if (sql.startsWith("insert")) {
+        prepared.add(sql);
+      }
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+  @Intercepts({ @Signature(type = StatementHandler.class, method = "parameterize", args = Statement.class),
+      @Signature(type = StatementHandler.class, method = "batch", args = Statement.class) })
+  public static class InsertCallCounter implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      if (((StatementHandler) invocation.getTarget()).getBoundSql().getSql().startsWith("insert")) {
+        insertCalls.merge(invocation.getMethod().getName(), 1, Integer::sum);
+      }
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
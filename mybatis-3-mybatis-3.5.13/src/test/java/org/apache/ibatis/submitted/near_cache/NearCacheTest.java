@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.near_cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.invalidation.Invalidation;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NearCacheTest {
+
+  private SqlSessionFactory nodeA;
+  private SqlSessionFactory nodeB;
+
+  private User alice;
+  private User bob;
+  private List<User> users;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    nodeA = build();
+    nodeB = build();
+    BaseDataTest.runScript(nodeA.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/near_cache/CreateDB.sql");
+    load(nodeA);
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      alice = mapper.getUser(1);
+      bob = mapper.getUser(2);
+      users = mapper.getUsers();
+    }
+    RecordingTransport.published.clear();
+  }
+
+  private static SqlSessionFactory build() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/near_cache/mybatis-config.xml")) {
+      return new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  private static void load(SqlSessionFactory node) {
+    try (SqlSession sqlSession = node.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUser(1);
+      mapper.getUser(2);
+      mapper.getUsers();
+    }
+  }
+
+  @Test
+  void shouldInvalidateIdentitiesOnOtherNodes() {
+    try (SqlSession sqlSession = nodeA.openSession()) {
+      sqlSession.getMapper(Mapper.class).updateUser(new User(1L, "carol"));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(1)).isNotSameAs(alice).extracting(User::getName).isEqualTo("carol");
+      assertThat(mapper.getUser(2)).isSameAs(bob);
+      assertThat(mapper.getUsers()).isNotSameAs(users);
+    }
+    assertThat(RecordingTransport.published).hasSize(1);
+    assertThat(RecordingTransport.published.get(0)).singleElement().satisfies(invalidation -> {
+      assertThat(invalidation.getCacheId()).isEqualTo(Mapper.class.getName());
+      assertThat(invalidation.getDependencies()).hasSize(1);
+    });
+  }
+
+  @Test
+  void shouldRemoveEntriesOnlyCachedByOtherNodes() {
+    User carl;
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      carl = sqlSession.getMapper(Mapper.class).getUser(3);
+    }
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUser(3)).isSameAs(carl);
+    }
+    // node A has never read user 3
+    try (SqlSession sqlSession = nodeA.openSession()) {
+      sqlSession.getMapper(Mapper.class).updateUser(new User(3L, "frank"));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(3)).isNotSameAs(carl).extracting(User::getName).isEqualTo("frank");
+      assertThat(mapper.getUser(1)).isSameAs(alice);
+    }
+  }
+
+  @Test
+  void shouldClearOtherNodes() {
+    try (SqlSession sqlSession = nodeA.openSession()) {
+      sqlSession.getMapper(Mapper.class).renameAll("dave");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUser(2)).isNotSameAs(bob).extracting(User::getName)
+          .isEqualTo("dave");
+    }
+    assertThat(RecordingTransport.published).singleElement().satisfies(
+        invalidations -> assertThat(invalidations).singleElement().extracting(Invalidation::isClear).isEqualTo(true));
+  }
+
+  @Test
+  void shouldCoalesceInvalidationsOfCommit() {
+    try (SqlSession sqlSession = nodeA.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.updateUser(new User(1L, "carol"));
+      mapper.updateUser(new User(2L, "erin"));
+      sqlSession.commit();
+    }
+    assertThat(RecordingTransport.published).singleElement().satisfies(
+        invalidations -> assertThat(invalidations).singleElement().satisfies(invalidation -> {
+          assertThat(invalidation.isClear()).isFalse();
+          assertThat(invalidation.getDependencies()).hasSize(2);
+        }));
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(1)).isNotSameAs(alice);
+      assertThat(mapper.getUser(2)).isNotSameAs(bob);
+    }
+  }
+
+  @Test
+  void shouldNotPublishOnRollback() {
+    try (SqlSession sqlSession = nodeA.openSession()) {
+      sqlSession.getMapper(Mapper.class).updateUser(new User(1L, "carol"));
+      sqlSession.rollback();
+    }
+    assertThat(RecordingTransport.published).isEmpty();
+    try (SqlSession sqlSession = nodeB.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUser(1)).isSameAs(alice);
+    }
+  }
+
+}
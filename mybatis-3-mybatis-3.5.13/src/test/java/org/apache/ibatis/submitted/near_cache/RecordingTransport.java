@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.near_cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.ibatis.cache.invalidation.Invalidation;
+import org.apache.ibatis.cache.invalidation.LoopbackInvalidationTransport;
+
+public class RecordingTransport extends LoopbackInvalidationTransport {
+
+  static final List<List<Invalidation>> published = new CopyOnWriteArrayList<>();
+
+  public RecordingTransport() {
+    super("near_cache");
+  }
+
+  @Override
+  public void publish(List<Invalidation> invalidations) {
+    published.add(invalidations);
+    super.publish(invalidations);
+  }
+
+}
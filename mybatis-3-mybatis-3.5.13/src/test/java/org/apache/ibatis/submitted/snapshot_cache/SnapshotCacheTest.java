@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.snapshot_cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SnapshotCacheTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/snapshot_cache/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/snapshot_cache/CreateDB.sql");
+  }
+
+  @Test
+  void shouldHandOutTheSameSnapshotOnEveryHit() {
+    List<User> loaded;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      loaded = sqlSession.getMapper(Mapper.class).getUsers();
+    }
+    // the session that loaded the results cannot change the cache
+    loaded.get(0).setName("changed");
+
+    List<User> first;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      first = sqlSession.getMapper(Mapper.class).getUsers();
+    }
+    List<User> second;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      second = sqlSession.getMapper(Mapper.class).getUsers();
+    }
+    assertThat(second).isSameAs(first).isNotSameAs(loaded);
+    assertThat(first.get(0)).isNotSameAs(loaded.get(0));
+    assertThat(first).extracting(User::getName).containsExactly("alice", "bob");
+    assertThatThrownBy(() -> first.add(new User())).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> first.get(0).setName("changed")).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldSnapshotMaps() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUserAsMap(2);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> user = sqlSession.getMapper(Mapper.class).getUserAsMap(2);
+      assertThat(user).containsEntry("NAME", "bob");
+      assertThatThrownBy(() -> user.put("NAME", "changed")).isInstanceOf(UnsupportedOperationException.class);
+    }
+  }
+
+}
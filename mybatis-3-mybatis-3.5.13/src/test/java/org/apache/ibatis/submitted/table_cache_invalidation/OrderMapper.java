@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.table_cache_invalidation;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Tables;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.CacheInvalidation;
+
+@CacheNamespace(readWrite = false, invalidation = CacheInvalidation.TABLE)
+public interface OrderMapper {
+
+  @Select("select id, customer_id, amount from orders order by id")
+  List<Order> getOrders();
+
+  @Insert("insert into orders (id, customer_id, amount) values (#{id}, #{customerId}, #{amount})")
+  void insertOrder(Order order);
+
+  @Tables("customers")
+  @Update("update orders set amount = amount where 1 = 0")
+  void touchCustomers();
+
+}
@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.table_cache_invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableCacheInvalidationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  private List<Customer> customers;
+  private List<Integer> customerTotals;
+  private List<Integer> orderCount;
+  private List<Order> orders;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/table_cache_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/table_cache_invalidation/CreateDB.sql");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      customers = customerMapper.getCustomers();
+      customerTotals = customerMapper.getCustomerTotals();
+      orderCount = customerMapper.getOrderCount();
+      orders = sqlSession.getMapper(OrderMapper.class).getOrders();
+    }
+  }
+
+  @Test
+  void shouldKeepResultsOfOtherTablesOnInsert() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(OrderMapper.class).insertOrder(new Order(4, 2, 40));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      assertThat(customerMapper.getCustomers()).isSameAs(customers);
+      // invalidated across namespaces
+      assertThat(customerMapper.getCustomerTotals()).isNotSameAs(customerTotals).containsExactly(30, 70);
+      assertThat(customerMapper.getOrderCount()).isNotSameAs(orderCount).containsExactly(4);
+      assertThat(sqlSession.getMapper(OrderMapper.class).getOrders()).isNotSameAs(orders).hasSize(4);
+    }
+  }
+
+  @Test
+  void shouldKeepResultsOfOtherTablesOnUpdate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(CustomerMapper.class).renameCustomer(1, "carol");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      assertThat(customerMapper.getCustomers()).isNotSameAs(customers).extracting(Customer::getName)
+          .containsExactly("carol", "bob");
+      assertThat(customerMapper.getCustomerTotals()).isNotSameAs(customerTotals);
+      assertThat(customerMapper.getOrderCount()).isSameAs(orderCount);
+      assertThat(sqlSession.getMapper(OrderMapper.class).getOrders()).isSameAs(orders);
+    }
+  }
+
+  @Test
+  void shouldUseDeclaredTables() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(OrderMapper.class).touchCustomers();
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      assertThat(customerMapper.getCustomers()).isNotSameAs(customers);
+      assertThat(sqlSession.getMapper(OrderMapper.class).getOrders()).isSameAs(orders);
+    }
+  }
+
+  @Test
+  void shouldMissResultsOfTablesWrittenInTransaction() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+      orderMapper.insertOrder(new Order(4, 2, 40));
+      assertThat(orderMapper.getOrders()).hasSize(4);
+      assertThat(sqlSession.getMapper(CustomerMapper.class).getCustomers()).isSameAs(customers);
+      sqlSession.rollback();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(OrderMapper.class).getOrders()).isSameAs(orders);
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.virtual_threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs thousands of concurrent sessions through a small pool, a shared second level cache and lazy loading proxies. On
+ * Java 21 and later every session runs on its own virtual thread and the test fails if a virtual thread got pinned
+ * while parked inside MyBatis code; older runtimes fall back to a platform thread pool.
+ */
+class VirtualThreadsTest {
+
+  private static final int TASKS = 2000;
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/virtual_threads/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/virtual_threads/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunManyConcurrentSessions(@TempDir Path tempDir) throws Exception {
+    Path dump = tempDir.resolve("pinning.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+      recording.start();
+
+      ExecutorService executor = newExecutor();
+      try {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+          int id = i % 4 + 1;
+          results.add(executor.submit(() -> {
+            try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+              User user = sqlSession.getMapper(Mapper.class).getUser(id);
+              return user.getName() + "/" + user.getTeam().getName();
+            }
+          }));
+        }
+        for (int i = 0; i < TASKS; i++) {
+          int id = i % 4 + 1;
+          assertThat(results.get(i).get(1, TimeUnit.MINUTES)).isEqualTo("User" + id + "/Team" + (id % 2 == 0 ? 2 : 1));
+        }
+      } finally {
+        executor.shutdown();
+      }
+
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    List<String> pinnedInMyBatis = RecordingFile.readAllEvents(dump).stream()
+        .filter(event -> event.getEventType().getName().equals(PINNED_EVENT)).filter(VirtualThreadsTest::pinnedByMyBatis)
+        .map(event -> event.getStackTrace().toString()).collect(Collectors.toList());
+    assertThat(pinnedInMyBatis).isEmpty();
+  }
+
+  /**
+   * Pinning caused by the monitors of the JDBC driver itself is not ours to fix, so only events whose stack reaches
+   * MyBatis without passing through the driver are counted.
+   */
+  private static boolean pinnedByMyBatis(RecordedEvent event) {
+    if (event.getStackTrace() == null) {
+      return false;
+    }
+    for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+      String className = frame.getMethod().getType().getName();
+      if (className.startsWith("org.hsqldb.")) {
+        return false;
+      }
+      if (className.startsWith("org.apache.ibatis.")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ExecutorService newExecutor() throws Exception {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      return Executors.newFixedThreadPool(64);
+    }
+  }
+
+}
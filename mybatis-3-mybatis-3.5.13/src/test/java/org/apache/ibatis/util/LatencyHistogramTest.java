@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void shouldBeEmptyInitially() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getMean()).isZero();
+    assertThat(histogram.getValueAtPercentile(99)).isZero();
+  }
+
+  @Test
+  void shouldReportPercentilesWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 10_000; i++) {
+      histogram.record(i * 1000);
+    }
+    assertThat(histogram.getCount()).isEqualTo(10_000);
+    assertThat(histogram.getMax()).isEqualTo(10_000_000);
+    assertThat(histogram.getMean()).isEqualTo(5_000_500.0);
+    assertThat(histogram.getValueAtPercentile(50)).isBetween(5_000_000L, 5_625_000L);
+    assertThat(histogram.getValueAtPercentile(99)).isBetween(9_900_000L, 10_000_000L);
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10_000_000);
+  }
+
+  @Test
+  void shouldRecordSmallValuesExactly() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(0);
+    histogram.record(3);
+    histogram.record(7);
+    histogram.record(-5);
+    assertThat(histogram.getValueAtPercentile(25)).isZero();
+    assertThat(histogram.getValueAtPercentile(75)).isEqualTo(3);
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(7);
+  }
+
+  @Test
+  void bucketBoundsShouldCoverEveryValue() {
+    long[] values = { 8, 9, 15, 16, 17, 1000, 1023, 1024, 123_456_789, (1L << 62) - 1 };
+    for (long value : values) {
+      int index = LatencyHistogram.index(value);
+      assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+      if (index > 0) {
+        assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(value);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,41 @@
+--
+--    Copyright 2009-2023 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       https://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop view hilo_keys_view if exists;
+drop table users if exists;
+drop table orders if exists;
+drop table hilo_keys if exists;
+drop sequence user_seq if exists;
+
+create sequence user_seq start with 1 increment by 3;
+
+create table users (
+  id int primary key,
+  name varchar(20)
+);
+
+create table orders (
+  id bigint primary key,
+  name varchar(20)
+);
+
+create table hilo_keys (
+  name varchar(20) primary key,
+  next_hi bigint not null
+);
+
+-- cannot be inserted into
+create view hilo_keys_view as select distinct name, next_hi from hilo_keys;
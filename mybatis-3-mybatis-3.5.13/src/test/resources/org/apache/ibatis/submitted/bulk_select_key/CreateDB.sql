@@ -0,0 +1,32 @@
+--
+--    Copyright 2009-2023 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       https://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table users if exists;
+drop table numbers if exists;
+drop sequence user_seq if exists;
+
+create sequence user_seq start with 1;
+
+create table users (
+  id int primary key,
+  name varchar(20)
+);
+
+create table numbers (
+  n int primary key
+);
+
+insert into numbers values (1), (2), (3), (4), (5), (6), (7), (8), (9), (10);
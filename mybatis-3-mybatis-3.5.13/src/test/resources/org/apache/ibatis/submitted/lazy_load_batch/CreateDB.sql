@@ -0,0 +1,52 @@
+--
+--    Copyright 2009-2023 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       https://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table posts if exists;
+drop table users if exists;
+drop table teams if exists;
+
+create table teams (
+  id int,
+  name varchar(20)
+);
+
+create table users (
+  id int,
+  name varchar(20),
+  team_id int
+);
+
+create table posts (
+  id int,
+  user_id int,
+  title varchar(20)
+);
+
+insert into teams (id, name) values (1, 'Team1');
+insert into teams (id, name) values (2, 'Team2');
+
+insert into users (id, name, team_id) values (1, 'User1', 1);
+insert into users (id, name, team_id) values (2, 'User2', 2);
+insert into users (id, name, team_id) values (3, 'User3', 1);
+insert into users (id, name, team_id) values (4, 'User4', 2);
+insert into users (id, name, team_id) values (5, 'User5', null);
+
+insert into posts (id, user_id, title) values (1, 1, 'Post1');
+insert into posts (id, user_id, title) values (2, 1, 'Post2');
+insert into posts (id, user_id, title) values (3, 3, 'Post3');
+insert into posts (id, user_id, title) values (4, 4, 'Post4');
+insert into posts (id, user_id, title) values (5, 5, 'Post5');
+insert into posts (id, user_id, title) values (6, 1, 'Post6');